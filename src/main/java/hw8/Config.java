@@ -1,8 +1,15 @@
 package hw8;
 
+import hw8.graph.ConcurrentGraph;
 import hw8.graph.Graph;
 import hw8.graph.SparseGraph;
+import hw8.spp.AStarStreetSearcher;
+import hw8.spp.AltStreetSearcher;
+import hw8.spp.BidirectionalStreetSearcher;
+import hw8.spp.ContractionHierarchyStreetSearcher;
 import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.RadixHeapStreetSearcher;
+import hw8.spp.ShortestPathTreeCache;
 import hw8.spp.StreetSearcher;
 
 import java.io.File;
@@ -25,23 +32,79 @@ public final class Config {
 
     /**
      * Change this to experiment with different implementations of Graph ADT.
+     * The implementation can also be picked without recompiling through the
+     * "graph" system property, e.g. -Dgraph=concurrent for a graph whose
+     * roads can be closed and reopened while it is searched.
      *
      * @param <V> Vertex element type.
      * @param <E> Edge element type.
      * @return an implementation of the Graph ADT.
      */
     public static <V, E> Graph<V, E> getGraph() {
-        return new SparseGraph<>();
+        switch (System.getProperty("graph", "sparse")) {
+            case "concurrent":
+                return new ConcurrentGraph<>();
+            case "sparse":
+                return new SparseGraph<>();
+            default:
+                throw new IllegalArgumentException("Unknown graph: " + System.getProperty("graph"));
+        }
     }
 
     /**
      * Change this to experiment with different implementations of StreetSearcher.
+     * The implementation can also be picked without recompiling through the
+     * "searcher" system property, e.g. -Dsearcher=astar.
      *
      * @param graph an implementation of the Graph ADT.
      * @return an implementation of StreetSearcher.
+     * @throws IllegalArgumentException if the searcher is unknown, or
+     *     builds its tables once and the graph can change while it runs.
      */
     public static StreetSearcher getStreetSearcher(Graph<String, String> graph) {
-        return new DijkstraStreetSearcher(graph);
+        switch (System.getProperty("searcher", "dijkstra")) {
+            case "alt":
+                requireFixedRoads(graph, "alt");
+                return new AltStreetSearcher(graph);
+            case "astar":
+                return new AStarStreetSearcher(graph);
+            case "bidirectional":
+                return new BidirectionalStreetSearcher(graph);
+            case "ch":
+                requireFixedRoads(graph, "ch");
+                return new ContractionHierarchyStreetSearcher(graph);
+            case "dijkstra":
+                return new DijkstraStreetSearcher(graph, true);
+            case "radix":
+                requireFixedRoads(graph, "radix");
+                return new RadixHeapStreetSearcher(graph);
+            default:
+                throw new IllegalArgumentException("Unknown searcher: " + System.getProperty("searcher"));
+        }
+    }
+
+    // Searchers that preprocess the roads when they are loaded would miss every later change
+    private static void requireFixedRoads(Graph<String, String> graph, String searcher) {
+        if (graph instanceof ConcurrentGraph) {
+            throw new IllegalArgumentException("Searcher " + searcher
+                    + " builds its tables from the roads as loaded and would not see them change;"
+                    + " use dijkstra, astar or bidirectional with graph=concurrent");
+        }
+    }
+
+    /**
+     * Cache of shortest path trees for a RoutePlanner, sized by the "trees"
+     * system property in megabytes, e.g. -Dtrees=256. Routes are searched
+     * one by one when it is not set.
+     *
+     * @return the cache, or null if the property is not set or is 0.
+     */
+    public static ShortestPathTreeCache getTreeCache() {
+        long megabytes = Long.parseLong(System.getProperty("trees", "0"));
+        if (megabytes < 0) {
+            throw new IllegalArgumentException("Negative tree cache size: " + megabytes);
+        }
+        return megabytes == 0 ? null : new ShortestPathTreeCache(megabytes << 20);
     }
 
     @Override
@@ -1,18 +1,44 @@
 package hw8;
 
 import hw8.graph.Graph;
+import hw8.spp.RoadNetwork;
+import hw8.spp.Route;
+import hw8.spp.RoutePlanner;
 import hw8.spp.StreetSearcher;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
 
 public class Driver {
+    // Most queries held in memory at once in batch mode
+    private static final int BATCH_SIZE = 4096;
 
     /**
      * Execution starts here.
+     * <p>
+     * With no arguments, answers the query from Config.getConfig(). With
+     * "--batch", loads the network once and answers one "from to" query
+     * per line, read from the file given after it or from standard input
+     * if there is none (or it is "-"). Routes from the same source share a
+     * cached shortest path tree when the "trees" system property gives the
+     * cache size in megabytes.</p>
      *
-     * @param args command-line arguments not used here.
+     * @param args command-line arguments: nothing, or "--batch [file]".
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            batch(args.length > 1 ? args[1] : "-");
+            return;
+        }
         StreetSearcher.VERBOSE = true;
         Graph<String, String> graph = Config.getGraph();
         StreetSearcher streetSearcher = Config.getStreetSearcher(graph);
@@ -25,4 +51,71 @@ public class Driver {
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    private static void batch(String queries) {
+        Config config = Config.getConfig();
+        try (InputStream input = queries.equals("-") ? System.in : new FileInputStream(queries)) {
+            RoutePlanner planner = new RoutePlanner(RoadNetwork.load(config.data), Config.getTreeCache());
+            BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            answerQueries(planner, in, out);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Answer "from to" queries, one per line, writing each answer in the
+     * format findShortestPath() prints in, in the order the queries came.
+     * <p>
+     * Queries are read in batches of up to BATCH_SIZE lines, or fewer if no
+     * more input is ready yet, and each batch is answered in parallel
+     * before the next is read. Memory stays bounded however long the input
+     * is, and answers to typed queries are not held back waiting for more.
+     * Blank lines are skipped.</p>
+     *
+     * @param planner planner to answer the queries with.
+     * @param in      queries.
+     * @param out     answers; flushed after every batch.
+     * @throws IOException if reading or writing fails.
+     */
+    static void answerQueries(RoutePlanner planner, BufferedReader in, Writer out) throws IOException {
+        String[] lines = new String[BATCH_SIZE];
+        String[] answers = new String[BATCH_SIZE];
+        boolean done = false;
+        while (!done) {
+            int size = 0;
+            while (size < lines.length) {
+                String line = in.readLine();
+                if (line == null) {
+                    done = true;
+                    break;
+                }
+                if (!line.trim().isEmpty()) {
+                    lines[size++] = line;
+                }
+                if (size > 0 && !in.ready()) {
+                    break;
+                }
+            }
+            IntStream.range(0, size).parallel().forEach(i -> answers[i] = answer(planner, lines[i]));
+            for (int i = 0; i < size; i++) {
+                out.write(answers[i]);
+            }
+            out.flush();
+        }
+    }
+
+    private static String answer(RoutePlanner planner, String query) {
+        String[] ends = query.trim().split("\\s+");
+        if (ends.length != 2) {
+            return "Invalid Query: " + query + "\n";
+        }
+        try {
+            Route route = planner.route(ends[0], ends[1]);
+            return route.isFound() ? route.toString() : route + "\n";
+        } catch (IllegalArgumentException e) {
+            return e.getMessage() + "\n";
+        }
+    }
+}
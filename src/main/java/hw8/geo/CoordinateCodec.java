@@ -0,0 +1,119 @@
+package hw8.geo;
+
+/**
+ * Packs a "lon,lat" vertex name into a single long, so intersections can be
+ * found and compared as numbers instead of as strings.
+ * <p>
+ * Each coordinate is kept in fixed point as a whole number of 1e-7 degrees
+ * (about a centimeter), longitude in the high 32 bits and latitude in the
+ * low 32 bits. Names that spell the same point differently, such as
+ * "-76.6107,39.2866" and "-76.61070,39.28660", pack to the same key.
+ * Digits past the seventh decimal place are rounded off. Encoding reads the
+ * characters directly and allocates nothing.</p>
+ */
+public final class CoordinateCodec {
+    /** Fixed-point units per degree. */
+    public static final double SCALE = 1e7;
+
+    /** Returned by encode() for a name that is not a coordinate pair. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final int DECIMALS = 7;
+
+    private CoordinateCodec() {
+    }
+
+    /**
+     * Pack a vertex name of the form "lon,lat". Only plain decimals are
+     * accepted: an optional minus sign, digits, and optionally a point
+     * followed by more digits.
+     *
+     * @param name vertex name, e.g. "-76.6107,39.2866".
+     * @return the packed key, or NONE if name is not a coordinate pair.
+     */
+    public static long encode(CharSequence name) {
+        int comma = -1;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == ',') {
+                comma = i;
+                break;
+            }
+        }
+        if (comma < 0) {
+            return NONE;
+        }
+        long lon = parseFixed(name, 0, comma, 180);
+        long lat = parseFixed(name, comma + 1, name.length(), 90);
+        if (lon == NONE || lat == NONE) {
+            return NONE;
+        }
+        return (lon << 32) | (lat & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Longitude of a packed key.
+     *
+     * @param key a key returned by encode().
+     * @return longitude in degrees.
+     */
+    public static double longitude(long key) {
+        return (int) (key >> 32) / SCALE;
+    }
+
+    /**
+     * Latitude of a packed key.
+     *
+     * @param key a key returned by encode().
+     * @return latitude in degrees.
+     */
+    public static double latitude(long key) {
+        return (int) key / SCALE;
+    }
+
+    // Degrees in name[start, end) as a count of 1e-7 degrees, or NONE
+    private static long parseFixed(CharSequence name, int start, int end, int maxDegrees) {
+        int i = start;
+        boolean negative = i < end && name.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long whole = 0;
+        int wholeDigits = 0;
+        for (; i < end && isDigit(name.charAt(i)); i++) {
+            if (++wholeDigits > 3) {
+                return NONE;
+            }
+            whole = 10 * whole + (name.charAt(i) - '0');
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < end && name.charAt(i) == '.') {
+            for (i++; i < end && isDigit(name.charAt(i)); i++) {
+                if (fractionDigits < DECIMALS) {
+                    fraction = 10 * fraction + (name.charAt(i) - '0');
+                } else if (fractionDigits == DECIMALS) {
+                    roundUp = name.charAt(i) >= '5';
+                }
+                fractionDigits++;
+            }
+        }
+        if (i < end || wholeDigits + fractionDigits == 0) {
+            return NONE;
+        }
+        for (int d = fractionDigits; d < DECIMALS; d++) {
+            fraction *= 10;
+        }
+
+        long fixed = whole * (long) SCALE + fraction + (roundUp ? 1 : 0);
+        if (fixed > maxDegrees * (long) SCALE) {
+            return NONE;
+        }
+        return negative ? -fixed : fixed;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,29 @@
+package hw8.geo;
+
+/**
+ * Helpers for the "lon,lat" coordinates used as vertex names in the map files.
+ */
+public final class Geo {
+    /** Mean radius of the Earth in meters. */
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    private Geo() {
+    }
+
+    /**
+     * Great-circle distance between two coordinates.
+     *
+     * @param lon1 longitude of the first point, in degrees.
+     * @param lat1 latitude of the first point, in degrees.
+     * @param lon2 longitude of the second point, in degrees.
+     * @param lat2 latitude of the second point, in degrees.
+     * @return distance in meters.
+     */
+    public static double distance(double lon1, double lat1, double lon2, double lat2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
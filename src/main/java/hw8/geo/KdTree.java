@@ -0,0 +1,303 @@
+package hw8.geo;
+
+/**
+ * Spatial index over a fixed set of points on the globe, for finding the
+ * points nearest to an arbitrary coordinate.
+ * <p>
+ * Each point is stored as a unit vector. The chord between two unit
+ * vectors grows with the great-circle distance between them, so the
+ * nearest points by chord are exactly the nearest points on the globe, and
+ * a plain three-dimensional k-d tree can find them. The tree is implicit:
+ * the points are reordered so that every range of the arrays is a subtree
+ * whose middle element splits the rest along one axis. A query visits
+ * O(log n) points on typical data and allocates only its result buffer.</p>
+ * <p>
+ * The tree cannot be changed once built, and queries may run concurrently.</p>
+ */
+public final class KdTree {
+    private final int[] ids;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final byte[] axes;  // axis the element splits its subtree on
+
+    // Bounding box of all the points, which every subtree's box lies within
+    private final double[] min = new double[3];
+    private final double[] max = new double[3];
+
+    /**
+     * Build the index.
+     *
+     * @param lons longitude of each point, in degrees.
+     * @param lats latitude of each point, in degrees.
+     * @throws IllegalArgumentException if the arrays differ in length.
+     */
+    public KdTree(double[] lons, double[] lats) {
+        if (lons.length != lats.length) {
+            throw new IllegalArgumentException("Got " + lons.length + " longitudes and " + lats.length + " latitudes");
+        }
+        int n = lons.length;
+        ids = new int[n];
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        axes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            double lon = Math.toRadians(lons[i]);
+            double lat = Math.toRadians(lats[i]);
+            xs[i] = Math.cos(lat) * Math.cos(lon);
+            ys[i] = Math.cos(lat) * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            min[axis] = Double.POSITIVE_INFINITY;
+            max[axis] = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                min[axis] = Math.min(min[axis], coordinate(axis, i));
+                max[axis] = Math.max(max[axis], coordinate(axis, i));
+            }
+        }
+        build(0, n);
+    }
+
+    /**
+     * Number of points in the index.
+     *
+     * @return point count.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Point nearest to a coordinate.
+     *
+     * @param lon longitude in degrees.
+     * @param lat latitude in degrees.
+     * @return index of the nearest point in the arrays the tree was built
+     *     from, or -1 if the tree is empty.
+     */
+    public int nearest(double lon, double lat) {
+        int[] found = nearest(lon, lat, 1);
+        return found.length == 0 ? -1 : found[0];
+    }
+
+    /**
+     * The k points nearest to a coordinate.
+     *
+     * @param lon longitude in degrees.
+     * @param lat latitude in degrees.
+     * @param k   number of points wanted.
+     * @return indexes of up to k points in the arrays the tree was built
+     *     from, nearest first.
+     * @throws IllegalArgumentException if k is negative.
+     */
+    public int[] nearest(double lon, double lat, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative k: " + k);
+        }
+        double lonRad = Math.toRadians(lon);
+        double latRad = Math.toRadians(lat);
+        Query query = new Query(Math.cos(latRad) * Math.cos(lonRad), Math.cos(latRad) * Math.sin(lonRad),
+                Math.sin(latRad), Math.min(k, ids.length));
+        if (query.capacity > 0) {
+            double boxDistance = 0.0;
+            for (int axis = 0; axis < 3; axis++) {
+                double c = axis == 0 ? query.x : axis == 1 ? query.y : query.z;
+                double offset = c < min[axis] ? c - min[axis] : c > max[axis] ? c - max[axis] : 0.0;
+                query.offsets[axis] = offset;
+                boxDistance += offset * offset;
+            }
+            search(query, 0, ids.length, boxDistance);
+        }
+        return query.sorted();
+    }
+
+    // Arrange [lo, hi) as a subtree: the middle element splits the rest along the widest axis
+    private void build(int lo, int hi) {
+        while (hi - lo > 1) {
+            int axis = widestAxis(lo, hi);
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi, mid, axis);
+            axes[mid] = (byte) axis;
+            build(mid + 1, hi);
+            hi = mid;
+        }
+    }
+
+    private int widestAxis(int lo, int hi) {
+        int best = 0;
+        double widest = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double c = coordinate(axis, i);
+                min = Math.min(min, c);
+                max = Math.max(max, c);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                best = axis;
+            }
+        }
+        return best;
+    }
+
+    // Quickselect: put the element of rank k (along axis) at k, smaller ones before it
+    private void select(int lo, int hi, int k, int axis) {
+        int left = lo;
+        int right = hi - 1;
+        while (left < right) {
+            double pivot = medianOfThree(coordinate(axis, left), coordinate(axis, (left + right) >>> 1),
+                    coordinate(axis, right));
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(axis, i) < pivot) {
+                    i++;
+                }
+                while (coordinate(axis, j) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private double coordinate(int axis, int i) {
+        return axis == 0 ? xs[i] : axis == 1 ? ys[i] : zs[i];
+    }
+
+    private void swap(int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double t = xs[i];
+        xs[i] = xs[j];
+        xs[j] = t;
+        t = ys[i];
+        ys[i] = ys[j];
+        ys[j] = t;
+        t = zs[i];
+        zs[i] = zs[j];
+        zs[j] = t;
+    }
+
+    // Visit the subtree [lo, hi), whose box is at squared distance boxDistance from the query
+    private void search(Query query, int lo, int hi, double boxDistance) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double dx = query.x - xs[mid];
+        double dy = query.y - ys[mid];
+        double dz = query.z - zs[mid];
+        query.offer(ids[mid], dx * dx + dy * dy + dz * dz);
+
+        int axis = axes[mid];
+        double diff = axis == 0 ? dx : axis == 1 ? dy : dz;
+        int nearLo = diff < 0 ? lo : mid + 1;
+        int nearHi = diff < 0 ? mid : hi;
+        search(query, nearLo, nearHi, boxDistance);
+
+        // The far side's box is the same but for how far the split plane is along this axis
+        double offset = query.offsets[axis];
+        double farDistance = boxDistance - offset * offset + diff * diff;
+        if (farDistance < query.worst()) {
+            query.offsets[axis] = diff;
+            search(query, diff < 0 ? mid + 1 : lo, diff < 0 ? hi : mid, farDistance);
+            query.offsets[axis] = offset;
+        }
+    }
+
+    // The k closest points seen so far, in a max-heap on squared chord length
+    private static final class Query {
+        final double x;
+        final double y;
+        final double z;
+        final double[] offsets = new double[3];  // per axis, query to the current box
+        final int capacity;
+        final int[] ids;
+        final double[] distances;
+        int size;
+
+        Query(double x, double y, double z, int capacity) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.capacity = capacity;
+            ids = new int[capacity];
+            distances = new double[capacity];
+        }
+
+        double worst() {
+            return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+        }
+
+        void offer(int id, double distance) {
+            if (size < capacity) {
+                ids[size] = id;
+                distances[size] = distance;
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                ids[0] = id;
+                distances[0] = distance;
+                siftDown(0, size);
+            }
+        }
+
+        // Empty the heap from the back, leaving the nearest point first
+        int[] sorted() {
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+            return ids;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0 && distances[(i - 1) / 2] < distances[i]) {
+                swap(i, (i - 1) / 2);
+                i = (i - 1) / 2;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (2 * i + 1 < end) {
+                int child = 2 * i + 1;
+                if (child + 1 < end && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[i] >= distances[child]) {
+                    return;
+                }
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            double d = distances[i];
+            distances[i] = distances[j];
+            distances[j] = d;
+        }
+    }
+}
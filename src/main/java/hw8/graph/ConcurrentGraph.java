@@ -0,0 +1,432 @@
+package hw8.graph;
+
+import exceptions.InsertionException;
+import exceptions.PositionException;
+import exceptions.RemovalException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * An implementation of Graph ADT using incidence lists that any number of
+ * threads may read and change at once, e.g. to close and reopen roads while
+ * routes are being searched.
+ * <p>
+ * Readers never block: each vertex keeps its edges in an array that is
+ * replaced, never changed, when an edge is inserted or removed, so
+ * outgoing(), incoming() and the edge visitors see the edges as they were
+ * when they started. vertices() and edges() are weakly consistent and
+ * never throw ConcurrentModificationException. Writers lock only the
+ * vertices they touch, picked from a fixed set of locks by vertex.</p>
+ * <p>
+ * Labels are kept per position in an immutable record stamped with the
+ * epoch it was set in, so clearLabels() just moves to the next epoch.</p>
+ * <p>
+ * Only searchers that read the roads on every query see changes made
+ * while they run: DijkstraStreetSearcher, AStarStreetSearcher and
+ * BidirectionalStreetSearcher. ContractionHierarchyStreetSearcher,
+ * AltStreetSearcher and RadixHeapStreetSearcher build tables from the
+ * roads once, when the network is loaded, and Config will not pair them
+ * with this graph.</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public class ConcurrentGraph<V, E> implements Graph<V, E> {
+    private static final int NUM_STRIPES = 64;
+    private static final VertexLabels NO_VERTEX_LABELS = new VertexLabels(0, null, 0, 0);
+    private static final EdgeLabels NO_EDGE_LABELS = new EdgeLabels(0, null, Double.NaN);
+
+    // Positions by the order they were inserted in, so iteration matches SparseGraph
+    private final ConcurrentSkipListMap<Long, VertexNode> vertices;
+    private final ConcurrentSkipListMap<Long, EdgeNode> edges;
+    private final ConcurrentMap<V, VertexNode> byData;
+    private final AtomicLong nextSeq;
+
+    private final Object[] stripes;
+    private final AtomicLong epoch;
+    private final EdgeNode[] noEdges = newEdgeArray();
+
+    /**
+     * Create an empty Concurrent Graph instance.
+     */
+    public ConcurrentGraph() {
+        vertices = new ConcurrentSkipListMap<>();
+        edges = new ConcurrentSkipListMap<>();
+        byData = new ConcurrentHashMap<>();
+        nextSeq = new AtomicLong();
+        stripes = new Object[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        epoch = new AtomicLong(1);
+    }
+
+    // Convert the vertex back to a VertexNode for internal use
+    private VertexNode convert(Vertex<V> v) throws PositionException {
+        if (!(v instanceof ConcurrentGraph.VertexNode) || ((VertexNode) v).owner() != this) {
+            throw new PositionException();
+        }
+        return (VertexNode) v;
+    }
+
+    // Convert the edge back to an EdgeNode for internal use
+    private EdgeNode convert(Edge<E> e) throws PositionException {
+        if (!(e instanceof ConcurrentGraph.EdgeNode) || ((EdgeNode) e).owner() != this) {
+            throw new PositionException();
+        }
+        return (EdgeNode) e;
+    }
+
+    private Object stripe(VertexNode node) {
+        return stripes[(int) (node.seq % NUM_STRIPES)];
+    }
+
+    // Locks on both ends of an edge are taken lower stripe first, so two
+    // writers can never each hold the lock the other waits for
+    private Object firstStripe(VertexNode a, VertexNode b) {
+        return stripes[(int) Math.min(a.seq % NUM_STRIPES, b.seq % NUM_STRIPES)];
+    }
+
+    private Object secondStripe(VertexNode a, VertexNode b) {
+        return stripes[(int) Math.max(a.seq % NUM_STRIPES, b.seq % NUM_STRIPES)];
+    }
+
+    @Override
+    public Vertex<V> insert(V v) throws InsertionException {
+        if (v == null) {
+            throw new InsertionException();
+        }
+
+        VertexNode vertexNode = new VertexNode(v, nextSeq.getAndIncrement());
+        if (byData.putIfAbsent(v, vertexNode) != null) {
+            throw new InsertionException();
+        }
+        vertices.put(vertexNode.seq, vertexNode);
+        return vertexNode;
+    }
+
+    @Override
+    public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e)
+            throws PositionException, InsertionException {
+        VertexNode fromNode = convert(from);
+        VertexNode toNode = convert(to);
+        if (fromNode == toNode) {
+            throw new InsertionException();
+        }
+
+        EdgeNode edgeNode;
+        synchronized (firstStripe(fromNode, toNode)) {
+            synchronized (secondStripe(fromNode, toNode)) {
+                // Either end may have been removed since it was checked
+                if (fromNode.owner() != this || toNode.owner() != this) {
+                    throw new PositionException();
+                }
+                for (EdgeNode existing : fromNode.outgoing) {
+                    if (existing.to == toNode) {
+                        throw new InsertionException();
+                    }
+                }
+
+                edgeNode = new EdgeNode(fromNode, toNode, e, nextSeq.getAndIncrement());
+                fromNode.outgoing = append(fromNode.outgoing, edgeNode);
+                toNode.incoming = append(toNode.incoming, edgeNode);
+                edges.put(edgeNode.seq, edgeNode);
+            }
+        }
+        return edgeNode;
+    }
+
+    @Override
+    public V remove(Vertex<V> v) throws PositionException, RemovalException {
+        VertexNode vertexNode = convert(v);
+        synchronized (stripe(vertexNode)) {
+            if (vertexNode.owner() != this) {
+                throw new PositionException();
+            }
+            if (vertexNode.outgoing.length > 0 || vertexNode.incoming.length > 0) {
+                throw new RemovalException();
+            }
+            vertexNode.removed = true;
+        }
+
+        vertices.remove(vertexNode.seq);
+        byData.remove(vertexNode.data, vertexNode);
+        return vertexNode.data;
+    }
+
+    @Override
+    public E remove(Edge<E> e) throws PositionException {
+        EdgeNode edgeNode = convert(e);
+        synchronized (firstStripe(edgeNode.from, edgeNode.to)) {
+            synchronized (secondStripe(edgeNode.from, edgeNode.to)) {
+                if (edgeNode.owner() != this) {
+                    throw new PositionException();
+                }
+                edgeNode.removed = true;
+                edgeNode.from.outgoing = without(edgeNode.from.outgoing, edgeNode);
+                edgeNode.to.incoming = without(edgeNode.to.incoming, edgeNode);
+            }
+        }
+
+        edges.remove(edgeNode.seq);
+        return edgeNode.data;
+    }
+
+    // Copy of an edge array with one more edge at the end
+    private EdgeNode[] append(EdgeNode[] array, EdgeNode edgeNode) {
+        EdgeNode[] copy = Arrays.copyOf(array, array.length + 1);
+        copy[array.length] = edgeNode;
+        return copy;
+    }
+
+    // Copy of an edge array without the given edge, which it holds
+    private EdgeNode[] without(EdgeNode[] array, EdgeNode edgeNode) {
+        EdgeNode[] copy = Arrays.copyOf(array, array.length - 1);
+        for (int i = 0, j = 0; i < array.length; i++) {
+            if (array[i] != edgeNode) {
+                copy[j++] = array[i];
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public Iterable<Vertex<V>> vertices() {
+        return Collections.<Vertex<V>>unmodifiableCollection(vertices.values());
+    }
+
+    @Override
+    public Iterable<Edge<E>> edges() {
+        return Collections.<Edge<E>>unmodifiableCollection(edges.values());
+    }
+
+    @Override
+    public Iterable<Edge<E>> outgoing(Vertex<V> v) throws PositionException {
+        List<Edge<E>> outgoing = Arrays.<Edge<E>>asList(convert(v).outgoing);
+        return Collections.unmodifiableList(outgoing);
+    }
+
+    @Override
+    public Iterable<Edge<E>> incoming(Vertex<V> v) throws PositionException {
+        List<Edge<E>> incoming = Arrays.<Edge<E>>asList(convert(v).incoming);
+        return Collections.unmodifiableList(incoming);
+    }
+
+    @Override
+    public void forEachOutgoing(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        long current = epoch.get();
+        for (EdgeNode edgeNode : convert(v).outgoing) {
+            visitor.visit(edgeNode, edgeNode.to, edgeNode.labels.weight(current));
+        }
+    }
+
+    @Override
+    public void forEachIncoming(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        long current = epoch.get();
+        for (EdgeNode edgeNode : convert(v).incoming) {
+            visitor.visit(edgeNode, edgeNode.from, edgeNode.labels.weight(current));
+        }
+    }
+
+    @Override
+    public Vertex<V> from(Edge<E> e) throws PositionException {
+        return convert(e).from;
+    }
+
+    @Override
+    public Vertex<V> to(Edge<E> e) throws PositionException {
+        return convert(e).to;
+    }
+
+    // Labels of a vertex that are current, or blank ones stamped with this epoch
+    private VertexLabels current(VertexNode node) {
+        long current = epoch.get();
+        VertexLabels labels = node.labels;
+        return labels.epoch == current ? labels : new VertexLabels(current, null, 0, 0);
+    }
+
+    @Override
+    public void label(Vertex<V> v, Object l) throws PositionException {
+        VertexNode vertexNode = convert(v);
+        synchronized (stripe(vertexNode)) {
+            VertexLabels labels = current(vertexNode);
+            vertexNode.labels = new VertexLabels(labels.epoch, l, labels.intLabel, labels.longLabel);
+        }
+    }
+
+    @Override
+    public void label(Edge<E> e, Object l) throws PositionException {
+        EdgeNode edgeNode = convert(e);
+        double w = l instanceof Number ? ((Number) l).doubleValue() : Double.NaN;
+        edgeNode.labels = new EdgeLabels(epoch.get(), l, w);
+    }
+
+    @Override
+    public Object label(Vertex<V> v) throws PositionException {
+        VertexLabels labels = convert(v).labels;
+        return labels.epoch == epoch.get() ? labels.label : null;
+    }
+
+    @Override
+    public Object label(Edge<E> e) throws PositionException {
+        EdgeLabels labels = convert(e).labels;
+        if (labels.epoch != epoch.get()) {
+            return null;
+        }
+        if (labels.label != null || Double.isNaN(labels.weight)) {
+            return labels.label;
+        }
+        return labels.weight;  // set through weight()
+    }
+
+    @Override
+    public void weight(Edge<E> e, double w) throws PositionException {
+        convert(e).labels = new EdgeLabels(epoch.get(), null, w);
+    }
+
+    @Override
+    public double weight(Edge<E> e) throws PositionException {
+        return convert(e).labels.weight(epoch.get());
+    }
+
+    @Override
+    public void intLabel(Vertex<V> v, int l) throws PositionException {
+        VertexNode vertexNode = convert(v);
+        synchronized (stripe(vertexNode)) {
+            VertexLabels labels = current(vertexNode);
+            vertexNode.labels = new VertexLabels(labels.epoch, labels.label, l, labels.longLabel);
+        }
+    }
+
+    @Override
+    public int intLabel(Vertex<V> v) throws PositionException {
+        VertexLabels labels = convert(v).labels;
+        return labels.epoch == epoch.get() ? labels.intLabel : 0;
+    }
+
+    @Override
+    public void longLabel(Vertex<V> v, long l) throws PositionException {
+        VertexNode vertexNode = convert(v);
+        synchronized (stripe(vertexNode)) {
+            VertexLabels labels = current(vertexNode);
+            vertexNode.labels = new VertexLabels(labels.epoch, labels.label, labels.intLabel, l);
+        }
+    }
+
+    @Override
+    public long longLabel(Vertex<V> v) throws PositionException {
+        VertexLabels labels = convert(v).labels;
+        return labels.epoch == epoch.get() ? labels.longLabel : 0;
+    }
+
+    @Override
+    public void clearLabels() {
+        epoch.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        GraphPrinter<V, E> gp = new GraphPrinter<>(this);
+        return gp.toString();
+    }
+
+    // Labels of a vertex as of one epoch, replaced whole when one changes
+    private static final class VertexLabels {
+        final long epoch;
+        final Object label;
+        final int intLabel;
+        final long longLabel;
+
+        VertexLabels(long epoch, Object label, int intLabel, long longLabel) {
+            this.epoch = epoch;
+            this.label = label;
+            this.intLabel = intLabel;
+            this.longLabel = longLabel;
+        }
+    }
+
+    // Labels of an edge as of one epoch, replaced whole when one changes
+    private static final class EdgeLabels {
+        final long epoch;
+        final Object label;
+        final double weight;
+
+        EdgeLabels(long epoch, Object label, double weight) {
+            this.epoch = epoch;
+            this.label = label;
+            this.weight = weight;
+        }
+
+        double weight(long current) {
+            return epoch == current ? weight : Double.NaN;
+        }
+    }
+
+    // Class for a vertex, equal only to itself
+    private final class VertexNode implements Vertex<V> {
+        final V data;
+        final long seq;
+        volatile boolean removed;
+        volatile VertexLabels labels;
+
+        // Replaced, never changed, under the vertex's lock
+        volatile EdgeNode[] outgoing;
+        volatile EdgeNode[] incoming;
+
+        VertexNode(V data, long seq) {
+            this.data = data;
+            this.seq = seq;
+            labels = NO_VERTEX_LABELS;
+            outgoing = noEdges;
+            incoming = noEdges;
+        }
+
+        ConcurrentGraph<V, E> owner() {
+            return removed ? null : ConcurrentGraph.this;
+        }
+
+        @Override
+        public V get() {
+            return data;
+        }
+    }
+
+    // Class for an edge, equal only to itself
+    private final class EdgeNode implements Edge<E> {
+        final VertexNode from;
+        final VertexNode to;
+        final E data;
+        final long seq;
+        volatile boolean removed;
+        volatile EdgeLabels labels;
+
+        EdgeNode(VertexNode from, VertexNode to, E data, long seq) {
+            this.from = from;
+            this.to = to;
+            this.data = data;
+            this.seq = seq;
+            labels = NO_EDGE_LABELS;
+        }
+
+        ConcurrentGraph<V, E> owner() {
+            return removed ? null : ConcurrentGraph.this;
+        }
+
+        @Override
+        public E get() {
+            return data;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private EdgeNode[] newEdgeArray() {
+        return (EdgeNode[]) new ConcurrentGraph.EdgeNode[0];
+    }
+}
@@ -0,0 +1,736 @@
+package hw8.graph;
+
+import exceptions.InsertionException;
+import exceptions.PositionException;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * A read-only implementation of Graph ADT in compressed sparse row form.
+ * <p>
+ * Vertices and edges are numbered from 0. The outgoing edges of vertex v
+ * are the edge ids outStart(v) to outEnd(v) - 1, and each edge's endpoints
+ * and weight live in parallel primitive arrays, so walking a vertex's
+ * neighbors reads a few adjacent array slots instead of following list
+ * nodes. Incoming edges are kept the same way as a permutation of edge ids.
+ * Searchers can use these int-indexed methods directly; the Position-based
+ * methods of the Graph ADT work as usual on top of them. The position
+ * objects they hand out are made on first use, so a graph that is only
+ * searched by id holds no object per vertex or edge.</p>
+ * <p>
+ * Edge labels are stored as the primitive weights: a Number label sets the
+ * weight and reads back as a Double. Any other label is kept aside, with
+ * the weight set to NaN. Vertex labels are ordinary objects, and int and
+ * long vertex labels are kept in arrays made on first use. Insertions and
+ * removals throw UnsupportedOperationException; use a Builder, or copy an
+ * existing graph with copyOf().</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public final class CsrGraph<V, E> implements Graph<V, E>, EdgeWeights {
+    private final Object[] vertexData;
+    private final Node[] nodes;       // vertex -> position, made on first use
+    private final Object[] vertexLabels;
+    private int[] intLabels;          // vertex -> int label, allocated on first use
+    private long[] longLabels;        // vertex -> long label, allocated on first use
+
+    private final int[] outOffsets;   // vertex -> first outgoing edge id
+    private final int[] sources;      // edge -> from vertex
+    private final int[] targets;      // edge -> to vertex
+    private final double[] weights;   // edge -> weight, NaN if unlabeled
+    private final Object[] edgeData;
+    private Object[] edgeLabels;      // edge -> non-numeric label, allocated on first use
+    private Arc[] arcs;               // edge -> position, allocated and made on first use
+
+    private final int[] inOffsets;    // vertex -> first slot in inEdges
+    private final int[] inEdges;      // edge ids grouped by to vertex
+
+    // Takes ownership of arrays already grouped by source vertex:
+    // the outgoing edges of v are outOffsets[v] to outOffsets[v + 1] - 1
+    CsrGraph(Object[] vertexData, int[] outOffsets, int[] targets, double[] weights, Object[] edgeData) {
+        int n = vertexData.length;
+        int m = targets.length;
+        this.vertexData = vertexData;
+        this.outOffsets = outOffsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgeData = edgeData;
+        vertexLabels = new Object[n];
+        nodes = newNodeArray(n);
+        sources = new int[m];
+        for (int v = 0; v < n; v++) {
+            Arrays.fill(sources, outOffsets[v], outOffsets[v + 1], v);
+        }
+
+        inOffsets = offsets(targets, m, n);
+        inEdges = new int[m];
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (int e = 0; e < m; e++) {
+            inEdges[next[targets[e]]++] = e;
+        }
+    }
+
+    // Prefix sums of how many of the first m keys fall on each vertex
+    private static int[] offsets(int[] keys, int m, int n) {
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            offsets[keys[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        return offsets;
+    }
+
+    /**
+     * Copy a graph, e.g. a SparseGraph that has finished loading.
+     * Vertex ids follow the order of g.vertices(); edge labels that are
+     * numbers become the edge weights.
+     *
+     * @param g   graph to copy.
+     * @param <V> Vertex element type.
+     * @param <E> Edge element type.
+     * @return a read-only copy of g with the same elements and labels.
+     */
+    public static <V, E> CsrGraph<V, E> copyOf(Graph<V, E> g) {
+        Builder<V, E> builder = new Builder<>();
+        Map<Vertex<V>, Integer> ids = new HashMap<>();
+        for (Vertex<V> v : g.vertices()) {
+            ids.put(v, builder.addVertex(v.get()));
+        }
+        for (Edge<E> e : g.edges()) {
+            Object label = g.label(e);
+            double weight = label instanceof Number ? ((Number) label).doubleValue() : Double.NaN;
+            builder.addEdge(ids.get(g.from(e)), ids.get(g.to(e)), e.get(), weight);
+        }
+        CsrGraph<V, E> copy = builder.build();
+        for (Edge<E> e : g.edges()) {
+            Object label = g.label(e);
+            if (label != null && !(label instanceof Number)) {
+                copy.label(copy.edge(copy.edgeId(ids.get(g.from(e)), ids.get(g.to(e)))), label);
+            }
+        }
+        for (Vertex<V> v : g.vertices()) {
+            copy.vertexLabels[ids.get(v)] = g.label(v);
+        }
+        return copy;
+    }
+
+    // Fast-path API: everything by int id, no Position objects
+
+    /**
+     * Number of vertices.
+     *
+     * @return vertex count; vertex ids are 0 to numVertices() - 1.
+     */
+    public int numVertices() {
+        return nodes.length;
+    }
+
+    /**
+     * Number of edges.
+     *
+     * @return edge count; edge ids are 0 to numEdges() - 1.
+     */
+    public int numEdges() {
+        return targets.length;
+    }
+
+    /**
+     * First outgoing edge id of a vertex.
+     *
+     * @param v vertex id.
+     * @return id of v's first outgoing edge.
+     */
+    public int outStart(int v) {
+        return outOffsets[v];
+    }
+
+    /**
+     * End of the outgoing edge ids of a vertex.
+     *
+     * @param v vertex id.
+     * @return one past the id of v's last outgoing edge.
+     */
+    public int outEnd(int v) {
+        return outOffsets[v + 1];
+    }
+
+    /**
+     * First slot of a vertex's incoming edges, see inEdge().
+     *
+     * @param v vertex id.
+     * @return first slot.
+     */
+    public int inStart(int v) {
+        return inOffsets[v];
+    }
+
+    /**
+     * End of the slots of a vertex's incoming edges.
+     *
+     * @param v vertex id.
+     * @return one past the last slot.
+     */
+    public int inEnd(int v) {
+        return inOffsets[v + 1];
+    }
+
+    /**
+     * Incoming edge in a slot between inStart(v) and inEnd(v).
+     *
+     * @param slot slot index.
+     * @return the edge id in that slot.
+     */
+    public int inEdge(int slot) {
+        return inEdges[slot];
+    }
+
+    /**
+     * Start vertex of an edge.
+     *
+     * @param e edge id.
+     * @return vertex id the edge starts from.
+     */
+    public int source(int e) {
+        return sources[e];
+    }
+
+    /**
+     * End vertex of an edge.
+     *
+     * @param e edge id.
+     * @return vertex id the edge leads to.
+     */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /**
+     * Weight of an edge.
+     *
+     * @param e edge id.
+     * @return its numeric label, or NaN if it has none.
+     */
+    @Override
+    public double weight(int e) {
+        return weights[e];
+    }
+
+    /**
+     * Id of the edge between two vertices.
+     *
+     * @param from start vertex id.
+     * @param to   end vertex id.
+     * @return the edge id, or -1 if there is no such edge.
+     */
+    public int edgeId(int from, int to) {
+        for (int e = outOffsets[from]; e < outOffsets[from + 1]; e++) {
+            if (targets[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Vertex position for an id.
+     *
+     * @param v vertex id.
+     * @return the (unique) position object of that vertex.
+     */
+    public Vertex<V> vertex(int v) {
+        return node(v);
+    }
+
+    /**
+     * Edge position for an id.
+     *
+     * @param e edge id.
+     * @return a position object for that edge.
+     */
+    public Edge<E> edge(int e) {
+        return arc(e);
+    }
+
+    // Vertex positions are compared by identity, so each is made once, under a lock;
+    // its final id makes it safe to read without one afterwards
+    private Node node(int v) {
+        Node node = nodes[v];
+        if (node == null) {
+            synchronized (nodes) {
+                node = nodes[v];
+                if (node == null) {
+                    node = new Node(v);
+                    nodes[v] = node;
+                }
+            }
+        }
+        return node;
+    }
+
+    // Edge positions are made on first use and reused, so visiting edges again
+    // allocates nothing; threads that race may each make one, and they are equal
+    private Arc arc(int e) {
+        Arc[] cached = arcs;
+        if (cached == null) {
+            cached = newArcArray(targets.length);
+            arcs = cached;
+        }
+        Arc arc = cached[e];
+        if (arc == null) {
+            arc = new Arc(e);
+            cached[e] = arc;
+        }
+        return arc;
+    }
+
+    /**
+     * Id of a vertex position.
+     *
+     * @param v vertex position.
+     * @return its id.
+     * @throws PositionException If vertex position is invalid.
+     */
+    public int id(Vertex<V> v) throws PositionException {
+        return convert(v).id;
+    }
+
+    /**
+     * Id of an edge position.
+     *
+     * @param e edge position.
+     * @return its id.
+     * @throws PositionException If edge position is invalid.
+     */
+    public int id(Edge<E> e) throws PositionException {
+        return convert(e).id;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Node[] newNodeArray(int n) {
+        return (Node[]) new CsrGraph.Node[n];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Arc[] newArcArray(int m) {
+        return (Arc[]) new CsrGraph.Arc[m];
+    }
+
+    // Convert the vertex back to a Node for internal use
+    private Node convert(Vertex<V> v) throws PositionException {
+        if (!(v instanceof CsrGraph.Node) || ((Node) v).owner() != this) {
+            throw new PositionException();
+        }
+        return (Node) v;
+    }
+
+    // Convert the edge back to an Arc for internal use
+    private Arc convert(Edge<E> e) throws PositionException {
+        if (!(e instanceof CsrGraph.Arc) || ((Arc) e).owner() != this) {
+            throw new PositionException();
+        }
+        return (Arc) e;
+    }
+
+    // Graph ADT
+
+    @Override
+    public Vertex<V> insert(V v) {
+        throw new UnsupportedOperationException("CsrGraph is read-only");
+    }
+
+    @Override
+    public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e) {
+        throw new UnsupportedOperationException("CsrGraph is read-only");
+    }
+
+    @Override
+    public V remove(Vertex<V> v) {
+        throw new UnsupportedOperationException("CsrGraph is read-only");
+    }
+
+    @Override
+    public E remove(Edge<E> e) {
+        throw new UnsupportedOperationException("CsrGraph is read-only");
+    }
+
+    @Override
+    public Iterable<Vertex<V>> vertices() {
+        return new IdRange<Vertex<V>>(0, nodes.length) {
+            @Override
+            public Vertex<V> get(int index) {
+                return node(from + index);
+            }
+        };
+    }
+
+    @Override
+    public Iterable<Edge<E>> edges() {
+        return new IdRange<Edge<E>>(0, targets.length) {
+            @Override
+            public Edge<E> get(int index) {
+                return arc(from + index);
+            }
+        };
+    }
+
+    @Override
+    public Iterable<Edge<E>> outgoing(Vertex<V> v) throws PositionException {
+        int id = convert(v).id;
+        return new IdRange<Edge<E>>(outOffsets[id], outOffsets[id + 1]) {
+            @Override
+            public Edge<E> get(int index) {
+                return arc(from + index);
+            }
+        };
+    }
+
+    @Override
+    public Iterable<Edge<E>> incoming(Vertex<V> v) throws PositionException {
+        int id = convert(v).id;
+        return new IdRange<Edge<E>>(inOffsets[id], inOffsets[id + 1]) {
+            @Override
+            public Edge<E> get(int index) {
+                return arc(inEdges[from + index]);
+            }
+        };
+    }
+
+    @Override
+    public void forEachOutgoing(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        int id = convert(v).id;
+        for (int e = outOffsets[id]; e < outOffsets[id + 1]; e++) {
+            visitor.visit(arc(e), node(targets[e]), weights[e]);
+        }
+    }
+
+    @Override
+    public void forEachIncoming(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        int id = convert(v).id;
+        for (int slot = inOffsets[id]; slot < inOffsets[id + 1]; slot++) {
+            int e = inEdges[slot];
+            visitor.visit(arc(e), node(sources[e]), weights[e]);
+        }
+    }
+
+    @Override
+    public Vertex<V> from(Edge<E> e) throws PositionException {
+        return node(sources[convert(e).id]);
+    }
+
+    @Override
+    public Vertex<V> to(Edge<E> e) throws PositionException {
+        return node(targets[convert(e).id]);
+    }
+
+    @Override
+    public void label(Vertex<V> v, Object l) throws PositionException {
+        vertexLabels[convert(v).id] = l;
+    }
+
+    @Override
+    public void label(Edge<E> e, Object l) throws PositionException {
+        int id = convert(e).id;
+        if (l == null || l instanceof Number) {
+            weights[id] = l == null ? Double.NaN : ((Number) l).doubleValue();
+            if (edgeLabels != null) {
+                edgeLabels[id] = null;
+            }
+            return;
+        }
+        if (edgeLabels == null) {
+            edgeLabels = new Object[targets.length];
+        }
+        edgeLabels[id] = l;
+        weights[id] = Double.NaN;
+    }
+
+    @Override
+    public Object label(Vertex<V> v) throws PositionException {
+        return vertexLabels[convert(v).id];
+    }
+
+    @Override
+    public Object label(Edge<E> e) throws PositionException {
+        int id = convert(e).id;
+        if (edgeLabels != null && edgeLabels[id] != null) {
+            return edgeLabels[id];
+        }
+        return Double.isNaN(weights[id]) ? null : weights[id];
+    }
+
+    @Override
+    public void weight(Edge<E> e, double w) throws PositionException {
+        int id = convert(e).id;
+        weights[id] = w;
+        if (edgeLabels != null) {
+            edgeLabels[id] = null;
+        }
+    }
+
+    @Override
+    public double weight(Edge<E> e) throws PositionException {
+        return weights[convert(e).id];
+    }
+
+    @Override
+    public void intLabel(Vertex<V> v, int l) throws PositionException {
+        int id = convert(v).id;
+        if (intLabels == null) {
+            intLabels = new int[nodes.length];
+        }
+        intLabels[id] = l;
+    }
+
+    @Override
+    public int intLabel(Vertex<V> v) throws PositionException {
+        int id = convert(v).id;
+        return intLabels == null ? 0 : intLabels[id];
+    }
+
+    @Override
+    public void longLabel(Vertex<V> v, long l) throws PositionException {
+        int id = convert(v).id;
+        if (longLabels == null) {
+            longLabels = new long[nodes.length];
+        }
+        longLabels[id] = l;
+    }
+
+    @Override
+    public long longLabel(Vertex<V> v) throws PositionException {
+        int id = convert(v).id;
+        return longLabels == null ? 0 : longLabels[id];
+    }
+
+    @Override
+    public void clearLabels() {
+        Arrays.fill(vertexLabels, null);
+        Arrays.fill(weights, Double.NaN);
+        edgeLabels = null;
+        intLabels = null;
+        longLabels = null;
+    }
+
+    @Override
+    public String toString() {
+        GraphPrinter<V, E> gp = new GraphPrinter<>(this);
+        return gp.toString();
+    }
+
+    // Read-only list over a range of ids
+    private abstract static class IdRange<T> extends AbstractList<T> {
+        final int from;
+        final int to;
+
+        IdRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    // Class for a vertex, one per id
+    private final class Node implements Vertex<V> {
+        final int id;
+
+        Node(int id) {
+            this.id = id;
+        }
+
+        CsrGraph<V, E> owner() {
+            return CsrGraph.this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get() {
+            return (V) vertexData[id];
+        }
+    }
+
+    // Class for an edge, made on first use and equal to any other for the same id
+    private final class Arc implements Edge<E> {
+        final int id;
+
+        Arc(int id) {
+            this.id = id;
+        }
+
+        CsrGraph<V, E> owner() {
+            return CsrGraph.this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get() {
+            return (E) edgeData[id];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CsrGraph.Arc)) {
+                return false;
+            }
+            Arc other = (Arc) o;
+            return this.id == other.id && this.owner() == other.owner();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(CsrGraph.this) + id;
+        }
+    }
+
+    /**
+     * Collects vertices and edges for a CsrGraph.
+     *
+     * @param <V> Vertex element type.
+     * @param <E> Edge element type.
+     */
+    public static final class Builder<V, E> {
+        private Object[] vertexData = new Object[16];
+        private int numVertices;
+        private int[] idSlots = new int[32];  // id + 1 by element hash with linear probing, 0 if empty
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private double[] weight = new double[16];
+        private Object[] edgeData = new Object[16];
+        private int numEdges;
+        private final LongIntMap connected = new LongIntMap(16);  // from << 32 | to -> edge
+
+        /**
+         * Add a vertex.
+         *
+         * @param v Element to insert.
+         * @return id of the new vertex.
+         * @throws InsertionException If v is null or already added.
+         */
+        public int addVertex(V v) throws InsertionException {
+            if (v == null || idSlots[slot(v)] != 0) {
+                throw new InsertionException();
+            }
+            return vertex(v);
+        }
+
+        /**
+         * Id of the vertex holding an element, adding it if it is new.
+         *
+         * @param v Element to look up.
+         * @return its vertex id.
+         * @throws InsertionException If v is null.
+         */
+        public int vertex(V v) throws InsertionException {
+            if (v == null) {
+                throw new InsertionException();
+            }
+            int slot = slot(v);
+            if (idSlots[slot] != 0) {
+                return idSlots[slot] - 1;
+            }
+            if (numVertices == vertexData.length) {
+                vertexData = Arrays.copyOf(vertexData, 2 * numVertices);
+            }
+            vertexData[numVertices] = v;
+            idSlots[slot] = ++numVertices;
+            if (2 * numVertices > idSlots.length) {
+                growIds();
+            }
+            return numVertices - 1;
+        }
+
+        // Slot holding an element's id, or the empty slot where it would go
+        private int slot(V v) {
+            int mask = idSlots.length - 1;
+            int slot = spread(v.hashCode()) & mask;
+            while (idSlots[slot] != 0 && !vertexData[idSlots[slot] - 1].equals(v)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void growIds() {
+            idSlots = new int[2 * idSlots.length];
+            int mask = idSlots.length - 1;
+            for (int id = 0; id < numVertices; id++) {
+                int slot = spread(vertexData[id].hashCode()) & mask;
+                while (idSlots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                idSlots[slot] = id + 1;
+            }
+        }
+
+        // Mix the high bits of a hash code into the low ones used as the slot
+        private static int spread(int h) {
+            h *= 0x9e3779b9;
+            return h ^ (h >>> 16);
+        }
+
+        /**
+         * Add an edge.
+         *
+         * @param f Vertex id where the edge starts.
+         * @param t Vertex id where the edge ends.
+         * @param e Element to insert.
+         * @param w Weight of the edge.
+         * @throws PositionException  If either vertex id is out of range.
+         * @throws InsertionException If the edge would be a self-loop or duplicate.
+         */
+        public void addEdge(int f, int t, E e, double w) throws PositionException, InsertionException {
+            if (f < 0 || f >= numVertices || t < 0 || t >= numVertices) {
+                throw new PositionException();
+            }
+            long key = ((long) f << 32) | t;
+            if (f == t || connected.get(key) != LongIntMap.MISSING) {
+                throw new InsertionException();
+            }
+            connected.put(key, numEdges);
+            if (numEdges == from.length) {
+                from = Arrays.copyOf(from, 2 * numEdges);
+                to = Arrays.copyOf(to, 2 * numEdges);
+                weight = Arrays.copyOf(weight, 2 * numEdges);
+                edgeData = Arrays.copyOf(edgeData, 2 * numEdges);
+            }
+            from[numEdges] = f;
+            to[numEdges] = t;
+            weight[numEdges] = w;
+            edgeData[numEdges++] = e;
+        }
+
+        /**
+         * Build the graph. The builder should not be used afterwards.
+         *
+         * @return a read-only graph of everything added.
+         */
+        public CsrGraph<V, E> build() {
+            int n = numVertices;
+            int m = numEdges;
+
+            // Counting sort by source keeps each vertex's edges in insertion order
+            int[] outOffsets = offsets(from, m, n);
+            int[] next = Arrays.copyOf(outOffsets, n);
+            int[] targets = new int[m];
+            double[] weights = new double[m];
+            Object[] sortedData = new Object[m];
+            for (int i = 0; i < m; i++) {
+                int e = next[from[i]]++;
+                targets[e] = to[i];
+                weights[e] = weight[i];
+                sortedData[e] = edgeData[i];
+            }
+            return new CsrGraph<>(Arrays.copyOf(vertexData, n), outOffsets, targets, weights, sortedData);
+        }
+    }
+}
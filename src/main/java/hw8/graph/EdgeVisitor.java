@@ -0,0 +1,25 @@
+package hw8.graph;
+
+/**
+ * Called for each edge by Graph.forEachOutgoing() and forEachIncoming().
+ * <p>
+ * A traversal allocates nothing itself, so keep one visitor and reuse it,
+ * e.g. a method reference made once in a constructor, rather than a new
+ * capturing lambda per call.</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+@FunctionalInterface
+public interface EdgeVisitor<V, E> {
+
+    /**
+     * Visit an edge.
+     *
+     * @param e        Edge position.
+     * @param neighbor The vertex at the other end of the edge from the one
+     *                 whose edges are visited.
+     * @param weight   The edge's weight, as Graph.weight(e) returns it.
+     */
+    void visit(Edge<E> e, Vertex<V> neighbor, double weight);
+}
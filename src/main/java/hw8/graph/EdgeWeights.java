@@ -0,0 +1,19 @@
+package hw8.graph;
+
+/**
+ * Edge weights of a CsrGraph, read by edge id. A CsrGraph gives the
+ * weights it was built with, and a GraphVersion the weights of one
+ * published version of them, so a search written against this interface
+ * runs on either.
+ */
+@FunctionalInterface
+public interface EdgeWeights {
+
+    /**
+     * Weight of an edge.
+     *
+     * @param e edge id in the CsrGraph.
+     * @return its weight, or NaN if it has none.
+     */
+    double weight(int e);
+}
@@ -88,6 +88,28 @@ public interface Graph<V, E> {
      */
     Iterable<Edge<E>> incoming(Vertex<V> v) throws PositionException;
 
+    /**
+     * Visit the outgoing edges of a vertex without allocating, passing
+     * each with the vertex it leads to and its weight. The graph must not
+     * be changed during the visit.
+     *
+     * @param v       Vertex position to explore.
+     * @param visitor Called once per outgoing edge (in no specific order).
+     * @throws PositionException If vertex position is invalid.
+     */
+    void forEachOutgoing(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException;
+
+    /**
+     * Visit the incoming edges of a vertex without allocating, passing
+     * each with the vertex it comes from and its weight. The graph must
+     * not be changed during the visit.
+     *
+     * @param v       Vertex position to explore.
+     * @param visitor Called once per incoming edge (in no specific order).
+     * @throws PositionException If vertex position is invalid.
+     */
+    void forEachIncoming(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException;
+
     /**
      * Start vertex of edge.
      *
@@ -142,9 +164,65 @@ public interface Graph<V, E> {
      */
     Object label(Edge<E> e) throws PositionException;
 
+    /**
+     * Set the weight of an edge, without boxing.
+     * This is the same as labeling the edge with the Double w.
+     *
+     * @param e Edge position to weigh.
+     * @param w Weight.
+     * @throws PositionException If edge position is invalid.
+     */
+    void weight(Edge<E> e, double w) throws PositionException;
+
+    /**
+     * Edge weight, without unboxing.
+     *
+     * @param e Edge position to query.
+     * @return The edge's label as a double (NaN if it has no Number label).
+     * @throws PositionException If edge position is invalid.
+     */
+    double weight(Edge<E> e) throws PositionException;
+
+    /**
+     * Label vertex with an int, kept apart from its Object label.
+     *
+     * @param v Vertex position to label.
+     * @param l Label value.
+     * @throws PositionException If vertex position is invalid.
+     */
+    void intLabel(Vertex<V> v, int l) throws PositionException;
+
+    /**
+     * Vertex int label.
+     *
+     * @param v Vertex position to query.
+     * @return Label value (or 0 if none).
+     * @throws PositionException If vertex position is invalid.
+     */
+    int intLabel(Vertex<V> v) throws PositionException;
+
+    /**
+     * Label vertex with a long, kept apart from its Object and int labels.
+     *
+     * @param v Vertex position to label.
+     * @param l Label value.
+     * @throws PositionException If vertex position is invalid.
+     */
+    void longLabel(Vertex<V> v, long l) throws PositionException;
+
+    /**
+     * Vertex long label.
+     *
+     * @param v Vertex position to query.
+     * @return Label value (or 0 if none).
+     * @throws PositionException If vertex position is invalid.
+     */
+    long longLabel(Vertex<V> v) throws PositionException;
+
     /**
      * Clear all labels.
-     * All labels are null after this.
+     * All labels are null after this, weights NaN and int and long
+     * labels 0.
      */
     void clearLabels();
 }
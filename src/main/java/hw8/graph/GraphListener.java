@@ -0,0 +1,37 @@
+package hw8.graph;
+
+/**
+ * Told about changes made to an ObservableGraph, after each one succeeds.
+ * Every method does nothing by default, so a listener only overrides the
+ * changes it cares about.
+ */
+public interface GraphListener {
+
+    /**
+     * A vertex or edge was inserted or removed.
+     */
+    default void structureChanged() {
+    }
+
+    /**
+     * An edge was labeled.
+     *
+     * @param e Edge position that was labeled.
+     */
+    default void edgeLabelChanged(Edge<?> e) {
+    }
+
+    /**
+     * A vertex was labeled.
+     *
+     * @param v Vertex position that was labeled.
+     */
+    default void vertexLabelChanged(Vertex<?> v) {
+    }
+
+    /**
+     * All labels were cleared.
+     */
+    default void labelsCleared() {
+    }
+}
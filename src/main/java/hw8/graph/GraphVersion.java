@@ -0,0 +1,285 @@
+package hw8.graph;
+
+import exceptions.PositionException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One published version of a VersionedGraph: its roads, which every
+ * version shares, with the edge weights as they were when it was
+ * published. A version never changes, so a query that pins one sees the
+ * same weights from start to end however many versions are published
+ * meanwhile.
+ * <p>
+ * Weights sit in small fixed-size leaves under one array of leaves. A new
+ * version copies that array and the leaves it changes, and shares every
+ * other leaf with the version before it.</p>
+ * <p>
+ * The Graph ADT reads see the shared roads, with weight() and numeric
+ * edge labels from this version. Nothing can be changed through it, so
+ * the StreetSearchers cannot load roads into it; route on a pinned
+ * version with RoutePlanner.route(version, from, to) instead, or pass it
+ * as the EdgeWeights of any other search over getGraph().</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public final class GraphVersion<V, E> implements Graph<V, E>, EdgeWeights, AutoCloseable {
+    static final int LEAF_BITS = 4;
+    static final int LEAF_SIZE = 1 << LEAF_BITS;
+
+    private final VersionedGraph<V, E> owner;
+    private final CsrGraph<V, E> graph;
+    private final double[][] leaves;
+    private final long number;
+    private final int leavesCopied;
+    private final AtomicInteger pins;
+
+    private GraphVersion(VersionedGraph<V, E> owner, CsrGraph<V, E> graph, double[][] leaves,
+                         long number, int leavesCopied) {
+        this.owner = owner;
+        this.graph = graph;
+        this.leaves = leaves;
+        this.number = number;
+        this.leavesCopied = leavesCopied;
+        pins = new AtomicInteger();
+    }
+
+    // The first version, with the graph's own weights
+    static <V, E> GraphVersion<V, E> first(VersionedGraph<V, E> owner, CsrGraph<V, E> graph) {
+        int m = graph.numEdges();
+        double[][] leaves = new double[(m + LEAF_SIZE - 1) >>> LEAF_BITS][];
+        for (int leaf = 0; leaf < leaves.length; leaf++) {
+            leaves[leaf] = new double[LEAF_SIZE];
+            for (int i = 0; i < LEAF_SIZE && (leaf << LEAF_BITS) + i < m; i++) {
+                leaves[leaf][i] = graph.weight((leaf << LEAF_BITS) + i);
+            }
+        }
+        return new GraphVersion<>(owner, graph, leaves, 0, leaves.length);
+    }
+
+    // The next version: these weights set, in order, and every other one shared with this version
+    GraphVersion<V, E> next(int[] edgeIds, double[] weights, int count) {
+        double[][] copy = leaves.clone();
+        int copied = 0;
+        for (int i = 0; i < count; i++) {
+            int leaf = edgeIds[i] >>> LEAF_BITS;
+            if (copy[leaf] == leaves[leaf]) {
+                copy[leaf] = leaves[leaf].clone();
+                copied++;
+            }
+            copy[leaf][edgeIds[i] & (LEAF_SIZE - 1)] = weights[i];
+        }
+        return new GraphVersion<>(owner, graph, copy, number + 1, copied);
+    }
+
+    /**
+     * Version number, counting up from 0 for the weights the graph started
+     * with.
+     *
+     * @return the number.
+     */
+    public long getNumber() {
+        return number;
+    }
+
+    /**
+     * The roads every version shares. Read weights from the version, not
+     * from this graph, which keeps the weights it was loaded with.
+     *
+     * @return the graph.
+     */
+    public CsrGraph<V, E> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Weight of an edge in this version.
+     *
+     * @param e edge id in getGraph().
+     * @return its weight, or NaN if it has none.
+     */
+    @Override
+    public double weight(int e) {
+        return leaves[e >>> LEAF_BITS][e & (LEAF_SIZE - 1)];
+    }
+
+    /**
+     * Number of weight leaves this version copied instead of sharing with
+     * the version before it.
+     *
+     * @return leaf count; all of them for the first version.
+     */
+    public int getLeavesCopied() {
+        return leavesCopied;
+    }
+
+    /**
+     * Number of leaves the weights are split into.
+     *
+     * @return leaf count.
+     */
+    public int getNumLeaves() {
+        return leaves.length;
+    }
+
+    /**
+     * Number of queries that have pinned this version and not yet closed it.
+     *
+     * @return pin count.
+     */
+    public int getPins() {
+        return pins.get();
+    }
+
+    void pin() {
+        pins.incrementAndGet();
+    }
+
+    /**
+     * Unpin the version, once for each time VersionedGraph.pin() returned
+     * it. The version can be reclaimed once no query has it pinned and a
+     * newer one is published.
+     */
+    @Override
+    public void close() {
+        if (pins.decrementAndGet() == 0) {
+            owner.unpinned(this);
+        }
+    }
+
+    // Graph ADT
+
+    @Override
+    public Vertex<V> insert(V v) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public V remove(Vertex<V> v) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public E remove(Edge<E> e) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public Iterable<Vertex<V>> vertices() {
+        return graph.vertices();
+    }
+
+    @Override
+    public Iterable<Edge<E>> edges() {
+        return graph.edges();
+    }
+
+    @Override
+    public Iterable<Edge<E>> outgoing(Vertex<V> v) throws PositionException {
+        return graph.outgoing(v);
+    }
+
+    @Override
+    public Iterable<Edge<E>> incoming(Vertex<V> v) throws PositionException {
+        return graph.incoming(v);
+    }
+
+    @Override
+    public void forEachOutgoing(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        int id = graph.id(v);
+        for (int e = graph.outStart(id); e < graph.outEnd(id); e++) {
+            visitor.visit(graph.edge(e), graph.vertex(graph.target(e)), weight(e));
+        }
+    }
+
+    @Override
+    public void forEachIncoming(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        int id = graph.id(v);
+        for (int slot = graph.inStart(id); slot < graph.inEnd(id); slot++) {
+            int e = graph.inEdge(slot);
+            visitor.visit(graph.edge(e), graph.vertex(graph.source(e)), weight(e));
+        }
+    }
+
+    @Override
+    public Vertex<V> from(Edge<E> e) throws PositionException {
+        return graph.from(e);
+    }
+
+    @Override
+    public Vertex<V> to(Edge<E> e) throws PositionException {
+        return graph.to(e);
+    }
+
+    @Override
+    public void label(Vertex<V> v, Object l) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public void label(Edge<E> e, Object l) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public Object label(Vertex<V> v) throws PositionException {
+        return graph.label(v);
+    }
+
+    @Override
+    public Object label(Edge<E> e) throws PositionException {
+        double w = weight(graph.id(e));
+        if (Double.isNaN(w)) {
+            Object label = graph.label(e);  // non-numeric labels are not versioned
+            return label instanceof Number ? null : label;
+        }
+        return w;
+    }
+
+    @Override
+    public void weight(Edge<E> e, double w) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public double weight(Edge<E> e) throws PositionException {
+        return weight(graph.id(e));
+    }
+
+    @Override
+    public void intLabel(Vertex<V> v, int l) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public int intLabel(Vertex<V> v) throws PositionException {
+        return graph.intLabel(v);
+    }
+
+    @Override
+    public void longLabel(Vertex<V> v, long l) {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public long longLabel(Vertex<V> v) throws PositionException {
+        return graph.longLabel(v);
+    }
+
+    @Override
+    public void clearLabels() {
+        throw new UnsupportedOperationException("GraphVersion is read-only");
+    }
+
+    @Override
+    public String toString() {
+        GraphPrinter<V, E> gp = new GraphPrinter<>(this);
+        return gp.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package hw8.graph;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from long keys to non-negative int values, stored in two
+ * primitive arrays with linear probing, so neither lookups nor insertions
+ * box anything.
+ */
+public final class LongIntMap {
+    /** Returned by get() for a key that is not in the map. */
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;  // value + 1, or 0 for an empty slot
+    private int size;
+
+    /**
+     * Create an empty map.
+     *
+     * @param expected number of keys to make room for up front.
+     */
+    public LongIntMap(int expected) {
+        int capacity = 16;
+        while (capacity < 2 * expected) {
+            capacity *= 2;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Number of keys in the map.
+     *
+     * @return key count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Value stored for a key.
+     *
+     * @param key key to look up.
+     * @return its value, or MISSING.
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot] - 1;
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Store a value for a key, replacing any value it had.
+     *
+     * @param key   key to store.
+     * @param value value for it, at least 0.
+     * @throws IllegalArgumentException if value is negative.
+     */
+    public void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == 0) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value + 1;
+        if (2 * size > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Remove every key.
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[2 * oldKeys.length];
+        values = new int[2 * oldKeys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // Spread all 64 bits over the low ones used as the slot
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
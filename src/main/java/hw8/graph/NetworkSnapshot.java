@@ -0,0 +1,180 @@
+package hw8.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a road network, so it can be loaded again without
+ * parsing the text file it came from.
+ * <p>
+ * A snapshot holds a graph whose vertices are named by their coordinates
+ * and whose edges carry a road name and a numeric length label: the vertex
+ * names, the adjacency in compressed sparse row form, the lengths, and
+ * each road name once, referred to by index. Loading maps the file and
+ * copies each section into a CsrGraph with bulk reads, so it costs little
+ * more than reading the bytes from disk. Vertex labels and non-numeric
+ * edge labels are not saved.</p>
+ */
+public final class NetworkSnapshot {
+    private static final int MAGIC = 0x4e455431;  // "NET1"
+    private static final int NO_ROAD = -1;
+
+    private NetworkSnapshot() {
+    }
+
+    /**
+     * Save a network. Vertex and edge order are kept, as is the order of
+     * each vertex's outgoing edges.
+     *
+     * @param g    network to save, e.g. the graph a StreetSearcher loaded.
+     * @param file file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Graph<String, String> g, File file) throws IOException {
+        CsrGraph<String, String> csr = g instanceof CsrGraph ? (CsrGraph<String, String>) g : CsrGraph.copyOf(g);
+        int n = csr.numVertices();
+        int m = csr.numEdges();
+
+        String[] names = new String[n];
+        for (int v = 0; v < n; v++) {
+            names[v] = csr.vertex(v).get();
+        }
+        Map<String, Integer> roadIds = new HashMap<>();
+        String[] roads = new String[m];
+        int[] roadOf = new int[m];
+        for (int e = 0; e < m; e++) {
+            String road = csr.edge(e).get();
+            if (road == null) {
+                roadOf[e] = NO_ROAD;
+                continue;
+            }
+            Integer id = roadIds.get(road);
+            if (id == null) {
+                id = roadIds.size();
+                roadIds.put(road, id);
+                roads[id] = road;
+            }
+            roadOf[e] = id;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeInt(m);
+            out.writeInt(roadIds.size());
+            for (int v = 0; v <= n; v++) {
+                out.writeInt(v < n ? csr.outStart(v) : m);
+            }
+            for (int e = 0; e < m; e++) {
+                out.writeInt(csr.target(e));
+            }
+            for (int e = 0; e < m; e++) {
+                out.writeDouble(csr.weight(e));
+            }
+            for (int e = 0; e < m; e++) {
+                out.writeInt(roadOf[e]);
+            }
+            writeStrings(out, names, n);
+            writeStrings(out, roads, roadIds.size());
+        }
+    }
+
+    /**
+     * Load a network saved by write().
+     *
+     * @param file file to read.
+     * @return the network as a read-only graph.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static CsrGraph<String, String> read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a network snapshot: " + file);
+            }
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+            int numRoads = buffer.getInt();
+            // The counts must fit in the file before anything that size is made
+            if (n < 0 || m < 0 || numRoads < 0 || 4L * (n + 1L) + 16L * m > buffer.remaining()) {
+                throw new IOException("Corrupt network snapshot: " + file);
+            }
+
+            int[] outOffsets = getInts(buffer, n + 1);
+            int[] targets = getInts(buffer, m);
+            double[] weights = new double[m];
+            buffer.asDoubleBuffer().get(weights);
+            buffer.position(buffer.position() + 8 * m);
+            int[] roadOf = getInts(buffer, m);
+            Object[] names = readStrings(buffer, n);
+            Object[] roads = readStrings(buffer, numRoads);
+
+            Object[] edgeData = new Object[m];
+            for (int e = 0; e < m; e++) {
+                edgeData[e] = roadOf[e] == NO_ROAD ? null : roads[roadOf[e]];
+            }
+            // The edges of each vertex must start at 0, never go back, and end with the last edge
+            if (outOffsets[0] != 0 || outOffsets[n] != m) {
+                throw new IOException("Corrupt network snapshot: " + file);
+            }
+            for (int v = 0; v < n; v++) {
+                if (outOffsets[v] > outOffsets[v + 1]) {
+                    throw new IOException("Corrupt network snapshot: " + file);
+                }
+            }
+            for (int t : targets) {
+                if (t < 0 || t >= n) {
+                    throw new IOException("Corrupt network snapshot: " + file);
+                }
+            }
+            return new CsrGraph<>(names, outOffsets, targets, weights, edgeData);
+        } catch (RuntimeException e) {
+            // Buffer underflow or bad offsets: the file is truncated or corrupt
+            throw new IOException("Corrupt network snapshot: " + file, e);
+        }
+    }
+
+    // Byte offsets of each string, then all their UTF-8 bytes
+    private static void writeStrings(DataOutputStream out, String[] strings, int count) throws IOException {
+        byte[][] bytes = new byte[count][];
+        int offset = 0;
+        out.writeInt(offset);
+        for (int i = 0; i < count; i++) {
+            bytes[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+            offset += bytes[i].length;
+            out.writeInt(offset);
+        }
+        for (byte[] b : bytes) {
+            out.write(b);
+        }
+    }
+
+    private static Object[] readStrings(ByteBuffer buffer, int count) {
+        int[] offsets = getInts(buffer, count + 1);
+        byte[] bytes = new byte[offsets[count]];
+        buffer.get(bytes);
+        Object[] strings = new Object[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+}
@@ -0,0 +1,204 @@
+package hw8.graph;
+
+import exceptions.InsertionException;
+import exceptions.PositionException;
+import exceptions.RemovalException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A Graph that tells its listeners about every change made through it,
+ * e.g. so that results computed from the graph can be thrown away when it
+ * changes.
+ * <p>
+ * All the work is done by the graph it wraps, and positions are that
+ * graph's own. Changes made to the wrapped graph directly are not seen.</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public class ObservableGraph<V, E> implements Graph<V, E> {
+    private final Graph<V, E> graph;
+    private final List<GraphListener> listeners;
+
+    /**
+     * Wrap a graph.
+     *
+     * @param graph the graph that holds the vertices and edges.
+     */
+    public ObservableGraph(Graph<V, E> graph) {
+        this.graph = graph;
+        listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Start telling a listener about changes.
+     *
+     * @param listener the listener.
+     */
+    public void addListener(GraphListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stop telling a listener about changes.
+     *
+     * @param listener the listener.
+     */
+    public void removeListener(GraphListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void structureChanged() {
+        for (GraphListener listener : listeners) {
+            listener.structureChanged();
+        }
+    }
+
+    @Override
+    public Vertex<V> insert(V v) throws InsertionException {
+        Vertex<V> vertex = graph.insert(v);
+        structureChanged();
+        return vertex;
+    }
+
+    @Override
+    public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e) throws PositionException, InsertionException {
+        Edge<E> edge = graph.insert(from, to, e);
+        structureChanged();
+        return edge;
+    }
+
+    @Override
+    public V remove(Vertex<V> v) throws PositionException, RemovalException {
+        V removed = graph.remove(v);
+        structureChanged();
+        return removed;
+    }
+
+    @Override
+    public E remove(Edge<E> e) throws PositionException {
+        E removed = graph.remove(e);
+        structureChanged();
+        return removed;
+    }
+
+    @Override
+    public Iterable<Vertex<V>> vertices() {
+        return graph.vertices();
+    }
+
+    @Override
+    public Iterable<Edge<E>> edges() {
+        return graph.edges();
+    }
+
+    @Override
+    public Iterable<Edge<E>> outgoing(Vertex<V> v) throws PositionException {
+        return graph.outgoing(v);
+    }
+
+    @Override
+    public Iterable<Edge<E>> incoming(Vertex<V> v) throws PositionException {
+        return graph.incoming(v);
+    }
+
+    @Override
+    public void forEachOutgoing(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        graph.forEachOutgoing(v, visitor);
+    }
+
+    @Override
+    public void forEachIncoming(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        graph.forEachIncoming(v, visitor);
+    }
+
+    @Override
+    public Vertex<V> from(Edge<E> e) throws PositionException {
+        return graph.from(e);
+    }
+
+    @Override
+    public Vertex<V> to(Edge<E> e) throws PositionException {
+        return graph.to(e);
+    }
+
+    @Override
+    public void label(Vertex<V> v, Object l) throws PositionException {
+        graph.label(v, l);
+        for (GraphListener listener : listeners) {
+            listener.vertexLabelChanged(v);
+        }
+    }
+
+    @Override
+    public void label(Edge<E> e, Object l) throws PositionException {
+        graph.label(e, l);
+        for (GraphListener listener : listeners) {
+            listener.edgeLabelChanged(e);
+        }
+    }
+
+    @Override
+    public Object label(Vertex<V> v) throws PositionException {
+        return graph.label(v);
+    }
+
+    @Override
+    public Object label(Edge<E> e) throws PositionException {
+        return graph.label(e);
+    }
+
+    @Override
+    public void weight(Edge<E> e, double w) throws PositionException {
+        graph.weight(e, w);
+        for (GraphListener listener : listeners) {
+            listener.edgeLabelChanged(e);
+        }
+    }
+
+    @Override
+    public double weight(Edge<E> e) throws PositionException {
+        return graph.weight(e);
+    }
+
+    @Override
+    public void intLabel(Vertex<V> v, int l) throws PositionException {
+        graph.intLabel(v, l);
+        for (GraphListener listener : listeners) {
+            listener.vertexLabelChanged(v);
+        }
+    }
+
+    @Override
+    public int intLabel(Vertex<V> v) throws PositionException {
+        return graph.intLabel(v);
+    }
+
+    @Override
+    public void longLabel(Vertex<V> v, long l) throws PositionException {
+        graph.longLabel(v, l);
+        for (GraphListener listener : listeners) {
+            listener.vertexLabelChanged(v);
+        }
+    }
+
+    @Override
+    public long longLabel(Vertex<V> v) throws PositionException {
+        return graph.longLabel(v);
+    }
+
+    @Override
+    public void clearLabels() {
+        graph.clearLabels();
+        for (GraphListener listener : listeners) {
+            listener.labelsCleared();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+}
@@ -4,9 +4,10 @@ import exceptions.InsertionException;
 import exceptions.PositionException;
 import exceptions.RemovalException;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.Objects;
 
 
@@ -21,12 +22,34 @@ public class SparseGraph<V, E> implements Graph<V, E> {
     LinkedHashSet<VertexNode<V>> vertices;
     LinkedHashSet<EdgeNode<E>> edges;
 
+    /* Every vertex and edge has an id, reused after it is removed, and its
+     * labels live in arrays indexed by it: weights for edges, int and long
+     * labels for vertices. A slot (and the Object label of its position)
+     * only holds a label if its stamp is the current epoch, so
+     * clearLabels() just moves to the next epoch. */
+    private int epoch;
+    private final IdPool vertexIds;
+    private int[] vertexStamps;
+    private int[] intLabels;
+    private long[] longLabels;
+    private final IdPool edgeIds;
+    private int[] edgeStamps;
+    private double[] weights;
+
     /**
      * Create a Sparse Graph instance.
      */
     public SparseGraph() {
         vertices = new LinkedHashSet<>();
         edges = new LinkedHashSet<>();
+        epoch = 1;
+        vertexIds = new IdPool();
+        vertexStamps = new int[16];
+        intLabels = new int[16];
+        longLabels = new long[16];
+        edgeIds = new IdPool();
+        edgeStamps = new int[16];
+        weights = new double[16];
     }
 
     // Convert the vertex back to a VertexNode for internal use
@@ -55,18 +78,18 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         }
     }
 
+    /* Positions are valid while their owner is this graph: removal clears
+     * the owner, so checking a position is a field read, not a hash lookup
+     * (which would hash the vertex data, twice over for an edge). */
+
     // Check that a given vertex exists within the graph
     private boolean isVertexValid(Vertex<V> vertex) {
-        if (vertex != null) {
-            VertexNode<V> node = convert(vertex);
-            return vertices.contains(node);
-        }
-        return false;
+        return vertex instanceof SparseGraph.VertexNode && ((VertexNode<V>) vertex).owner == this;
     }
 
     // Check that a given edge exists within the graph
     private boolean isEdgeValid(Edge<E> edge) {
-        return (edge != null && edges.contains(convert(edge)));
+        return edge instanceof SparseGraph.EdgeNode && ((EdgeNode<E>) edge).owner == this;
     }
 
     @Override
@@ -82,6 +105,13 @@ public class SparseGraph<V, E> implements Graph<V, E> {
             throw new InsertionException();
         }
 
+        vertexNode.id = vertexIds.take();
+        if (vertexNode.id == vertexStamps.length) {
+            vertexStamps = Arrays.copyOf(vertexStamps, 2 * vertexStamps.length);
+            intLabels = Arrays.copyOf(intLabels, vertexStamps.length);
+            longLabels = Arrays.copyOf(longLabels, vertexStamps.length);
+        }
+        vertexStamps[vertexNode.id] = 0;
         return vertexNode;
     }
 
@@ -98,7 +128,7 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         EdgeNode<E> edgeNode = new EdgeNode<>(fromNode, toNode, e);
         edgeNode.owner = this;
 
-        if (fromNode.equals(toNode)) {
+        if (fromNode == toNode) {
             throw new InsertionException();
         }
 
@@ -108,6 +138,13 @@ public class SparseGraph<V, E> implements Graph<V, E> {
 
         fromNode.outgoingEdges.add(edgeNode);
         toNode.incomingEdges.add(edgeNode);
+
+        edgeNode.id = edgeIds.take();
+        if (edgeNode.id == edgeStamps.length) {
+            edgeStamps = Arrays.copyOf(edgeStamps, 2 * edgeStamps.length);
+            weights = Arrays.copyOf(weights, edgeStamps.length);
+        }
+        edgeStamps[edgeNode.id] = 0;
         return edgeNode;
     }
 
@@ -125,6 +162,7 @@ public class SparseGraph<V, E> implements Graph<V, E> {
 
         vertices.remove(vertexNode);
         vertexNode.owner = null;
+        vertexIds.give(vertexNode.id);
         return vertexNode.get();
     }
 
@@ -146,6 +184,8 @@ public class SparseGraph<V, E> implements Graph<V, E> {
 
         from.outgoingEdges.remove(edgeNode);
         to.incomingEdges.remove(edgeNode);
+        edgeNode.owner = null;
+        edgeIds.give(edgeNode.id);
 
         return edgeNode.get();
     }
@@ -180,6 +220,32 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         return Collections.unmodifiableList(vertexNode.incomingEdges);
     }
 
+    @Override
+    public void forEachOutgoing(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        if (!isVertexValid(v)) {
+            throw new PositionException();
+        }
+
+        ArrayList<EdgeNode<E>> outgoing = convert(v).outgoingEdges;
+        for (int i = 0; i < outgoing.size(); i++) {
+            EdgeNode<E> edgeNode = outgoing.get(i);
+            visitor.visit(edgeNode, edgeNode.to, weightOf(edgeNode));
+        }
+    }
+
+    @Override
+    public void forEachIncoming(Vertex<V> v, EdgeVisitor<V, E> visitor) throws PositionException {
+        if (!isVertexValid(v)) {
+            throw new PositionException();
+        }
+
+        ArrayList<EdgeNode<E>> incoming = convert(v).incomingEdges;
+        for (int i = 0; i < incoming.size(); i++) {
+            EdgeNode<E> edgeNode = incoming.get(i);
+            visitor.visit(edgeNode, edgeNode.from, weightOf(edgeNode));
+        }
+    }
+
     @Override
     public Vertex<V> from(Edge<E> e) throws PositionException {
         if (!isEdgeValid(e)) {
@@ -196,12 +262,33 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         return convert(e).to;
     }
 
+    // Make a vertex's labels current, resetting any left from before the last clearLabels()
+    private VertexNode<V> touch(VertexNode<V> node) {
+        if (vertexStamps[node.id] != epoch) {
+            vertexStamps[node.id] = epoch;
+            node.label = null;
+            intLabels[node.id] = 0;
+            longLabels[node.id] = 0;
+        }
+        return node;
+    }
+
+    // Make an edge's labels current, resetting any left from before the last clearLabels()
+    private EdgeNode<E> touch(EdgeNode<E> node) {
+        if (edgeStamps[node.id] != epoch) {
+            edgeStamps[node.id] = epoch;
+            node.label = null;
+            weights[node.id] = Double.NaN;
+        }
+        return node;
+    }
+
     @Override
     public void label(Vertex<V> v, Object l) throws PositionException {
         if (!isVertexValid(v)) {
             throw new PositionException();
         }
-        convert(v).label = l;
+        touch(convert(v)).label = l;
     }
 
     @Override
@@ -209,7 +296,9 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         if (!isEdgeValid(e)) {
             throw new PositionException();
         }
-        convert(e).label = l;
+        EdgeNode<E> edgeNode = touch(convert(e));
+        edgeNode.label = l;
+        weights[edgeNode.id] = l instanceof Number ? ((Number) l).doubleValue() : Double.NaN;
     }
 
     @Override
@@ -218,7 +307,8 @@ public class SparseGraph<V, E> implements Graph<V, E> {
             throw new PositionException();
         }
 
-        return convert(v).label;
+        VertexNode<V> vertexNode = convert(v);
+        return vertexStamps[vertexNode.id] == epoch ? vertexNode.label : null;
     }
 
     @Override
@@ -226,17 +316,79 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         if (!isEdgeValid(e)) {
             throw new PositionException();
         }
-        return convert(e).label;
+        EdgeNode<E> edgeNode = convert(e);
+        if (edgeStamps[edgeNode.id] != epoch) {
+            return null;
+        }
+        if (edgeNode.label != null || Double.isNaN(weights[edgeNode.id])) {
+            return edgeNode.label;
+        }
+        return weights[edgeNode.id];  // set through weight()
     }
 
     @Override
-    public void clearLabels() {
-        for (Edge<E> e : edges) {
-            label(e, null);
+    public void weight(Edge<E> e, double w) throws PositionException {
+        if (!isEdgeValid(e)) {
+            throw new PositionException();
         }
+        EdgeNode<E> edgeNode = touch(convert(e));
+        edgeNode.label = null;
+        weights[edgeNode.id] = w;
+    }
 
-        for (Vertex<V> v : vertices) {
-            label(v, null);
+    @Override
+    public double weight(Edge<E> e) throws PositionException {
+        if (!isEdgeValid(e)) {
+            throw new PositionException();
+        }
+        return weightOf(convert(e));
+    }
+
+    private double weightOf(EdgeNode<E> edgeNode) {
+        return edgeStamps[edgeNode.id] == epoch ? weights[edgeNode.id] : Double.NaN;
+    }
+
+    @Override
+    public void intLabel(Vertex<V> v, int l) throws PositionException {
+        if (!isVertexValid(v)) {
+            throw new PositionException();
+        }
+        intLabels[touch(convert(v)).id] = l;
+    }
+
+    @Override
+    public int intLabel(Vertex<V> v) throws PositionException {
+        if (!isVertexValid(v)) {
+            throw new PositionException();
+        }
+        int id = convert(v).id;
+        return vertexStamps[id] == epoch ? intLabels[id] : 0;
+    }
+
+    @Override
+    public void longLabel(Vertex<V> v, long l) throws PositionException {
+        if (!isVertexValid(v)) {
+            throw new PositionException();
+        }
+        longLabels[touch(convert(v)).id] = l;
+    }
+
+    @Override
+    public long longLabel(Vertex<V> v) throws PositionException {
+        if (!isVertexValid(v)) {
+            throw new PositionException();
+        }
+        int id = convert(v).id;
+        return vertexStamps[id] == epoch ? longLabels[id] : 0;
+    }
+
+    @Override
+    public void clearLabels() {
+        if (++epoch == 0) {
+            // Stamps wrapped around; old ones could now look current
+            Arrays.fill(vertexStamps, 0);
+            Arrays.fill(edgeStamps, 0);
+            epoch = 1;
         }
     }
 
@@ -251,16 +403,17 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         V data;
         Graph<V, E> owner;
         Object label;
+        int id;
 
-        LinkedList<EdgeNode<E>> incomingEdges;
-        LinkedList<EdgeNode<E>> outgoingEdges;
+        ArrayList<EdgeNode<E>> incomingEdges;
+        ArrayList<EdgeNode<E>> outgoingEdges;
 
         VertexNode(V v) {
             this.data = v;
             this.label = null;
 
-            this.incomingEdges = new LinkedList<>();
-            this.outgoingEdges = new LinkedList<>();
+            this.incomingEdges = new ArrayList<>(4);
+            this.outgoingEdges = new ArrayList<>(4);
         }
 
         @Override
@@ -290,6 +443,7 @@ public class SparseGraph<V, E> implements Graph<V, E> {
         VertexNode<V> from;
         VertexNode<V> to;
         Object label;
+        int id;
 
         EdgeNode(VertexNode<V> f, VertexNode<V> t, E e) {
             this.from = f;
@@ -317,4 +471,22 @@ public class SparseGraph<V, E> implements Graph<V, E> {
             return Objects.hash(owner, from, to);
         }
     }
+
+    // Hands out ids given back by removals first, then ids never used
+    private static final class IdPool {
+        private int next;
+        private int[] free = new int[16];
+        private int numFree;
+
+        int take() {
+            return numFree > 0 ? free[--numFree] : next++;
+        }
+
+        void give(int id) {
+            if (numFree == free.length) {
+                free = Arrays.copyOf(free, 2 * numFree);
+            }
+            free[numFree++] = id;
+        }
+    }
 }
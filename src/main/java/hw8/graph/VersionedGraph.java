@@ -0,0 +1,193 @@
+package hw8.graph;
+
+import exceptions.PositionException;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Roads whose edge weights change in batches, e.g. from a traffic feed,
+ * while queries run against them. Each batch is published as a new
+ * GraphVersion all at once, so a query that pins a version sees either
+ * every weight of a batch or none of them.
+ * <p>
+ * Versions share the roads and every weight a batch leaves alone, so
+ * publishing copies about as much as the batch changes rather than the
+ * whole graph. Only the current version is kept here; an older one is
+ * reclaimed by the garbage collector as soon as no query has it pinned.
+ * Any number of threads may pin versions and publish batches at once.</p>
+ *
+ * @param <V> Vertex element type.
+ * @param <E> Edge element type.
+ */
+public final class VersionedGraph<V, E> {
+    private volatile GraphVersion<V, E> current;
+
+    // Versions that have been replaced but are still pinned
+    private final Set<GraphVersion<V, E>> retained;
+
+    /**
+     * Start versioning a graph's weights. The graph must not be changed
+     * afterwards.
+     *
+     * @param graph the roads, with the weights of version 0.
+     */
+    public VersionedGraph(CsrGraph<V, E> graph) {
+        current = GraphVersion.first(this, graph);
+        retained = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * The latest version, without pinning it.
+     *
+     * @return the current version.
+     */
+    public GraphVersion<V, E> current() {
+        return current;
+    }
+
+    /**
+     * Pin the latest version for the length of a query. Close it when the
+     * query is done, e.g. with try-with-resources.
+     *
+     * @return the current version, pinned.
+     */
+    public GraphVersion<V, E> pin() {
+        while (true) {
+            GraphVersion<V, E> version = current;
+            version.pin();
+            // A batch published between the read and the pin may have found it unpinned and not retained it
+            if (version == current) {
+                return version;
+            }
+            version.close();
+        }
+    }
+
+    /**
+     * Publish a batch of weight changes as the new current version.
+     * Queries that already pinned a version keep it.
+     *
+     * @param batch the changes; it may be reused afterwards.
+     * @return the new version.
+     */
+    public synchronized GraphVersion<V, E> publish(Batch batch) {
+        GraphVersion<V, E> old = current;
+        current = old.next(batch.edgeIds, batch.weights, batch.size);
+        if (old.getPins() > 0) {
+            retained.add(old);
+            if (old.getPins() == 0) {
+                retained.remove(old);  // closed while being retained
+            }
+        }
+        return current;
+    }
+
+    // Called when a version's last pin is closed
+    void unpinned(GraphVersion<V, E> version) {
+        if (version != current) {
+            retained.remove(version);
+        }
+    }
+
+    /**
+     * Number of replaced versions still pinned by a query, and so kept in
+     * memory.
+     *
+     * @return version count.
+     */
+    public int getNumRetained() {
+        return retained.size();
+    }
+
+    /**
+     * Start a batch of weight changes for this graph.
+     *
+     * @return an empty batch.
+     */
+    public Batch newBatch() {
+        return new Batch(current.getGraph());
+    }
+
+    /**
+     * Weight changes to publish together. A batch belongs to one thread
+     * until it is published.
+     */
+    public static final class Batch {
+        private final CsrGraph<?, ?> graph;
+        private int[] edgeIds;
+        private double[] weights;
+        private int size;
+
+        private Batch(CsrGraph<?, ?> graph) {
+            this.graph = graph;
+            edgeIds = new int[16];
+            weights = new double[16];
+        }
+
+        /**
+         * Change the weight of an edge. A later change to the same edge wins.
+         *
+         * @param e edge id in the versioned graph.
+         * @param w the new weight.
+         * @return this batch.
+         * @throws IllegalArgumentException if the edge id is out of range.
+         */
+        public Batch weight(int e, double w) {
+            if (e < 0 || e >= graph.numEdges()) {
+                throw new IllegalArgumentException("No such edge: " + e);
+            }
+            if (size == edgeIds.length) {
+                edgeIds = Arrays.copyOf(edgeIds, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+            }
+            edgeIds[size] = e;
+            weights[size++] = w;
+            return this;
+        }
+
+        /**
+         * Change the weight of an edge.
+         *
+         * @param e edge position in the versioned graph.
+         * @param w the new weight.
+         * @return this batch.
+         * @throws PositionException If edge position is invalid.
+         */
+        @SuppressWarnings("unchecked")
+        public Batch weight(Edge<?> e, double w) throws PositionException {
+            try {
+                return weight(((CsrGraph<?, Object>) graph).id((Edge<Object>) e), w);
+            } catch (ClassCastException ex) {
+                throw new PositionException();
+            }
+        }
+
+        /**
+         * Number of changes in the batch.
+         *
+         * @return change count.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Ids of the edges the batch changes, e.g. to repair shortest path
+         * trees once it is published.
+         *
+         * @return edge ids in the order they were changed, possibly repeated.
+         */
+        public int[] edgeIds() {
+            return Arrays.copyOf(edgeIds, size);
+        }
+
+        /**
+         * Drop every change, to reuse the batch.
+         */
+        public void clear() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package hw8.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hw8.Config;
+import hw8.spp.RoadNetwork;
+import hw8.spp.Route;
+import hw8.spp.RoutePlanner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTTP front end to a RoutePlanner, built on the JDK's own HTTP server.
+ * <p>
+ * The network is loaded once and held for the life of the server.
+ * {@code GET /route?from=..&to=..} answers with the route as JSON:</p>
+ * <pre>
+ * {"from":"..","to":"..","found":true,"distance":599.0428,
+ *  "roads":[{"name":"Malone_Hall--Shriver_Hall","length":58.16},...]}
+ * </pre>
+ * <p>
+ * Each request runs on its own virtual thread when the JVM has them (Java
+ * 21 and later), and on a pooled platform thread otherwise. At most
+ * maxInFlight routes are searched at once; requests over that limit are
+ * turned away at once with 503 rather than queued, so a burst cannot pile
+ * up unbounded work. Give the planner maxInFlight workspaces, so the
+ * routes let through always find one free instead of allocating a new one
+ * per request. Bad or unknown endpoints and malformed queries get 400,
+ * and every error body is {"error":".."}.</p>
+ */
+public final class RouteServer {
+    private final Router router;
+    private final Semaphore inFlight;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Create a server. It does not listen until start() is called.
+     *
+     * @param planner     planner to answer the requests with, keeping at
+     *                    least maxInFlight workspaces.
+     * @param maxInFlight most route queries answered at the same time.
+     * @throws IllegalArgumentException if maxInFlight is not positive.
+     */
+    public RouteServer(RoutePlanner planner, int maxInFlight) {
+        this(planner::route, maxInFlight);
+    }
+
+    /**
+     * Create a server that answers with any router, such as a RoutePlanner
+     * wrapped to log or time its queries. It does not listen until start()
+     * is called.
+     *
+     * @param router      answers the route queries.
+     * @param maxInFlight most route queries answered at the same time.
+     * @throws IllegalArgumentException if maxInFlight is not positive.
+     */
+    public RouteServer(Router router, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.router = router;
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Answers one route query for the server, as RoutePlanner.route does.
+     */
+    @FunctionalInterface
+    public interface Router {
+        /**
+         * Shortest route between two endpoints.
+         *
+         * @param from name or coordinates of the start.
+         * @param to   name or coordinates of the end.
+         * @return the route.
+         * @throws IllegalArgumentException if either end cannot be found.
+         */
+        Route route(String from, String to);
+    }
+
+    /**
+     * Start listening on the loopback interface.
+     *
+     * @param port port to listen on, or 0 for any free port.
+     * @return the port the server listens on.
+     * @throws IOException if the port cannot be bound.
+     * @throws IllegalStateException if the server is already running.
+     */
+    public int start(int port) throws IOException {
+        return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Start listening.
+     *
+     * @param address address to listen on; port 0 picks any free port.
+     * @return the port the server listens on.
+     * @throws IOException if the address cannot be bound.
+     * @throws IllegalStateException if the server is already running.
+     */
+    public synchronized int start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server already running");
+        }
+        server = HttpServer.create(address, 0);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/route", this::handleRoute);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop listening and finish the requests in flight, waiting at most
+     * the given time for them.
+     *
+     * @param delaySeconds longest wait for requests in flight.
+     */
+    public synchronized void stop(int delaySeconds) {
+        if (server == null) {
+            return;
+        }
+        server.stop(delaySeconds);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    // One virtual thread per request if the JVM has them, else a cached pool
+    private static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "route-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handleRoute(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/route")) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+            Map<String, String> params;
+            try {
+                params = parseQuery(exchange.getRequestURI().getRawQuery());
+            } catch (IllegalArgumentException e) {
+                // A bad % escape
+                sendError(exchange, 400, "Malformed query");
+                return;
+            }
+            String from = params.get("from");
+            String to = params.get("to");
+            if (from == null || to == null) {
+                sendError(exchange, 400, "Both from and to are required");
+                return;
+            }
+            if (!inFlight.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendError(exchange, 503, "Too many queries in flight");
+                return;
+            }
+            Route route;
+            try {
+                route = router.route(from, to);
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            } finally {
+                inFlight.release();
+            }
+            send(exchange, 200, toJson(route));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                        URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * The JSON body a route is answered with.
+     *
+     * @param route the route.
+     * @return JSON object with from, to, found, distance (null if not found)
+     *     and the roads with their lengths.
+     */
+    static String toJson(Route route) {
+        StringBuilder json = new StringBuilder("{\"from\":");
+        appendString(json, route.getFrom());
+        json.append(",\"to\":");
+        appendString(json, route.getTo());
+        json.append(",\"found\":").append(route.isFound());
+        json.append(",\"distance\":").append(route.isFound() ? Double.toString(route.getDistance()) : "null");
+        json.append(",\"roads\":[");
+        for (int i = 0; i < route.getRoads().size(); i++) {
+            json.append(i == 0 ? "{\"name\":" : ",{\"name\":");
+            appendString(json, route.getRoads().get(i).get());
+            json.append(",\"length\":").append(route.getLength(i)).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendString(StringBuilder json, String s) {
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        send(exchange, status, json.append('}').toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Serve the network from Config.getConfig() until the process is killed,
+     * with the tree cache from Config.getTreeCache().
+     *
+     * @param args optional port (default 8080) and most queries in flight
+     *             (default 4 per core).
+     * @throws IOException if the network cannot be loaded or the port bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int maxInFlight = args.length > 1 ? Integer.parseInt(args[1])
+                : 4 * Runtime.getRuntime().availableProcessors();
+        Config config = Config.getConfig();
+        RouteServer server = new RouteServer(
+                new RoutePlanner(RoadNetwork.load(config.data), Config.getTreeCache(), maxInFlight), maxInFlight);
+        port = server.start(port);
+        System.out.printf("Serving %s on http://localhost:%d/route\n", config.data.getName(), port);
+    }
+}
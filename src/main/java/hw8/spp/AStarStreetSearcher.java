@@ -0,0 +1,172 @@
+package hw8.spp;
+
+import hw8.geo.CoordinateCodec;
+import hw8.geo.Geo;
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+
+import java.util.Arrays;
+
+/**
+ * A* search guided by the straight-line distance to the end, using the
+ * "lon,lat" coordinates every vertex is named by.
+ * <p>
+ * The coordinates are parsed once when the network is loaded and kept as
+ * unit vectors, so the straight-line distance is the chord between two
+ * vertices: never longer than the great-circle distance, and a square root
+ * rather than a haversine per queued vertex.</p>
+ * <p>
+ * Road lengths are not in meters (Baltimore's are in feet, about 3.28 per
+ * meter of chord), and the data files round coordinates to a few decimals,
+ * which makes some very short roads much shorter than the chord between
+ * their endpoints. At load time we measure every road's ratio of length to
+ * chord and use the larger of two lower bounds: the chord times the lowest
+ * ratio, and the chord times a higher factor less the total by which the
+ * roads below that factor fall short of it. The factor is the one that
+ * gives the largest bound at the mean distance of the vertices from their
+ * center, a typical length for half a query. Both bounds never exceed the
+ * true distance, so the distances found match DijkstraStreetSearcher
+ * exactly.</p>
+ */
+public class AStarStreetSearcher extends DijkstraStreetSearcher {
+
+    // Unit vectors of the vertex coordinates, by vertex id
+    private double[] xs;
+    private double[] ys;
+    private double[] zs;
+
+    // Lowest ratio of road length to chord, 0 if there are no coordinates
+    private double scale;
+
+    // Higher ratio, and the total by which the roads below it fall short of their chord times it
+    private double factor;
+    private double slack;
+
+    /**
+     * Create a StreetSearcher object.
+     *
+     * @param graph an implementation of Graph ADT.
+     */
+    public AStarStreetSearcher(Graph<String, String> graph) {
+        super(graph, true);
+        xs = new double[0];
+        ys = new double[0];
+        zs = new double[0];
+    }
+
+    @Override
+    protected void networkLoaded() {
+        scale = 0.0;
+        factor = 0.0;
+        slack = 0.0;
+        if (placeLocations()) {
+            calibrate();
+        }
+    }
+
+    @Override
+    protected double estimate(int id, int endId) {
+        double chord = Geo.EARTH_RADIUS * chord(id, endId);
+        return Math.max(scale * chord, factor * chord - slack);
+    }
+
+    // Parse every vertex name into a unit vector; false if some name isn't a coordinate
+    private boolean placeLocations() {
+        int n = numLocations();
+        xs = new double[n];
+        ys = new double[n];
+        zs = new double[n];
+        for (int id = 0; id < n; id++) {
+            long key = CoordinateCodec.encode(locationAt(id).get());
+            if (key == CoordinateCodec.NONE) {
+                return false;
+            }
+            double lon = Math.toRadians(CoordinateCodec.longitude(key));
+            double lat = Math.toRadians(CoordinateCodec.latitude(key));
+            xs[id] = Math.cos(lat) * Math.cos(lon);
+            ys[id] = Math.cos(lat) * Math.sin(lon);
+            zs[id] = Math.sin(lat);
+        }
+        return true;
+    }
+
+    // Set the scale to the lowest ratio of road length to chord, and the factor and slack
+    // to the ratio and shortfall that give the largest bound across a typical distance
+    private void calibrate() {
+        int m = 0;
+        for (Edge<String> ignored : graph.edges()) {
+            m++;
+        }
+        // A road between two points with the same coordinates never falls short, so it is left out
+        double[] chords = new double[m];
+        double[] lengths = new double[m];
+        int n = 0;
+        for (Edge<String> road : graph.edges()) {
+            chords[n] = Geo.EARTH_RADIUS * chord(indexOf(graph.from(road)), indexOf(graph.to(road)));
+            lengths[n] = graph.weight(road);
+            if (chords[n] > 0.0) {
+                n++;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        Integer[] byRatio = new Integer[n];
+        for (int e = 0; e < n; e++) {
+            byRatio[e] = e;
+        }
+        Arrays.sort(byRatio, (a, b) -> Double.compare(lengths[a] * chords[b], lengths[b] * chords[a]));
+        scale = lengths[byRatio[0]] / chords[byRatio[0]];
+        factor = scale;
+
+        // At factor f the shortfall is f * (chords below f) - (lengths below f),
+        // so one pass in order of ratio tries every road's ratio as the factor
+        double typical = typicalDistance();
+        double chordsBelow = 0.0;
+        double lengthsBelow = 0.0;
+        double best = factor * typical;
+        for (int e : byRatio) {
+            double f = lengths[e] / chords[e];
+            if (f * typical - (f * chordsBelow - lengthsBelow) > best) {
+                factor = f;
+                best = f * typical - (f * chordsBelow - lengthsBelow);
+            }
+            chordsBelow += chords[e];
+            lengthsBelow += lengths[e];
+        }
+
+        // The shortfall again road by road, so no rounding in the running sums can make it too small
+        slack = 0.0;
+        for (int e = 0; e < n; e++) {
+            slack += Math.max(0.0, factor * chords[e] - lengths[e]);
+        }
+    }
+
+    // Mean distance of the vertices from their center
+    private double typicalDistance() {
+        double cx = 0.0;
+        double cy = 0.0;
+        double cz = 0.0;
+        for (int id = 0; id < xs.length; id++) {
+            cx += xs[id];
+            cy += ys[id];
+            cz += zs[id];
+        }
+        double norm = Math.sqrt(cx * cx + cy * cy + cz * cz);
+        double total = 0.0;
+        for (int id = 0; id < xs.length; id++) {
+            double dx = xs[id] - cx / norm;
+            double dy = ys[id] - cy / norm;
+            double dz = zs[id] - cz / norm;
+            total += Math.sqrt(dx * dx + dy * dy + dz * dz);
+        }
+        return Geo.EARTH_RADIUS * total / xs.length;
+    }
+
+    private double chord(int a, int b) {
+        double dx = xs[a] - xs[b];
+        double dy = ys[a] - ys[b];
+        double dz = zs[a] - zs[b];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
@@ -0,0 +1,94 @@
+package hw8.spp;
+
+import hw8.graph.Graph;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+/**
+ * A* search guided by landmarks and the triangle inequality (ALT).
+ * <p>
+ * When the network is loaded, a LandmarkTable picks a few landmarks around
+ * the edge of the map and finds the distances from and to each of them.
+ * The table is saved next to the data file (baltimore.streets.txt.alt), so
+ * later runs on the same network read it back instead of searching again.
+ * A saved table is only used if it was built from exactly the roads just
+ * loaded, with as many landmarks.</p>
+ * <p>
+ * The estimate follows the roads rather than a straight line, so far fewer
+ * vertices are settled than by AStarStreetSearcher. It never exceeds the
+ * true distance, so the distances found match DijkstraStreetSearcher
+ * exactly. It is infinite when a landmark reaches one end and not the
+ * other, so a query between two pieces of the network is answered without
+ * a search, and no search ever queues a vertex the end cannot be reached
+ * from.</p>
+ */
+public class AltStreetSearcher extends DijkstraStreetSearcher {
+    /** Number of landmarks picked unless told otherwise. */
+    public static final int DEFAULT_LANDMARKS = 16;
+
+    private final int numLandmarks;
+    private final File tableFile;
+    private File dataFile;
+    private LandmarkTable table;
+
+    /**
+     * Create a StreetSearcher object that saves its landmark table next to
+     * the data file.
+     *
+     * @param graph an implementation of Graph ADT.
+     */
+    public AltStreetSearcher(Graph<String, String> graph) {
+        this(graph, DEFAULT_LANDMARKS, null);
+    }
+
+    /**
+     * Create a StreetSearcher object.
+     *
+     * @param graph        an implementation of Graph ADT.
+     * @param numLandmarks number of landmarks to pick, at least 1.
+     * @param tableFile    where to save and look for the landmark table, or
+     *                     null for a file next to the data file (if there is one).
+     * @throws IllegalArgumentException if numLandmarks is less than 1.
+     */
+    public AltStreetSearcher(Graph<String, String> graph, int numLandmarks, File tableFile) {
+        super(graph, true);
+        if (numLandmarks < 1) {
+            throw new IllegalArgumentException("Need at least one landmark, not " + numLandmarks);
+        }
+        this.numLandmarks = numLandmarks;
+        this.tableFile = tableFile;
+    }
+
+    @Override
+    public void loadNetwork(File data) throws FileNotFoundException {
+        dataFile = data;
+        super.loadNetwork(data);
+    }
+
+    @Override
+    protected void networkLoaded() {
+        File file = tableFile;
+        if (file == null && dataFile != null) {
+            file = new File(dataFile.getPath() + ".alt");
+        }
+        table = roadArrays().loadOrBuild(file, LandmarkTable::read,
+                saved -> saved.numLandmarks() == Math.min(numLandmarks, numLocations()),
+                roads -> LandmarkTable.build(roads.numVertices, roads.from, roads.to, roads.weight, numLandmarks),
+                "landmark table");
+    }
+
+    /**
+     * The landmark table built or loaded for the current network.
+     *
+     * @return the landmark table.
+     */
+    public LandmarkTable getTable() {
+        return table;
+    }
+
+    @Override
+    protected double estimate(int id, int endId) {
+        return table.lowerBound(id, endId);
+    }
+}
@@ -0,0 +1,174 @@
+package hw8.spp;
+
+import hw8.graph.Edge;
+import hw8.graph.EdgeVisitor;
+import hw8.graph.Graph;
+import hw8.graph.Vertex;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bidirectional Dijkstra: one search grows forward from the start along
+ * outgoing edges while another grows backward from the end along incoming
+ * edges, until they meet in the middle.
+ * <p>
+ * Whenever an edge reaches a vertex the other search has already reached,
+ * the two halves form a path, and the shortest such path is kept. Once the
+ * smallest distances waiting in the two queues add up to at least that
+ * path's length, no path through unsettled vertices can be shorter, so
+ * the search stops. Each search settles roughly the vertices within half
+ * the distance to the other end.</p>
+ */
+public class BidirectionalStreetSearcher extends StreetSearcher {
+    private Frontier forward;
+    private Frontier backward;
+
+    // Length of the shortest path found so far, and the vertex where its halves meet
+    private double best;
+    private int meeting;
+
+    /**
+     * Create a StreetSearcher object.
+     *
+     * @param graph an implementation of Graph ADT.
+     */
+    public BidirectionalStreetSearcher(Graph<String, String> graph) {
+        super(graph);
+        forward = new Frontier(true);
+        backward = new Frontier(false);
+    }
+
+    @Override
+    public void findShortestPath(String startName, String endName) {
+        Vertex<String> start = location(startName);
+        Vertex<String> end = location(endName);
+        if (answerFromCache(start, end)) {
+            return;
+        }
+
+        double totalDist = search(indexOf(start), indexOf(end));
+
+        // Label the path found the way the other searchers do, then trace it back
+        List<Edge<String>> path = null;
+        if (best < Double.MAX_VALUE && start != end) {
+            labelPath();
+            path = getPath(end, start);
+            totalDist = pathLength(path);
+        }
+        pathFound(start, end, path, totalDist);
+    }
+
+    private double search(int startId, int endId) {
+        clearPath();
+        forward.reset(startId);
+        backward.reset(endId);
+        best = startId == endId ? 0.0 : Double.MAX_VALUE;
+        meeting = startId;
+        numSettled = 0;
+
+        while (!forward.queue.isEmpty() && !backward.queue.isEmpty()
+                && forward.queue.peekKey() + backward.queue.peekKey() < best) {
+            if (forward.queue.peekKey() <= backward.queue.peekKey()) {
+                forward.settleNext(backward);
+            } else {
+                backward.settleNext(forward);
+            }
+            numSettled++;
+        }
+        return best;
+    }
+
+    // Label each vertex on the path with the edge into it, from the meeting vertex outward
+    private void labelPath() {
+        for (int id = meeting; forward.edges[id] != null; id = indexOf(graph.from(forward.edges[id]))) {
+            labelRoad(forward.edges[id]);
+        }
+        for (int id = meeting; backward.edges[id] != null; id = indexOf(graph.to(backward.edges[id]))) {
+            labelRoad(backward.edges[id]);
+        }
+    }
+
+    // One direction of the search, over outgoing edges or (backward) incoming ones
+    private final class Frontier implements EdgeVisitor<String, String> {
+        final boolean outgoing;
+        double[] distances;
+        IndexedMinHeap queue;
+
+        // Edge into each reached vertex (forward) or out of it (backward) on its shortest path
+        Edge<String>[] edges;
+
+        int[] touched;
+        int numTouched;
+
+        // The vertex being settled and the other frontier, while visiting its edges
+        int curId;
+        Frontier other;
+
+        Frontier(boolean outgoing) {
+            this.outgoing = outgoing;
+            distances = new double[0];
+            queue = new IndexedMinHeap(0);
+            touched = new int[0];
+            edges = newEdgeArray(0);
+        }
+
+        void reset(int sourceId) {
+            for (int i = 0; i < numTouched; i++) {
+                distances[touched[i]] = Double.MAX_VALUE;
+                edges[touched[i]] = null;
+            }
+            numTouched = 0;
+            queue.clear();
+
+            int n = numLocations();
+            if (distances.length != n) {
+                distances = new double[n];
+                Arrays.fill(distances, Double.MAX_VALUE);
+                queue = new IndexedMinHeap(n);
+                touched = new int[n];
+                edges = newEdgeArray(n);
+            }
+            reach(sourceId, 0.0, null);
+        }
+
+        void settleNext(Frontier other) {
+            curId = queue.poll();
+            this.other = other;
+            if (outgoing) {
+                graph.forEachOutgoing(locationAt(curId), this);
+            } else {
+                graph.forEachIncoming(locationAt(curId), this);
+            }
+        }
+
+        @Override
+        public void visit(Edge<String> adjEdge, Vertex<String> adjVertex, double weight) {
+            int adjId = indexOf(adjVertex);
+            double newDistance = distances[curId] + weight;
+            if (newDistance < distances[adjId]) {
+                reach(adjId, newDistance, adjEdge);
+            }
+            // Both searches have now reached adjId: their halves form a path
+            if (other.distances[adjId] < Double.MAX_VALUE
+                    && distances[adjId] + other.distances[adjId] < best) {
+                best = distances[adjId] + other.distances[adjId];
+                meeting = adjId;
+            }
+        }
+
+        void reach(int id, double distance, Edge<String> edge) {
+            if (distances[id] == Double.MAX_VALUE) {
+                touched[numTouched++] = id;
+            }
+            distances[id] = distance;
+            edges[id] = edge;
+            queue.push(id, distance);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Edge<String>[] newEdgeArray(int n) {
+            return (Edge<String>[]) new Edge[n];
+        }
+    }
+}
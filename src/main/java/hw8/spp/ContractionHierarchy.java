@@ -0,0 +1,243 @@
+package hw8.spp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * A contraction hierarchy: an ordering of the vertices of a road network
+ * plus the shortcut edges added while contracting them in that order.
+ * <p>
+ * Vertices are contracted from least to most important. Contracting a
+ * vertex removes it and adds a shortcut between each pair of its remaining
+ * neighbors whose shortest connection ran through it. Every shortest path
+ * then has an equally short counterpart that only climbs in rank up to
+ * some vertex and only descends after it, so a query searches upward from
+ * both ends and touches a tiny part of the network.</p>
+ * <p>
+ * Only the upward arcs are kept, in two compressed adjacency arrays: for
+ * each vertex, the arcs leaving it for higher-ranked vertices (used by the
+ * forward search) and the arcs entering it from higher-ranked vertices
+ * (used by the backward search). An arc that is a shortcut records the
+ * vertex it bypasses, so it can be unpacked into original edges.</p>
+ */
+public final class ContractionHierarchy implements SavedIndex {
+    /** Marks an arc that is an original edge rather than a shortcut. */
+    public static final int ORIGINAL = -1;
+
+    private static final int MAGIC = 0x43483031;  // "CH01"
+
+    final long fingerprint;
+    final int[] rank;
+    final Arcs up;    // arcs v -> w with rank[w] > rank[v], listed under v
+    final Arcs down;  // arcs u -> v with rank[u] > rank[v], listed under v
+
+    ContractionHierarchy(long fingerprint, int[] rank, Arcs up, Arcs down) {
+        this.fingerprint = fingerprint;
+        this.rank = rank;
+        this.up = up;
+        this.down = down;
+    }
+
+    /**
+     * Contract a network, using all available cores.
+     *
+     * @param numVertices number of vertices, with ids 0..numVertices-1.
+     * @param from        source vertex of each edge.
+     * @param to          target vertex of each edge.
+     * @param weight      length of each edge.
+     * @return the hierarchy.
+     */
+    public static ContractionHierarchy build(int numVertices, int[] from, int[] to, double[] weight) {
+        return new ContractionHierarchyBuilder(numVertices, from, to, weight).build(
+                fingerprint(numVertices, from, to, weight));
+    }
+
+    /**
+     * Hash of a network, stored with a hierarchy so a saved one is only
+     * reused for the network it was built from.
+     *
+     * @param numVertices number of vertices.
+     * @param from        source vertex of each edge.
+     * @param to          target vertex of each edge.
+     * @param weight      length of each edge.
+     * @return a 64-bit fingerprint.
+     */
+    public static long fingerprint(int numVertices, int[] from, int[] to, double[] weight) {
+        long h = 0xcbf29ce484222325L ^ numVertices;
+        for (int i = 0; i < from.length; i++) {
+            h = (h ^ from[i]) * 0x100000001b3L;
+            h = (h ^ to[i]) * 0x100000001b3L;
+            h = (h ^ Double.doubleToLongBits(weight[i])) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    @Override
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Number of vertices in the hierarchy.
+     *
+     * @return vertex count.
+     */
+    @Override
+    public int numVertices() {
+        return rank.length;
+    }
+
+    /**
+     * Number of shortcuts kept in the hierarchy.
+     *
+     * @return count of upward arcs that bypass a vertex.
+     */
+    public int numShortcuts() {
+        return up.numShortcuts() + down.numShortcuts();
+    }
+
+    /**
+     * Save the hierarchy.
+     *
+     * @param file file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeLong(fingerprint);
+            out.writeInt(rank.length);
+            for (int r : rank) {
+                out.writeInt(r);
+            }
+            up.write(out);
+            down.write(out);
+        }
+    }
+
+    /**
+     * Load a hierarchy saved by write().
+     *
+     * @param file file to read.
+     * @return the hierarchy.
+     * @throws IOException if the file cannot be read, is not a hierarchy,
+     *     or its counts do not fit its length.
+     */
+    public static ContractionHierarchy read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a contraction hierarchy: " + file);
+            }
+            long fingerprint = in.readLong();
+            // Every count is checked against what is left of the file before anything that size is made
+            long left = file.length() - 16;
+            int numVertices = in.readInt();
+            if (numVertices < 0 || 4L * numVertices + 2 * 4L * (numVertices + 1L) > left) {
+                throw new IOException("Corrupt contraction hierarchy: " + file);
+            }
+            int[] rank = new int[numVertices];
+            for (int i = 0; i < rank.length; i++) {
+                rank[i] = in.readInt();
+            }
+            left -= 4L * numVertices;
+            Arcs up = Arcs.read(in, numVertices, left, file);
+            left -= up.numBytes();
+            Arcs down = Arcs.read(in, numVertices, left, file);
+            if (down.numBytes() != left) {
+                throw new IOException("Corrupt contraction hierarchy: " + file);
+            }
+            return new ContractionHierarchy(fingerprint, rank, up, down);
+        }
+    }
+
+    /**
+     * Arcs grouped by vertex in compressed sparse row form: the arcs of
+     * vertex v are at indices offsets[v] to offsets[v + 1] - 1.
+     */
+    static final class Arcs {
+        final int[] offsets;
+        final int[] other;     // the vertex at the far end of each arc
+        final double[] weight;
+        final int[] middle;    // bypassed vertex, or ORIGINAL
+
+        Arcs(int[] offsets, int[] other, double[] weight, int[] middle) {
+            this.offsets = offsets;
+            this.other = other;
+            this.weight = weight;
+            this.middle = middle;
+        }
+
+        // Index of the arc of v whose far end is w, or -1
+        int find(int v, int w) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (other[i] == w) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int numShortcuts() {
+            int count = 0;
+            for (int m : middle) {
+                if (m != ORIGINAL) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (int i = 0; i < other.length; i++) {
+                out.writeInt(other[i]);
+                out.writeDouble(weight[i]);
+                out.writeInt(middle[i]);
+            }
+        }
+
+        // Bytes write() takes for these arcs
+        long numBytes() {
+            return 4L * offsets.length + 16L * other.length;
+        }
+
+        // Read arcs saved by write(), from no more than bytesLeft bytes, with every vertex they name in range
+        static Arcs read(DataInputStream in, int numVertices, long bytesLeft, File file) throws IOException {
+            int[] offsets = new int[numVertices + 1];
+            for (int i = 0; i <= numVertices; i++) {
+                offsets[i] = in.readInt();
+                if (i == 0 ? offsets[i] != 0 : offsets[i] < offsets[i - 1]) {
+                    throw new IOException("Corrupt contraction hierarchy: " + file);
+                }
+            }
+            int m = offsets[numVertices];
+            if (4L * offsets.length + 16L * m > bytesLeft) {
+                throw new IOException("Corrupt contraction hierarchy: " + file);
+            }
+            int[] other = new int[m];
+            double[] weight = new double[m];
+            int[] middle = new int[m];
+            for (int i = 0; i < m; i++) {
+                other[i] = in.readInt();
+                weight[i] = in.readDouble();
+                middle[i] = in.readInt();
+                if (other[i] < 0 || other[i] >= numVertices
+                        || middle[i] != ORIGINAL && (middle[i] < 0 || middle[i] >= numVertices)) {
+                    throw new IOException("Corrupt contraction hierarchy: " + file);
+                }
+            }
+            return new Arcs(offsets, other, weight, middle);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package hw8.spp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Contracts a network into a ContractionHierarchy.
+ * <p>
+ * Vertices are contracted in rounds. Each round takes every remaining
+ * vertex whose priority is lower than that of all its remaining neighbors;
+ * no two of them are adjacent, so they can all be contracted at once. The
+ * witness searches that decide which shortcuts a vertex needs avoid every
+ * vertex of the round, which makes contracting them together as safe as
+ * contracting them one after another. Priorities, witness searches and
+ * priority updates all run on the common fork-join pool.</p>
+ * <p>
+ * A vertex's priority is its edge difference (shortcuts it would add minus
+ * arcs it would remove) plus the number of its neighbors already
+ * contracted, which keeps the contraction spread evenly over the map.</p>
+ */
+final class ContractionHierarchyBuilder {
+    // Witness searches give up after settling this many vertices and keep the shortcut
+    private static final int WITNESS_LIMIT = 500;
+
+    private final int n;
+    private final ArcList[] out;
+    private final ArcList[] in;
+    private final int[] priority;
+    private final int[] contractedNeighbors;
+    private final boolean[] contracted;
+    private final boolean[] inRound;
+
+    private final int[] rank;
+    private final ArcList[] upArcs;
+    private final ArcList[] downArcs;
+
+    private final ThreadLocal<WitnessSearch> witness;
+
+    ContractionHierarchyBuilder(int numVertices, int[] from, int[] to, double[] weight) {
+        n = numVertices;
+        out = new ArcList[n];
+        in = new ArcList[n];
+        for (int v = 0; v < n; v++) {
+            out[v] = new ArcList();
+            in[v] = new ArcList();
+        }
+        for (int i = 0; i < from.length; i++) {
+            addArc(from[i], to[i], weight[i], ContractionHierarchy.ORIGINAL);
+        }
+        priority = new int[n];
+        contractedNeighbors = new int[n];
+        contracted = new boolean[n];
+        inRound = new boolean[n];
+        rank = new int[n];
+        upArcs = new ArcList[n];
+        downArcs = new ArcList[n];
+        witness = ThreadLocal.withInitial(() -> new WitnessSearch(n));
+    }
+
+    ContractionHierarchy build(long fingerprint) {
+        IntStream.range(0, n).parallel().forEach(v -> priority[v] = computePriority(v));
+        int nextRank = 0;
+        while (nextRank < n) {
+            int[] round = IntStream.range(0, n).parallel()
+                    .filter(v -> !contracted[v] && isLocalMinimum(v)).toArray();
+            for (int v : round) {
+                inRound[v] = true;
+            }
+            List<List<Shortcut>> shortcuts = Arrays.stream(round).parallel()
+                    .mapToObj(this::findShortcuts).collect(Collectors.toList());
+            for (int i = 0; i < round.length; i++) {
+                contract(round[i], nextRank++, shortcuts.get(i));
+            }
+            updateNeighbors(round);
+        }
+        return new ContractionHierarchy(fingerprint, rank, freeze(upArcs), freeze(downArcs));
+    }
+
+    private int computePriority(int v) {
+        int degree = out[v].live(contracted) + in[v].live(contracted);
+        return findShortcuts(v).size() - degree + contractedNeighbors[v];
+    }
+
+    // Lower priority than every remaining neighbor, ties broken by id
+    private boolean isLocalMinimum(int v) {
+        return beatsNeighbors(v, out[v]) && beatsNeighbors(v, in[v]);
+    }
+
+    private boolean beatsNeighbors(int v, ArcList arcs) {
+        for (int i = 0; i < arcs.size; i++) {
+            int u = arcs.node[i];
+            if (!contracted[u] && (priority[u] < priority[v] || (priority[u] == priority[v] && u < v))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Shortcuts needed to remove v: one per pair of neighbors with no witness path around it
+    private List<Shortcut> findShortcuts(int v) {
+        List<Shortcut> shortcuts = new ArrayList<>();
+        WitnessSearch search = witness.get();
+        for (int i = 0; i < in[v].size; i++) {
+            int u = in[v].node[i];
+            if (contracted[u] || inRound[u]) {
+                continue;
+            }
+            double maxVia = in[v].weight[i] + out[v].maxWeight(contracted, u);
+            search.run(u, v, maxVia);
+            for (int j = 0; j < out[v].size; j++) {
+                int w = out[v].node[j];
+                double via = in[v].weight[i] + out[v].weight[j];
+                if (w != u && !contracted[w] && !inRound[w] && search.distance(w) > via) {
+                    shortcuts.add(new Shortcut(u, w, via));
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    private void contract(int v, int r, List<Shortcut> shortcuts) {
+        rank[v] = r;
+        upArcs[v] = out[v].remaining(contracted, inRound);
+        downArcs[v] = in[v].remaining(contracted, inRound);
+        for (Shortcut s : shortcuts) {
+            addArc(s.from, s.to, s.weight, v);
+        }
+    }
+
+    // Retire the round's vertices and re-prioritize the neighbors they leave behind
+    private void updateNeighbors(int[] round) {
+        boolean[] dirty = new boolean[n];
+        for (int v : round) {
+            contracted[v] = true;
+            inRound[v] = false;
+        }
+        for (int v : round) {
+            markNeighbors(out[v], dirty);
+            markNeighbors(in[v], dirty);
+        }
+        // Pruning writes the lists the witness searches read, so it gets its own pass
+        int[] neighbors = IntStream.range(0, n).filter(u -> dirty[u]).toArray();
+        Arrays.stream(neighbors).parallel().forEach(u -> {
+            out[u].prune(contracted);
+            in[u].prune(contracted);
+        });
+        Arrays.stream(neighbors).parallel().forEach(u -> priority[u] = computePriority(u));
+    }
+
+    private void markNeighbors(ArcList arcs, boolean[] dirty) {
+        for (int i = 0; i < arcs.size; i++) {
+            int u = arcs.node[i];
+            if (!contracted[u]) {
+                contractedNeighbors[u]++;
+                dirty[u] = true;
+            }
+        }
+    }
+
+    private void addArc(int from, int to, double weight, int middle) {
+        if (from != to && out[from].merge(to, weight, middle)) {
+            in[to].merge(from, weight, middle);
+        }
+    }
+
+    private ContractionHierarchy.Arcs freeze(ArcList[] lists) {
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + lists[v].size;
+        }
+        int m = offsets[n];
+        int[] other = new int[m];
+        double[] weight = new double[m];
+        int[] middle = new int[m];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(lists[v].node, 0, other, offsets[v], lists[v].size);
+            System.arraycopy(lists[v].weight, 0, weight, offsets[v], lists[v].size);
+            System.arraycopy(lists[v].middle, 0, middle, offsets[v], lists[v].size);
+        }
+        return new ContractionHierarchy.Arcs(offsets, other, weight, middle);
+    }
+
+    private static final class Shortcut {
+        final int from;
+        final int to;
+        final double weight;
+
+        Shortcut(int from, int to, double weight) {
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+        }
+    }
+
+    // Growable list of arcs at one vertex, keeping only the shortest arc to each neighbor
+    private static final class ArcList {
+        int[] node = new int[4];
+        double[] weight = new double[4];
+        int[] middle = new int[4];
+        int size;
+
+        // Add an arc, or shorten an existing one; false if it was no shorter
+        boolean merge(int to, double w, int mid) {
+            for (int i = 0; i < size; i++) {
+                if (node[i] == to) {
+                    if (w >= weight[i]) {
+                        return false;
+                    }
+                    weight[i] = w;
+                    middle[i] = mid;
+                    return true;
+                }
+            }
+            if (size == node.length) {
+                node = Arrays.copyOf(node, 2 * size);
+                weight = Arrays.copyOf(weight, 2 * size);
+                middle = Arrays.copyOf(middle, 2 * size);
+            }
+            node[size] = to;
+            weight[size] = w;
+            middle[size++] = mid;
+            return true;
+        }
+
+        int live(boolean[] contracted) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (!contracted[node[i]]) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        double maxWeight(boolean[] contracted, int except) {
+            double max = 0.0;
+            for (int i = 0; i < size; i++) {
+                if (!contracted[node[i]] && node[i] != except) {
+                    max = Math.max(max, weight[i]);
+                }
+            }
+            return max;
+        }
+
+        // Copy of the arcs to vertices that stay in the graph
+        ArcList remaining(boolean[] contracted, boolean[] inRound) {
+            ArcList copy = new ArcList();
+            for (int i = 0; i < size; i++) {
+                if (!contracted[node[i]] && !inRound[node[i]]) {
+                    copy.merge(node[i], weight[i], middle[i]);
+                }
+            }
+            return copy;
+        }
+
+        void prune(boolean[] contracted) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!contracted[node[i]]) {
+                    node[kept] = node[i];
+                    weight[kept] = weight[i];
+                    middle[kept++] = middle[i];
+                }
+            }
+            size = kept;
+        }
+    }
+
+    // Bounded Dijkstra for witness paths, one per worker thread
+    private final class WitnessSearch {
+        final double[] distances;
+        final IndexedMinHeap queue;
+        final int[] touched;
+        int numTouched;
+
+        WitnessSearch(int n) {
+            distances = new double[n];
+            Arrays.fill(distances, Double.MAX_VALUE);
+            queue = new IndexedMinHeap(n);
+            touched = new int[n];
+        }
+
+        double distance(int v) {
+            return distances[v];
+        }
+
+        // Distances from source avoiding the vertex being contracted and the current round
+        void run(int source, int avoid, double maxDistance) {
+            reset();
+            reach(source, 0.0);
+            int settled = 0;
+            while (!queue.isEmpty() && queue.peekKey() <= maxDistance && settled++ < WITNESS_LIMIT) {
+                int cur = queue.poll();
+                ArcList arcs = out[cur];
+                for (int i = 0; i < arcs.size; i++) {
+                    int next = arcs.node[i];
+                    if (next != avoid && !contracted[next] && !inRound[next]
+                            && distances[cur] + arcs.weight[i] < distances[next]) {
+                        reach(next, distances[cur] + arcs.weight[i]);
+                    }
+                }
+            }
+        }
+
+        private void reach(int v, double distance) {
+            if (distances[v] == Double.MAX_VALUE) {
+                touched[numTouched++] = v;
+            }
+            distances[v] = distance;
+            queue.push(v, distance);
+        }
+
+        private void reset() {
+            for (int i = 0; i < numTouched; i++) {
+                distances[touched[i]] = Double.MAX_VALUE;
+            }
+            numTouched = 0;
+            queue.clear();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package hw8.spp;
+
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.Vertex;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Street searcher backed by a ContractionHierarchy.
+ * <p>
+ * The hierarchy is built when the network is loaded and saved next to the
+ * data file (baltimore.streets.txt.ch), so later runs on the same network
+ * read it back instead of contracting again. A saved hierarchy is only
+ * used if it was built from exactly the roads just loaded.</p>
+ * <p>
+ * A query runs Dijkstra upward from both ends over the hierarchy's arcs,
+ * then unpacks the shortcuts on the best path into the original roads and
+ * adds their lengths up from the start, so the output matches
+ * DijkstraStreetSearcher.</p>
+ */
+public class ContractionHierarchyStreetSearcher extends StreetSearcher {
+    private final File hierarchyFile;
+    private File dataFile;
+    private ContractionHierarchy hierarchy;
+
+    private Frontier forward;
+    private Frontier backward;
+
+    // Length of the shortest path found so far, and its highest-ranked vertex
+    private double best;
+    private int meeting;
+
+    /**
+     * Create a StreetSearcher object that saves its hierarchy next to the
+     * data file.
+     *
+     * @param graph an implementation of Graph ADT.
+     */
+    public ContractionHierarchyStreetSearcher(Graph<String, String> graph) {
+        this(graph, null);
+    }
+
+    /**
+     * Create a StreetSearcher object.
+     *
+     * @param graph         an implementation of Graph ADT.
+     * @param hierarchyFile where to save and look for the hierarchy, or null
+     *                      for a file next to the data file (if there is one).
+     */
+    public ContractionHierarchyStreetSearcher(Graph<String, String> graph, File hierarchyFile) {
+        super(graph);
+        this.hierarchyFile = hierarchyFile;
+    }
+
+    @Override
+    public void loadNetwork(File data) throws FileNotFoundException {
+        dataFile = data;
+        super.loadNetwork(data);
+    }
+
+    @Override
+    protected void networkLoaded() {
+        File file = hierarchyFile;
+        if (file == null && dataFile != null) {
+            file = new File(dataFile.getPath() + ".ch");
+        }
+        hierarchy = roadArrays().loadOrBuild(file, ContractionHierarchy::read, saved -> true,
+                roads -> ContractionHierarchy.build(roads.numVertices, roads.from, roads.to, roads.weight),
+                "contraction hierarchy");
+        forward = new Frontier(hierarchy.up);
+        backward = new Frontier(hierarchy.down);
+    }
+
+    /**
+     * The hierarchy built or loaded for the current network.
+     *
+     * @return the contraction hierarchy.
+     */
+    public ContractionHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    @Override
+    public void findShortestPath(String startName, String endName) {
+        Vertex<String> start = location(startName);
+        Vertex<String> end = location(endName);
+        if (answerFromCache(start, end)) {
+            return;
+        }
+
+        double totalDist = search(indexOf(start), indexOf(end));
+
+        List<Edge<String>> path = null;
+        if (best < Double.MAX_VALUE && start != end) {
+            labelPath(unpackPath());
+            path = getPath(end, start);
+            totalDist = pathLength(path);
+        }
+        pathFound(start, end, path, totalDist);
+    }
+
+    private double search(int startId, int endId) {
+        clearPath();
+        forward.reset(startId);
+        backward.reset(endId);
+        best = startId == endId ? 0.0 : Double.MAX_VALUE;
+        meeting = startId;
+        numSettled = 0;
+
+        // Each side stops once nothing left in its queue can improve on the best path
+        while (forward.canImprove() || backward.canImprove()) {
+            if (!backward.canImprove()
+                    || (forward.canImprove() && forward.queue.peekKey() <= backward.queue.peekKey())) {
+                forward.settleNext(backward);
+            } else {
+                backward.settleNext(forward);
+            }
+            numSettled++;
+        }
+        return best;
+    }
+
+    // Vertex ids along the best path from start to end, with shortcuts expanded
+    private int[] unpackPath() {
+        // The climb from the start is found backward, from the meeting vertex down
+        IntList climb = new IntList();
+        for (int v = meeting; v != forward.source; v = forward.parents[v]) {
+            climb.add(v);
+        }
+        IntList ids = new IntList();
+        ids.add(forward.source);
+        for (int i = climb.size - 1; i >= 0; i--) {
+            int to = climb.values[i];
+            unpack(forward.parents[to], to, hierarchy.up.middle[forward.arcIds[to]], ids);
+        }
+        for (int v = meeting; v != backward.source; v = backward.parents[v]) {
+            unpack(v, backward.parents[v], hierarchy.down.middle[backward.arcIds[v]], ids);
+        }
+        return ids.toArray();
+    }
+
+    // Append the original vertices of arc from -> to, bypassing middle if it's a shortcut
+    private void unpack(int from, int to, int middle, IntList ids) {
+        if (middle == ContractionHierarchy.ORIGINAL) {
+            ids.add(to);
+            return;
+        }
+        ContractionHierarchy.Arcs up = hierarchy.up;
+        ContractionHierarchy.Arcs down = hierarchy.down;
+        unpack(from, middle, down.middle[down.find(middle, from)], ids);
+        unpack(middle, to, up.middle[up.find(middle, to)], ids);
+    }
+
+    // Label each vertex on the path with the road into it
+    private void labelPath(int[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            labelRoad(roadBetween(locationAt(ids[i - 1]), locationAt(ids[i])));
+        }
+    }
+
+    // One direction of the search, climbing the hierarchy over one set of upward arcs
+    private final class Frontier {
+        final ContractionHierarchy.Arcs arcs;
+        int source;
+        final double[] distances;
+        final IndexedMinHeap queue;
+
+        // Previous vertex on each reached vertex's path, and the arc from it
+        final int[] parents;
+        final int[] arcIds;
+
+        final int[] touched;
+        int numTouched;
+
+        Frontier(ContractionHierarchy.Arcs arcs) {
+            int n = arcs.offsets.length - 1;
+            this.arcs = arcs;
+            distances = new double[n];
+            Arrays.fill(distances, Double.MAX_VALUE);
+            queue = new IndexedMinHeap(n);
+            parents = new int[n];
+            arcIds = new int[n];
+            touched = new int[n];
+        }
+
+        void reset(int sourceId) {
+            for (int i = 0; i < numTouched; i++) {
+                distances[touched[i]] = Double.MAX_VALUE;
+            }
+            numTouched = 0;
+            queue.clear();
+            source = sourceId;
+            reach(sourceId, 0.0, -1, -1);
+        }
+
+        boolean canImprove() {
+            return !queue.isEmpty() && queue.peekKey() < best;
+        }
+
+        void settleNext(Frontier other) {
+            int cur = queue.poll();
+            if (other.distances[cur] < Double.MAX_VALUE && distances[cur] + other.distances[cur] < best) {
+                best = distances[cur] + other.distances[cur];
+                meeting = cur;
+            }
+            for (int i = arcs.offsets[cur]; i < arcs.offsets[cur + 1]; i++) {
+                double newDistance = distances[cur] + arcs.weight[i];
+                if (newDistance < distances[arcs.other[i]]) {
+                    reach(arcs.other[i], newDistance, cur, i);
+                }
+            }
+        }
+
+        void reach(int id, double distance, int parent, int arc) {
+            if (distances[id] == Double.MAX_VALUE) {
+                touched[numTouched++] = id;
+            }
+            distances[id] = distance;
+            parents[id] = parent;
+            arcIds[id] = arc;
+            queue.push(id, distance);
+        }
+    }
+
+    // Growable list of ints
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
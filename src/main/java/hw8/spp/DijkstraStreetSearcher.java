@@ -1,96 +1,180 @@
 package hw8.spp;
 
+import hw8.graph.CsrGraph;
 import hw8.graph.Edge;
+import hw8.graph.EdgeVisitor;
 import hw8.graph.Graph;
 import hw8.graph.Vertex;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
 
 
 public class DijkstraStreetSearcher extends StreetSearcher {
-    private HashSet<Vertex<String>> explored;
-    private HashMap<Vertex<String>, Double> distances;
-    private PriorityQueue<Vertex<String>> distancesPQ;
+    private final boolean lazy;
+
+    // The graph again if it is a CsrGraph, whose vertex ids match ours after indexNetwork()
+    private final CsrGraph<String, String> compact;
+
+    // Distances, parents and queue of the current search, reused by every query
+    private SearchWorkspace workspace;
+    private int endId;
+
+    // Relaxes the edges out of the vertex being settled, made once so settling allocates nothing
+    private final EdgeVisitor<String, String> relaxer;
+    private int curId;
+    private double curDistance;
 
     /**
-     * Create a StreetSearcher object.
+     * Create a StreetSearcher object that settles the whole graph.
      *
      * @param graph an implementation of Graph ADT.
      */
     public DijkstraStreetSearcher(Graph<String, String> graph) {
+        this(graph, false);
+    }
+
+    /**
+     * Create a StreetSearcher object.
+     * <p>
+     * A lazy searcher seeds only the start vertex, stops as soon as the end
+     * is settled, and never reads or writes vertices beyond the frontier it
+     * explored. Distances and paths are the same in either mode.</p>
+     * <p>
+     * Either way, a search keeps its state in a SearchWorkspace that is
+     * reused by the next query without being cleared, and only the roads
+     * on the path found are recorded, so back-to-back queries on one
+     * searcher allocate nothing but the path.</p>
+     *
+     * @param graph an implementation of Graph ADT.
+     * @param lazy  true to search outward from the start and stop at the end.
+     */
+    public DijkstraStreetSearcher(Graph<String, String> graph, boolean lazy) {
         super(graph);
-        explored = new HashSet<>();
-        distances = new HashMap<>();
-        distancesPQ = new PriorityQueue<>(11, new VertexComparator());
+        this.lazy = lazy;
+        compact = graph instanceof CsrGraph ? (CsrGraph<String, String>) graph : null;
+        workspace = new SearchWorkspace(0);
+        relaxer = this::relax;
     }
 
     @Override
     public void findShortestPath(String startName, String endName) {
-        Vertex<String> start = vertices.get(startName);
-        Vertex<String> end = vertices.get(endName);
+        Vertex<String> start = location(startName);
+        Vertex<String> end = location(endName);
+        if (answerFromCache(start, end)) {
+            return;
+        }
+        if (estimate(indexOf(start), indexOf(end)) == Double.POSITIVE_INFINITY) {
+            // The estimate already shows there is no path, so there is nothing to search
+            numSettled = 0;
+            clearPath();
+            pathFound(start, end, null, Double.MAX_VALUE);
+            return;
+        }
 
         double totalDist = dijkstra(start, end);
+        labelPath();
 
         // These method calls will create and print the path
         List<Edge<String>> path = getPath(end, start);
-        if (VERBOSE) {
-            printPath(path, totalDist);
-        }
+        pathFound(start, end, path, totalDist);
+    }
+
+    /**
+     * Lower bound on the distance from a vertex to the end of the search,
+     * added to its priority in the queue. Dijkstra's algorithm uses none;
+     * goal-directed subclasses override this. The estimate must never
+     * exceed the true remaining distance; if it can drop by more than an
+     * edge's length along that edge, vertices may be settled more than once.
+     * An infinite estimate means the end cannot be reached from the vertex,
+     * which is then never queued.
+     *
+     * @param id    id of the vertex being queued.
+     * @param endId id of the end vertex.
+     * @return a lower bound on the remaining distance, 0 by default.
+     */
+    protected double estimate(int id, int endId) {
+        return 0.0;
     }
 
     private double dijkstra(Vertex<String> start, Vertex<String> end) {
-        // Initialize previous to null and distance to infinity
-        for (Vertex<String> v : graph.vertices()) {
-            if (v.equals(start)) {
-                distances.put(start, 0.0);
-            } else {
-                distances.put(v, Double.MAX_VALUE);
+        if (workspace.size() != numLocations()) {
+            workspace = new SearchWorkspace(numLocations());
+        }
+        workspace.begin();
+        numSettled = 0;
+        int startId = indexOf(start);
+        endId = indexOf(end);
+        if (lazy) {
+            reach(startId, 0.0, SearchWorkspace.NO_PARENT);
+        } else {
+            // Initialize distance to infinity
+            for (Vertex<String> v : graph.vertices()) {
+                int id = indexOf(v);
+                reach(id, id == startId ? 0.0 : Double.MAX_VALUE, SearchWorkspace.NO_PARENT);
             }
+        }
 
-            graph.label(v, null);
-            distancesPQ.add(v);
+        IndexedMinHeap queue = workspace.queue();
+        while (!queue.isEmpty()) {
+            int curId = queue.poll();
+            numSettled++;
+            if (lazy && curId == endId) {
+                break;
+            }
+            if (compact != null) {
+                navigateCompact(curId);
+            } else {
+                navigateEdges(curId);
+            }
         }
 
-        while (!distancesPQ.isEmpty()) {
-            Vertex<String> curVertex = distancesPQ.poll();
-            explored.add(curVertex);
-            navigateEdges(curVertex);
+        return workspace.distance(endId);
+    }
+
+    // Record a tentative distance for a vertex and queue it
+    private void reach(int id, double distance, int parentId) {
+        double bound = estimate(id, endId);
+        if (bound != Double.POSITIVE_INFINITY) {
+            workspace.reach(id, distance, parentId, distance + bound);
         }
+    }
 
-        return distances.get(end);
+    private void navigateEdges(int id) {
+        curId = id;
+        curDistance = workspace.distance(id);
+        graph.forEachOutgoing(locationAt(id), relaxer);
     }
 
-    private void navigateEdges(Vertex<String> curVertex) {
-        for (Edge<String> adjEdge : graph.outgoing(curVertex)) {
-            Vertex<String> adjVertex = graph.to(adjEdge);
+    private void relax(Edge<String> adjEdge, Vertex<String> adjVertex, double weight) {
+        int adjId = indexOf(adjVertex);
 
-            if (!explored.contains(adjVertex)) {
-                double oldDistance = distances.get(adjVertex);
-                double newDistance = distances.get(curVertex) + (double) (graph.label(adjEdge));
-                if (newDistance < oldDistance) {
-                    distances.put(adjVertex, newDistance);
-                    graph.label(adjVertex, adjEdge);
+        // Never true for a settled vertex unless the estimate is inconsistent,
+        // in which case the vertex is queued again
+        double newDistance = curDistance + weight;
+        if (newDistance < workspace.distance(adjId)) {
+            reach(adjId, newDistance, curId);
+        }
+    }
 
-                    distancesPQ.remove(adjVertex);
-                    distancesPQ.add(adjVertex);
-                }
+    // Same as navigateEdges, reading the compact graph's arrays directly
+    private void navigateCompact(int curId) {
+        double curDistance = workspace.distance(curId);
+        for (int e = compact.outStart(curId); e < compact.outEnd(curId); e++) {
+            int adjId = compact.target(e);
+            double newDistance = curDistance + compact.weight(e);
+            if (newDistance < workspace.distance(adjId)) {
+                reach(adjId, newDistance, curId);
             }
         }
     }
 
-    private class VertexComparator implements Comparator<Vertex<String>> {
-        @Override
-        public int compare(Vertex<String> o1, Vertex<String> o2) {
-            if (distances.get(o1) < distances.get(o2)) {
-                return -1;
-            } else if (distances.get(o1) > distances.get(o2)) {
-                return 1;
-            }
-            return 0;
+    // Label each vertex on the path to the end with the road into it, for getPath
+    private void labelPath() {
+        clearPath();
+        for (int id = endId; workspace.parent(id) != SearchWorkspace.NO_PARENT; id = workspace.parent(id)) {
+            labelRoad(compact != null
+                    ? compact.edge(compact.edgeId(workspace.parent(id), id))
+                    : roadBetween(locationAt(workspace.parent(id)), locationAt(id)));
         }
     }
 }
@@ -0,0 +1,184 @@
+package hw8.spp;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shortest distances from many sources to many targets on a RoadNetwork.
+ * <p>
+ * Each source takes a single one-to-many Dijkstra search, which stops as
+ * soon as every target has been settled, so a table costs one search per
+ * source rather than one per pair. The sources are split between the
+ * threads of a ForkJoinPool and each search writes only its own row of
+ * the table. As in RoutePlanner, a row searches in a SearchWorkspace taken
+ * from a pool and given back when the row is done. The pool keeps one per
+ * thread of the ForkJoinPool, plus one for the calling thread. It belongs
+ * to this object, so the workspaces are freed with it instead of staying
+ * on the pool's threads, which may live as long as the JVM.</p>
+ */
+public final class DistanceMatrix {
+    // Below this many sources a task searches them itself instead of splitting
+    private static final int SOURCES_PER_TASK = 4;
+
+    private final RoadNetwork network;
+    private final ForkJoinPool pool;
+    private final BlockingQueue<SearchWorkspace> workspaces;
+    private final AtomicInteger workspacesCreated = new AtomicInteger();
+
+    /**
+     * Create a matrix builder that runs on the common ForkJoinPool.
+     *
+     * @param network the network to measure distances on.
+     */
+    public DistanceMatrix(RoadNetwork network) {
+        this(network, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a matrix builder.
+     *
+     * @param network the network to measure distances on.
+     * @param pool    the pool to run the searches in.
+     */
+    public DistanceMatrix(RoadNetwork network, ForkJoinPool pool) {
+        this.network = network;
+        this.pool = pool;
+        // The thread that calls compute() may search rows too while it waits
+        workspaces = new ArrayBlockingQueue<>(pool.getParallelism() + 1);
+    }
+
+    /**
+     * Number of search workspaces made so far. It stays at most one more
+     * than the parallelism of the pool while one table is computed at a time.
+     *
+     * @return workspace count.
+     */
+    public int getWorkspacesCreated() {
+        return workspacesCreated.get();
+    }
+
+    /**
+     * Shortest distance from every source to every target. Coordinates that
+     * are not an endpoint are snapped to the nearest one.
+     *
+     * @param sources names or coordinates of the sources.
+     * @param targets names or coordinates of the targets.
+     * @return table where [i][j] is the distance from source i to target j,
+     *     or Double.POSITIVE_INFINITY if they are not connected.
+     * @throws IllegalArgumentException if an endpoint cannot be found.
+     */
+    public double[][] compute(List<String> sources, List<String> targets) {
+        return compute(locateAll(sources), locateAll(targets));
+    }
+
+    /**
+     * Shortest distance from every source to every target.
+     *
+     * @param sources vertex ids of the sources.
+     * @param targets vertex ids of the targets.
+     * @return table where [i][j] is the distance from source i to target j,
+     *     or Double.POSITIVE_INFINITY if they are not connected.
+     * @throws IllegalArgumentException if an id is out of range.
+     */
+    public double[][] compute(int[] sources, int[] targets) {
+        checkIds(sources);
+        checkIds(targets);
+        boolean[] isTarget = new boolean[network.numVertices()];
+        int numTargets = 0;
+        for (int t : targets) {
+            if (!isTarget[t]) {
+                isTarget[t] = true;
+                numTargets++;
+            }
+        }
+        double[][] table = new double[sources.length][targets.length];
+        if (numTargets == 0) {
+            return table;
+        }
+        pool.invoke(new Rows(sources, targets, isTarget, numTargets, table, 0, sources.length));
+        return table;
+    }
+
+    private int[] locateAll(List<String> names) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = network.locate(names.get(i));
+            if (ids[i] < 0) {
+                throw new IllegalArgumentException("Invalid Endpoint: " + names.get(i));
+            }
+        }
+        return ids;
+    }
+
+    private void checkIds(int[] ids) {
+        for (int id : ids) {
+            if (id < 0 || id >= network.numVertices()) {
+                throw new IllegalArgumentException("Invalid Endpoint: " + id);
+            }
+        }
+    }
+
+    // Fill one row: Dijkstra from the source until every target is settled
+    private void searchRow(int source, int[] targets, boolean[] isTarget, int numTargets, double[] row) {
+        SearchWorkspace workspace = takeWorkspace();
+        try {
+            int[] remaining = {numTargets};
+            workspace.search(network.getGraph(), source, v -> isTarget[v] && --remaining[0] == 0);
+            // Every reached target has been settled: either all were, or the queue ran dry
+            for (int j = 0; j < targets.length; j++) {
+                row[j] = workspace.reached(targets[j]) ? workspace.distance(targets[j]) : Double.POSITIVE_INFINITY;
+            }
+        } finally {
+            workspaces.offer(workspace);
+        }
+    }
+
+    private SearchWorkspace takeWorkspace() {
+        SearchWorkspace workspace = workspaces.poll();
+        if (workspace == null) {
+            workspacesCreated.incrementAndGet();
+            workspace = new SearchWorkspace(network.numVertices());
+        }
+        return workspace;
+    }
+
+    // The rows of sources [lo, hi), halved until small enough to search directly
+    private final class Rows extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] sources;
+        private final int[] targets;
+        private final boolean[] isTarget;
+        private final int numTargets;
+        private final double[][] table;
+        private final int lo;
+        private final int hi;
+
+        Rows(int[] sources, int[] targets, boolean[] isTarget, int numTargets, double[][] table, int lo, int hi) {
+            this.sources = sources;
+            this.targets = targets;
+            this.isTarget = isTarget;
+            this.numTargets = numTargets;
+            this.table = table;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SOURCES_PER_TASK) {
+                for (int i = lo; i < hi; i++) {
+                    searchRow(sources[i], targets, isTarget, numTargets, table[i]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new Rows(sources, targets, isTarget, numTargets, table, lo, mid),
+                    new Rows(sources, targets, isTarget, numTargets, table, mid, hi));
+        }
+    }
+}
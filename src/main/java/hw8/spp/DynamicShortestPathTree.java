@@ -0,0 +1,246 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.EdgeWeights;
+
+import java.util.Arrays;
+
+/**
+ * Shortest paths from one source to every vertex of a CsrGraph, kept up to
+ * date as edge weights change. The graph itself is never changed: the
+ * weights come from an EdgeWeights, such as the GraphVersion a
+ * VersionedGraph publishes for each batch of traffic updates.
+ * <p>
+ * Given the next weights and the edges whose weight changed to get there,
+ * update() repairs the tree in the way of Ramalingam
+ * and Reps. Vertices below an edge of the tree that got longer lose their
+ * distances. Each one takes the best distance it can get from an edge
+ * out of the rest of the tree. Ends of edges that got shorter are offered
+ * the shorter distance. Dijkstra's algorithm then runs from those
+ * vertices only. A small change near the edge of the map costs time in
+ * proportion to the vertices whose paths change, not a whole search. To
+ * find the vertices below an edge, every vertex keeps a list of the
+ * vertices it is the parent of.</p>
+ * <p>
+ * A tree is not thread-safe. toTree() makes an immutable copy to share or
+ * cache.</p>
+ */
+public final class DynamicShortestPathTree {
+    private static final int NONE = -1;
+
+    private final CsrGraph<String, String> graph;
+    private EdgeWeights weights;
+    private final int source;
+    private final double[] distances;
+    private final int[] parentEdges;
+
+    // Children of each vertex in the tree, as a doubly linked list through the siblings
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] prevSibling;
+
+    // Scratch space for update()
+    private final boolean[] affected;
+    private final int[] affectedList;
+    private final IndexedMinHeap queue;
+
+    /**
+     * Run Dijkstra's algorithm from a source until every reachable vertex
+     * is settled.
+     *
+     * @param graph   the graph.
+     * @param weights weight of each edge id of the graph, e.g. the graph
+     *                itself or a GraphVersion of it.
+     * @param source  vertex id to start from.
+     */
+    public DynamicShortestPathTree(CsrGraph<String, String> graph, EdgeWeights weights, int source) {
+        this(graph, ShortestPathTree.compute(graph, weights, source, new SearchWorkspace(graph.numVertices())));
+    }
+
+    /**
+     * Start from a computed tree, with the weights it was computed with.
+     *
+     * @param graph the graph the tree was computed on.
+     * @param tree  the tree.
+     */
+    public DynamicShortestPathTree(CsrGraph<String, String> graph, ShortestPathTree tree) {
+        int n = graph.numVertices();
+        this.graph = graph;
+        weights = tree.getWeights();
+        source = tree.getSource();
+        distances = new double[n];
+        parentEdges = new int[n];
+        firstChild = new int[n];
+        nextSibling = new int[n];
+        prevSibling = new int[n];
+        affected = new boolean[n];
+        affectedList = new int[n];
+        queue = new IndexedMinHeap(n);
+
+        Arrays.fill(firstChild, NONE);
+        for (int v = 0; v < n; v++) {
+            distances[v] = tree.distance(v);
+            parentEdges[v] = ShortestPathTree.NO_EDGE;
+            setParent(v, tree.parentEdge(v));
+        }
+    }
+
+    /**
+     * Weights the tree follows now.
+     *
+     * @return the weights it was computed with or last updated to.
+     */
+    public EdgeWeights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Vertex the paths start from.
+     *
+     * @return source vertex id.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Length of the shortest path to a vertex.
+     *
+     * @param v vertex id.
+     * @return its distance, or Double.POSITIVE_INFINITY if it is unreachable.
+     */
+    public double distance(int v) {
+        return distances[v];
+    }
+
+    /**
+     * Last edge of the shortest path to a vertex.
+     *
+     * @param v vertex id.
+     * @return CsrGraph edge id, or ShortestPathTree.NO_EDGE for the source
+     *     and unreachable vertices.
+     */
+    public int parentEdge(int v) {
+        return parentEdges[v];
+    }
+
+    /**
+     * Copy of the tree as it is now.
+     *
+     * @return an immutable tree, with the number of vertices settled set to 0.
+     */
+    public ShortestPathTree toTree() {
+        return new ShortestPathTree(weights, source, parentEdges.clone(), distances.clone(), 0);
+    }
+
+    /**
+     * Repair the tree for new weights. Pass every edge whose weight differs
+     * from the weights the tree follows now, in any order, e.g. the edges
+     * of the batch that was published to make the new version; passing an
+     * unchanged edge costs little.
+     *
+     * @param next         the new weights.
+     * @param changedEdges CsrGraph edge ids.
+     * @return number of vertices whose distance was found again.
+     */
+    public int update(EdgeWeights next, int... changedEdges) {
+        weights = next;
+        // Vertices whose path uses an edge that got longer start over
+        int numAffected = 0;
+        for (int e : changedEdges) {
+            int v = graph.target(e);
+            if (parentEdges[v] == e && !affected[v]
+                    && !(distances[graph.source(e)] + weights.weight(e) <= distances[v])) {
+                numAffected = collectSubtree(v, numAffected);
+            }
+        }
+        for (int i = 0; i < numAffected; i++) {
+            int v = affectedList[i];
+            setParent(v, ShortestPathTree.NO_EDGE);
+            distances[v] = Double.POSITIVE_INFINITY;
+        }
+
+        // Each takes its best edge from the rest of the tree
+        for (int i = 0; i < numAffected; i++) {
+            int v = affectedList[i];
+            for (int slot = graph.inStart(v); slot < graph.inEnd(v); slot++) {
+                int e = graph.inEdge(slot);
+                int u = graph.source(e);
+                if (!affected[u]) {
+                    offer(v, e, distances[u] + weights.weight(e));
+                }
+            }
+        }
+        // And edges that got shorter offer their ends a shorter path
+        for (int e : changedEdges) {
+            int u = graph.source(e);
+            if (!affected[u]) {
+                offer(graph.target(e), e, distances[u] + weights.weight(e));
+            }
+        }
+        for (int i = 0; i < numAffected; i++) {
+            affected[affectedList[i]] = false;
+        }
+
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int cur = queue.poll();
+            settled++;
+            for (int e = graph.outStart(cur); e < graph.outEnd(cur); e++) {
+                offer(graph.target(e), e, distances[cur] + weights.weight(e));
+            }
+        }
+        return settled;
+    }
+
+    // Mark a vertex and every vertex below it in the tree, adding them to affectedList
+    private int collectSubtree(int root, int numAffected) {
+        int first = numAffected;
+        affected[root] = true;
+        affectedList[numAffected++] = root;
+        for (int i = first; i < numAffected; i++) {
+            for (int child = firstChild[affectedList[i]]; child != NONE; child = nextSibling[child]) {
+                if (!affected[child]) {
+                    affected[child] = true;
+                    affectedList[numAffected++] = child;
+                }
+            }
+        }
+        return numAffected;
+    }
+
+    // Take a path to v through edge e if it is shorter, and queue v to pass it on
+    private void offer(int v, int e, double distance) {
+        if (distance < distances[v]) {
+            distances[v] = distance;
+            setParent(v, e);
+            queue.push(v, distance);
+        }
+    }
+
+    // Move v under the start of edge e in the tree, or out of it for NO_EDGE
+    private void setParent(int v, int e) {
+        int old = parentEdges[v];
+        if (old != ShortestPathTree.NO_EDGE) {
+            if (prevSibling[v] == NONE) {
+                firstChild[graph.source(old)] = nextSibling[v];
+            } else {
+                nextSibling[prevSibling[v]] = nextSibling[v];
+            }
+            if (nextSibling[v] != NONE) {
+                prevSibling[nextSibling[v]] = prevSibling[v];
+            }
+        }
+        parentEdges[v] = e;
+        nextSibling[v] = NONE;
+        prevSibling[v] = NONE;
+        if (e != ShortestPathTree.NO_EDGE) {
+            int parent = graph.source(e);
+            nextSibling[v] = firstChild[parent];
+            if (firstChild[parent] != NONE) {
+                prevSibling[firstChild[parent]] = v;
+            }
+            firstChild[parent] = v;
+        }
+    }
+}
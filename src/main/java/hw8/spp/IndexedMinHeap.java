@@ -0,0 +1,178 @@
+package hw8.spp;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap over the integers 0..capacity-1 with primitive double
+ * priorities.
+ * <p>
+ * Every item remembers its slot in the heap array, so decreasing the
+ * priority of an item already in the heap is an O(log n) sift-up instead
+ * of the linear scan done by PriorityQueue.remove(Object).</p>
+ */
+public final class IndexedMinHeap {
+    private static final int ABSENT = -1;
+
+    private int[] heap;      // heap slot -> item
+    private int[] slots;     // item -> heap slot, or ABSENT
+    private double[] keys;   // item -> priority
+    private int size;
+
+    /**
+     * Create an empty heap for items 0..capacity-1.
+     *
+     * @param capacity number of distinct items the heap can hold.
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        slots = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(slots, ABSENT);
+    }
+
+    /**
+     * Number of items in the heap.
+     *
+     * @return the size of the heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the heap is empty.
+     *
+     * @return true if there are no items in the heap.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Check whether an item is in the heap.
+     *
+     * @param item item to look for.
+     * @return true if the item is waiting in the heap.
+     */
+    public boolean contains(int item) {
+        return slots[item] != ABSENT;
+    }
+
+    /**
+     * Priority of an item in the heap.
+     *
+     * @param item item to look up.
+     * @return its current priority.
+     * @throws NoSuchElementException if the item is not in the heap.
+     */
+    public double key(int item) {
+        if (!contains(item)) {
+            throw new NoSuchElementException();
+        }
+        return keys[item];
+    }
+
+    /**
+     * Insert an item, or lower its priority if it is already in the heap.
+     * A priority higher than the current one is ignored.
+     *
+     * @param item item to insert.
+     * @param key  its priority.
+     */
+    public void push(int item, double key) {
+        int slot = slots[item];
+        if (slot == ABSENT) {
+            slot = size++;
+            heap[slot] = item;
+            slots[item] = slot;
+        } else if (key >= keys[item]) {
+            return;
+        }
+        keys[item] = key;
+        siftUp(slot);
+    }
+
+    /**
+     * Priority of the minimum item.
+     *
+     * @return the smallest priority in the heap.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public double peekKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[heap[0]];
+    }
+
+    /**
+     * Remove the minimum item.
+     *
+     * @return the item with the smallest priority.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int min = heap[0];
+        slots[min] = ABSENT;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            slots[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Remove all items. Takes time proportional to the size of the heap,
+     * not its capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            slots[heap[i]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int item = heap[slot];
+        double key = keys[item];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            int parentItem = heap[parent];
+            if (keys[parentItem] <= key) {
+                break;
+            }
+            heap[slot] = parentItem;
+            slots[parentItem] = slot;
+            slot = parent;
+        }
+        heap[slot] = item;
+        slots[item] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int item = heap[slot];
+        double key = keys[item];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            heap[slot] = heap[child];
+            slots[heap[slot]] = slot;
+            slot = child;
+        }
+        heap[slot] = item;
+        slots[item] = slot;
+    }
+}
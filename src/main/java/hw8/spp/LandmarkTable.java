@@ -0,0 +1,322 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Distances from and to a few landmark vertices of a road network, for
+ * A* with landmarks and the triangle inequality (ALT).
+ * <p>
+ * For any landmark L, the distance from v to t is at least
+ * d(L, t) - d(L, v) and at least d(v, L) - d(t, L). The best of these over
+ * all landmarks is a lower bound that follows the roads, so it sees rivers
+ * and highways that a straight line does not, and it is much tighter when
+ * the landmarks lie beyond the ends of a query.</p>
+ * <p>
+ * Landmarks are picked by farthest-point selection within the largest
+ * connected piece of the network, so a small island of road cannot take
+ * them. The first is the vertex farthest from the piece's lowest vertex.
+ * Each next one is the vertex farthest from all landmarks so far, which
+ * spreads them around the edge of the map. Only if the piece has fewer
+ * vertices than landmarks wanted do the rest go to the next largest piece,
+ * and so on. This needs the distances from each landmark before the next
+ * can be picked; the distances to the landmarks are then found in
+ * parallel. Both are ShortestPathTrees over CsrGraphs of the roads and of
+ * the roads reversed. Distances are kept interleaved by vertex, so one
+ * bound reads one short run of memory.</p>
+ */
+public final class LandmarkTable implements SavedIndex {
+    private static final int MAGIC = 0x414c5431;  // "ALT1"
+
+    // Each bound gives up this fraction of itself, so rounding in the sums never makes it overestimate
+    private static final double SLACK = 1e-9;
+
+    final long fingerprint;
+    private final int[] landmarks;
+    private final double[] fromLandmarks;  // [v * k + i]: distance from landmark i to v
+    private final double[] toLandmarks;    // [v * k + i]: distance from v to landmark i
+
+    private LandmarkTable(long fingerprint, int[] landmarks, double[] fromLandmarks, double[] toLandmarks) {
+        this.fingerprint = fingerprint;
+        this.landmarks = landmarks;
+        this.fromLandmarks = fromLandmarks;
+        this.toLandmarks = toLandmarks;
+    }
+
+    /**
+     * Pick landmarks and find the distances from and to them, using all
+     * available cores for the latter.
+     *
+     * @param numVertices  number of vertices, with ids 0..numVertices-1.
+     * @param from         source vertex of each edge.
+     * @param to           target vertex of each edge.
+     * @param weight       length of each edge.
+     * @param numLandmarks number of landmarks wanted; fewer are picked if
+     *                     there are fewer vertices.
+     * @return the table.
+     */
+    public static LandmarkTable build(int numVertices, int[] from, int[] to, double[] weight, int numLandmarks) {
+        int k = Math.min(numLandmarks, numVertices);
+        CsrGraph<String, String> forward = graph(numVertices, from, to, weight);
+        CsrGraph<String, String> backward = graph(numVertices, to, from, weight);
+
+        // Farthest-point selection, in the largest piece first and in smaller ones only if it runs out
+        int[] piece = pieces(numVertices, from, to);
+        int[] landmarks = new int[k];
+        double[][] fromEach = new double[k][];
+        boolean[] isLandmark = new boolean[numVertices];
+        int picked = 0;
+        for (int seed : seedsBySize(piece)) {
+            if (picked == k) {
+                break;
+            }
+            picked = pickLandmarks(forward, piece, seed, isLandmark, landmarks, fromEach, picked);
+        }
+
+        double[][] toEach = new double[k][];
+        IntStream.range(0, k).parallel().forEach(i ->
+                toEach[i] = distancesFrom(backward, landmarks[i], new SearchWorkspace(numVertices)));
+
+        double[] fromLandmarks = new double[numVertices * k];
+        double[] toLandmarks = new double[numVertices * k];
+        for (int i = 0; i < k; i++) {
+            for (int v = 0; v < numVertices; v++) {
+                fromLandmarks[v * k + i] = fromEach[i][v];
+                toLandmarks[v * k + i] = toEach[i][v];
+            }
+        }
+        return new LandmarkTable(ContractionHierarchy.fingerprint(numVertices, from, to, weight),
+                landmarks, fromLandmarks, toLandmarks);
+    }
+
+    // Pick landmarks in the piece of a seed vertex, each farthest from those before, until the
+    // piece or the landmarks run out; returns the number picked so far in all pieces
+    private static int pickLandmarks(CsrGraph<String, String> forward, int[] piece, int seed, boolean[] isLandmark,
+                                     int[] landmarks, double[][] fromEach, int picked) {
+        SearchWorkspace workspace = new SearchWorkspace(piece.length);
+        // Distance to the nearest landmark, from the seed alone until the first one is picked
+        double[] nearest = distancesFrom(forward, seed, workspace);
+        for (int first = picked; picked < landmarks.length; picked++) {
+            int farthest = -1;
+            for (int v = 0; v < piece.length; v++) {
+                if (piece[v] == piece[seed] && !isLandmark[v]
+                        && (farthest < 0 || nearest[v] > nearest[farthest])) {
+                    farthest = v;
+                }
+            }
+            if (farthest < 0) {
+                break;
+            }
+            landmarks[picked] = farthest;
+            isLandmark[farthest] = true;
+            fromEach[picked] = distancesFrom(forward, farthest, workspace);
+            if (picked == first) {
+                nearest = fromEach[picked].clone();  // the seed itself is no landmark
+            } else {
+                for (int v = 0; v < nearest.length; v++) {
+                    nearest[v] = Math.min(nearest[v], fromEach[picked][v]);
+                }
+            }
+        }
+        return picked;
+    }
+
+    // Connected piece of each vertex, whichever way its roads go, named by its lowest vertex
+    private static int[] pieces(int numVertices, int[] from, int[] to) {
+        int[] parent = new int[numVertices];
+        for (int v = 0; v < numVertices; v++) {
+            parent[v] = v;
+        }
+        for (int e = 0; e < from.length; e++) {
+            int a = root(parent, from[e]);
+            int b = root(parent, to[e]);
+            parent[Math.max(a, b)] = Math.min(a, b);
+        }
+        for (int v = 0; v < numVertices; v++) {
+            parent[v] = root(parent, v);
+        }
+        return parent;
+    }
+
+    private static int root(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    // The lowest vertex of each piece, largest piece first
+    private static int[] seedsBySize(int[] piece) {
+        int[] size = new int[piece.length];
+        for (int p : piece) {
+            size[p]++;
+        }
+        return IntStream.range(0, piece.length).filter(v -> piece[v] == v).boxed()
+                .sorted((a, b) -> size[a] != size[b] ? Integer.compare(size[b], size[a]) : Integer.compare(a, b))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    // The roads as a CsrGraph, without loops and with only the shortest of any repeated road
+    private static CsrGraph<String, String> graph(int numVertices, int[] from, int[] to, double[] weight) {
+        Map<Long, Integer> shortest = new HashMap<>();
+        for (int e = 0; e < from.length; e++) {
+            if (from[e] != to[e]) {
+                shortest.merge(((long) from[e] << 32) | to[e], e, (a, b) -> weight[b] < weight[a] ? b : a);
+            }
+        }
+        CsrGraph.Builder<String, String> builder = new CsrGraph.Builder<>();
+        for (int v = 0; v < numVertices; v++) {
+            builder.addVertex(Integer.toString(v));
+        }
+        for (int e = 0; e < from.length; e++) {
+            if (from[e] != to[e] && shortest.get(((long) from[e] << 32) | to[e]) == e) {
+                builder.addEdge(from[e], to[e], null, weight[e]);
+            }
+        }
+        return builder.build();
+    }
+
+    // Distance from a source to every vertex, infinite for those it cannot reach
+    private static double[] distancesFrom(CsrGraph<String, String> graph, int source, SearchWorkspace workspace) {
+        ShortestPathTree tree = ShortestPathTree.compute(graph, source, workspace);
+        double[] distances = new double[graph.numVertices()];
+        for (int v = 0; v < distances.length; v++) {
+            distances[v] = tree.distance(v);
+        }
+        return distances;
+    }
+
+    /**
+     * Number of landmarks.
+     *
+     * @return landmark count.
+     */
+    public int numLandmarks() {
+        return landmarks.length;
+    }
+
+    /**
+     * Vertex a landmark is at.
+     *
+     * @param i landmark index, 0 to numLandmarks() - 1.
+     * @return its vertex id.
+     */
+    public int landmark(int i) {
+        return landmarks[i];
+    }
+
+    @Override
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Number of vertices the table covers.
+     *
+     * @return vertex count.
+     */
+    @Override
+    public int numVertices() {
+        return landmarks.length == 0 ? 0 : fromLandmarks.length / landmarks.length;
+    }
+
+    /**
+     * Lower bound on the distance between two vertices.
+     *
+     * @param v start vertex id.
+     * @param t end vertex id.
+     * @return a distance never more than the shortest path from v to t,
+     *     and at least 0.
+     */
+    public double lowerBound(int v, int t) {
+        int k = landmarks.length;
+        double best = 0.0;
+        for (int i = 0, vi = v * k, ti = t * k; i < k; i++, vi++, ti++) {
+            // Unreachable landmarks bound nothing, and inf - inf would be NaN
+            double fromL = fromLandmarks[ti] - fromLandmarks[vi];
+            if (fromL > best && fromLandmarks[vi] != Double.POSITIVE_INFINITY) {
+                best = fromL;
+            }
+            double toL = toLandmarks[vi] - toLandmarks[ti];
+            if (toL > best && toLandmarks[ti] != Double.POSITIVE_INFINITY) {
+                best = toL;
+            }
+        }
+        return best == Double.POSITIVE_INFINITY ? best : best * (1 - SLACK);
+    }
+
+    /**
+     * Save the table.
+     *
+     * @param file file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    @Override
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeLong(fingerprint);
+            out.writeInt(landmarks.length);
+            out.writeInt(numVertices());
+            for (int landmark : landmarks) {
+                out.writeInt(landmark);
+            }
+            for (int i = 0; i < fromLandmarks.length; i++) {
+                out.writeDouble(fromLandmarks[i]);
+                out.writeDouble(toLandmarks[i]);
+            }
+        }
+    }
+
+    /**
+     * Load a table saved by write().
+     *
+     * @param file file to read.
+     * @return the table.
+     * @throws IOException if the file cannot be read, is not a landmark
+     *     table, or its counts do not fit its length.
+     */
+    public static LandmarkTable read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a landmark table: " + file);
+            }
+            long fingerprint = in.readLong();
+            // The counts must give exactly the file's length before anything that size is made
+            int k = in.readInt();
+            int numVertices = in.readInt();
+            if (k < 0 || numVertices < 0 || (long) numVertices * k > Integer.MAX_VALUE
+                    || 20 + 4L * k + 16L * numVertices * k != file.length()) {
+                throw new IOException("Corrupt landmark table: " + file);
+            }
+            int[] landmarks = new int[k];
+            for (int i = 0; i < landmarks.length; i++) {
+                landmarks[i] = in.readInt();
+                if (landmarks[i] < 0 || landmarks[i] >= numVertices) {
+                    throw new IOException("Corrupt landmark table: " + file);
+                }
+            }
+            double[] fromLandmarks = new double[numVertices * k];
+            double[] toLandmarks = new double[fromLandmarks.length];
+            for (int i = 0; i < fromLandmarks.length; i++) {
+                fromLandmarks[i] = in.readDouble();
+                toLandmarks[i] = in.readDouble();
+            }
+            return new LandmarkTable(fingerprint, landmarks, fromLandmarks, toLandmarks);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package hw8.spp;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Monotone radix heap over integer items with long priorities, for
+ * Dijkstra's algorithm on integer weights.
+ * <p>
+ * Items are kept in 65 buckets by the highest bit in which their priority
+ * differs from the last one polled. Polling only empties bucket 0 or
+ * splits the lowest non-empty bucket into lower ones, so each item moves
+ * at most 64 times over its life, and no priorities are compared along
+ * the way as a binary heap does.</p>
+ * <p>
+ * Priorities must never be lower than the last one polled, which holds
+ * for Dijkstra's algorithm on non-negative weights. There is no
+ * decrease-key: push an item again with its lower priority, and skip the
+ * stale copy when it is polled.</p>
+ */
+public final class RadixHeap {
+    private static final int NUM_BUCKETS = 65;
+
+    private final int[][] items;
+    private final long[][] keys;
+    private final int[] sizes;
+    private int size;
+    private long last;
+
+    /**
+     * Create an empty heap.
+     */
+    public RadixHeap() {
+        items = new int[NUM_BUCKETS][];
+        keys = new long[NUM_BUCKETS][];
+        sizes = new int[NUM_BUCKETS];
+        for (int b = 0; b < NUM_BUCKETS; b++) {
+            items[b] = new int[16];
+            keys[b] = new long[16];
+        }
+    }
+
+    /**
+     * Number of items in the heap, stale copies included.
+     *
+     * @return the size of the heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether the heap is empty.
+     *
+     * @return true if there are no items in the heap.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Insert an item.
+     *
+     * @param item item to insert.
+     * @param key  its priority, at least lastKey().
+     * @throws IllegalArgumentException if the priority is below lastKey().
+     */
+    public void push(int item, long key) {
+        if (key < last) {
+            throw new IllegalArgumentException("Priority " + key + " is below the last polled " + last);
+        }
+        add(bucket(key), item, key);
+        size++;
+    }
+
+    /**
+     * Remove an item with the minimum priority.
+     *
+     * @return the item.
+     * @throws NoSuchElementException if the heap is empty.
+     */
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        if (sizes[0] == 0) {
+            int b = 1;
+            while (sizes[b] == 0) {
+                b++;
+            }
+
+            // The lowest priority of the bucket becomes the last, and the rest spread below it
+            long min = Long.MAX_VALUE;
+            for (int i = 0; i < sizes[b]; i++) {
+                min = Math.min(min, keys[b][i]);
+            }
+            last = min;
+            for (int i = 0; i < sizes[b]; i++) {
+                add(bucket(keys[b][i]), items[b][i], keys[b][i]);
+            }
+            sizes[b] = 0;
+        }
+        size--;
+        return items[0][--sizes[0]];
+    }
+
+    /**
+     * Priority of the item polled last.
+     *
+     * @return that priority, or 0 before the first poll.
+     */
+    public long lastKey() {
+        return last;
+    }
+
+    /**
+     * Remove all items, and allow any priority again. Takes time
+     * proportional to the number of buckets, not the items.
+     */
+    public void clear() {
+        Arrays.fill(sizes, 0);
+        size = 0;
+        last = 0;
+    }
+
+    private int bucket(long key) {
+        return key == last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ last);
+    }
+
+    private void add(int b, int item, long key) {
+        if (sizes[b] == items[b].length) {
+            items[b] = Arrays.copyOf(items[b], 2 * sizes[b]);
+            keys[b] = Arrays.copyOf(keys[b], 2 * sizes[b]);
+        }
+        items[b][sizes[b]] = item;
+        keys[b][sizes[b]++] = key;
+    }
+}
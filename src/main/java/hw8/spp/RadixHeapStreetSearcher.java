@@ -0,0 +1,178 @@
+package hw8.spp;
+
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.Vertex;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dijkstra's algorithm on integer road lengths with a RadixHeap for its
+ * queue.
+ * <p>
+ * The data files give lengths in meters to at most four decimals, so when
+ * the network is loaded every length is turned into a whole number of
+ * tenths of a millimeter and the roads are copied into plain arrays by
+ * vertex id. For such lengths this is exact, and integer sums never round,
+ * so the distances found are the same as DijkstraStreetSearcher's. Only
+ * the choice between paths of exactly equal length may differ. The total
+ * printed is the sum of the original lengths along the path.</p>
+ * <p>
+ * Roads without a numeric length are left out, as the other searchers
+ * never take them either.</p>
+ */
+public class RadixHeapStreetSearcher extends StreetSearcher {
+    /** Units road lengths are counted in, per meter. */
+    public static final long UNITS_PER_METER = 10_000;
+
+    private static final int NO_ARC = -1;
+
+    // Roads by vertex id: the roads out of v are arcs outOffsets[v] to outOffsets[v + 1] - 1
+    private int[] outOffsets;
+    private int[] targets;
+    private long[] lengths;
+    private Edge<String>[] roads;
+
+    // Search state, stamped with the query that wrote it so nothing is cleared between queries
+    private long[] distances;
+    private int[] parentArcs;
+    private int[] stamps;
+    private int epoch;
+    private final RadixHeap queue;
+
+    /**
+     * Create a StreetSearcher object.
+     *
+     * @param graph an implementation of Graph ADT.
+     */
+    public RadixHeapStreetSearcher(Graph<String, String> graph) {
+        super(graph);
+        queue = new RadixHeap();
+        outOffsets = new int[1];
+        targets = new int[0];
+        lengths = new long[0];
+        distances = new long[0];
+        parentArcs = new int[0];
+        stamps = new int[0];
+    }
+
+    /**
+     * A road length in the units searches count in.
+     *
+     * @param meters length in meters.
+     * @return the nearest whole number of units, or -1 if the length is
+     *     not a non-negative number.
+     */
+    public static long quantize(double meters) {
+        if (!(meters >= 0.0) || Double.isInfinite(meters)) {
+            return -1;
+        }
+        return Math.round(meters * UNITS_PER_METER);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected void networkLoaded() {
+        int n = numLocations();
+        outOffsets = new int[n + 1];
+        for (Edge<String> road : graph.edges()) {
+            if (quantize(graph.weight(road)) >= 0) {
+                outOffsets[indexOf(graph.from(road)) + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            outOffsets[v + 1] += outOffsets[v];
+        }
+
+        int m = outOffsets[n];
+        targets = new int[m];
+        lengths = new long[m];
+        roads = (Edge<String>[]) new Edge[m];
+        int[] next = new int[n];
+        for (Edge<String> road : graph.edges()) {
+            long length = quantize(graph.weight(road));
+            if (length >= 0) {
+                int from = indexOf(graph.from(road));
+                int arc = outOffsets[from] + next[from]++;
+                targets[arc] = indexOf(graph.to(road));
+                lengths[arc] = length;
+                roads[arc] = road;
+            }
+        }
+
+        distances = new long[n];
+        parentArcs = new int[n];
+        stamps = new int[n];
+        epoch = 0;
+    }
+
+    @Override
+    public void findShortestPath(String startName, String endName) {
+        Vertex<String> start = location(startName);
+        Vertex<String> end = location(endName);
+        if (answerFromCache(start, end)) {
+            return;
+        }
+
+        int endId = indexOf(end);
+        search(indexOf(start), endId);
+        clearPath();
+
+        List<Edge<String>> path = null;
+        double totalDist = reached(endId) ? 0.0 : Double.POSITIVE_INFINITY;
+        if (reached(endId) && start != end) {
+            labelPath(endId);
+            path = getPath(end, start);
+            totalDist = pathLength(path);
+        }
+        pathFound(start, end, path, totalDist);
+    }
+
+    private boolean reached(int id) {
+        return stamps[id] == epoch;
+    }
+
+    private void search(int startId, int endId) {
+        if (++epoch == 0) {
+            // Stamps wrapped around; old ones could now look current
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+        queue.clear();
+        numSettled = 0;
+        stamps[startId] = epoch;
+        distances[startId] = 0;
+        parentArcs[startId] = NO_ARC;
+        queue.push(startId, 0);
+
+        while (!queue.isEmpty()) {
+            int cur = queue.poll();
+            long curDistance = queue.lastKey();
+            if (curDistance > distances[cur]) {
+                continue;  // a stale copy, pushed before a shorter path was found
+            }
+            numSettled++;
+            if (cur == endId) {
+                break;
+            }
+            for (int arc = outOffsets[cur]; arc < outOffsets[cur + 1]; arc++) {
+                int next = targets[arc];
+                long newDistance = curDistance + lengths[arc];
+                if (stamps[next] != epoch || newDistance < distances[next]) {
+                    stamps[next] = epoch;
+                    distances[next] = newDistance;
+                    parentArcs[next] = arc;
+                    queue.push(next, newDistance);
+                }
+            }
+        }
+    }
+
+    // Label each vertex on the path to the end with the road into it, for getPath
+    private void labelPath(int endId) {
+        for (int id = endId; parentArcs[id] != NO_ARC; id = indexOf(graph.from(roads[parentArcs[id]]))) {
+            labelRoad(roads[parentArcs[id]]);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package hw8.spp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The roads of a loaded network as parallel arrays over a searcher's dense
+ * vertex ids, which is what the indexes built ahead of the queries take.
+ */
+final class RoadArrays {
+    final int numVertices;
+    final int[] from;
+    final int[] to;
+    final double[] weight;
+    final long fingerprint;
+
+    RoadArrays(int numVertices, int[] from, int[] to, double[] weight) {
+        this.numVertices = numVertices;
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+        fingerprint = ContractionHierarchy.fingerprint(numVertices, from, to, weight);
+    }
+
+    // Reader of a saved index, e.g. ContractionHierarchy::read
+    @FunctionalInterface
+    interface Reader<T> {
+        T read(File file) throws IOException;
+    }
+
+    /**
+     * Read the index saved in a file if it was built from exactly these
+     * roads, otherwise build a new one and save it there. A file that is
+     * missing, unreadable or of another kind is rebuilt; one that cannot be
+     * written is reported on stderr and the index is used unsaved.
+     *
+     * @param file    where the index is saved, or null to always build it.
+     * @param reader  reads the index from a file.
+     * @param usable  further checks that a saved index fits, e.g. its size.
+     * @param builder builds the index from the roads.
+     * @param name    what the index is, for the error message.
+     * @param <T>     the kind of index.
+     * @return the index.
+     */
+    <T extends SavedIndex> T loadOrBuild(File file, Reader<T> reader, Predicate<T> usable,
+                                         Function<RoadArrays, T> builder, String name) {
+        try {
+            T saved = file != null ? reader.read(file) : null;
+            if (saved != null && saved.getFingerprint() == fingerprint && saved.numVertices() == numVertices
+                    && usable.test(saved)) {
+                return saved;
+            }
+        } catch (IOException ignored) {
+            // Missing or unreadable: build a new one below
+        }
+
+        T built = builder.apply(this);
+        try {
+            if (file != null) {
+                built.write(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save " + name + ": " + e.getMessage());
+        }
+        return built;
+    }
+}
@@ -0,0 +1,312 @@
+package hw8.spp;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the roads of a data file, one "from to distance road" per line.
+ * <p>
+ * The file is read through a FileChannel in large blocks that end on a
+ * line break, and each block is tokenized in place as bytes. A name is
+ * only decoded into a String the first time it appears; after that the
+ * same String is handed out again, so a line costs no allocation.
+ * A plain decimal distance whose digits fit in a double's 53-bit mantissa
+ * is parsed as that exact integer divided by an exact power of ten, which
+ * rounds to the same double as Double.parseDouble; anything else goes to
+ * Double.parseDouble.</p>
+ * <p>
+ * In parallel mode the blocks are tokenized on the common fork-join pool
+ * and their roads are then handed over in file order, so the result is
+ * the same as reading the file sequentially.</p>
+ */
+final class RoadFileReader {
+    private static final int BLOCK_SIZE = 1 << 18;
+
+    // Largest integer every smaller one of which is exactly a double
+    private static final long EXACT_LIMIT = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    /**
+     * Receives each road read from a data file.
+     */
+    interface Consumer {
+        /**
+         * Take one road.
+         *
+         * @param from     name of the vertex the road starts at.
+         * @param to       name of the vertex the road ends at.
+         * @param distance length of the road.
+         * @param road     name of the road.
+         * @return true if the road was added.
+         */
+        boolean accept(String from, String to, double distance, String road);
+    }
+
+    private RoadFileReader() {
+    }
+
+    /**
+     * Read every road of a data file, in file order.
+     *
+     * @param data     file to read.
+     * @param parallel true to tokenize blocks of the file in parallel.
+     * @param consumer receives each road.
+     * @return number of roads the consumer accepted.
+     * @throws FileNotFoundException if the file does not exist.
+     */
+    static int read(File data, boolean parallel, Consumer consumer) throws FileNotFoundException {
+        if (!data.isFile()) {
+            throw new FileNotFoundException(data.getPath());
+        }
+        try (FileChannel channel = FileChannel.open(data.toPath(), StandardOpenOption.READ)) {
+            if (parallel) {
+                List<byte[]> blocks = new ArrayList<>();
+                readBlocks(channel, (bytes, length) -> blocks.add(Arrays.copyOf(bytes, length)));
+                List<Roads> parsed = blocks.parallelStream()
+                        .map(block -> Roads.parse(block, block.length, new Names()))
+                        .collect(Collectors.toList());
+                int accepted = 0;
+                for (Roads roads : parsed) {
+                    accepted += roads.feed(consumer);
+                }
+                return accepted;
+            }
+            Names names = new Names();
+            int[] accepted = new int[1];
+            readBlocks(channel, (bytes, length) -> accepted[0] += Roads.parse(bytes, length, names).feed(consumer));
+            return accepted[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Fill a buffer from the channel and pass on the complete lines in it
+    private static void readBlocks(FileChannel channel, BlockHandler handler) throws IOException {
+        byte[] buffer = new byte[BLOCK_SIZE];
+        int length = 0;
+        while (true) {
+            int read = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length));
+            boolean done = read < 0;
+            length += Math.max(read, 0);
+            if (!done && length < buffer.length) {
+                continue;
+            }
+
+            int end = done ? length : lastLineEnd(buffer, length);
+            if (end == 0 && !done) {
+                // A single line longer than the buffer
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                continue;
+            }
+            handler.handle(buffer, end);
+            System.arraycopy(buffer, end, buffer, 0, length - end);
+            length -= end;
+            if (done) {
+                return;
+            }
+        }
+    }
+
+    private static int lastLineEnd(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private interface BlockHandler {
+        void handle(byte[] bytes, int length);
+    }
+
+    // Parse a distance from bytes, exactly as Double.parseDouble would
+    private static double parseDistance(byte[] bytes, int start, int end) {
+        int i = start;
+        boolean negative = i < end && bytes[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (++digits > 18) {
+                    break;
+                }
+                mantissa = 10 * mantissa + (b - '0');
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (i < end || digits == 0 || mantissa >= EXACT_LIMIT || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    // The roads of one block, with names already turned into Strings
+    private static final class Roads {
+        String[] from = new String[64];
+        String[] to = new String[64];
+        double[] distance = new double[64];
+        String[] road = new String[64];
+        int size;
+
+        static Roads parse(byte[] bytes, int length, Names names) {
+            Roads roads = new Roads();
+            int[] tokens = new int[8];
+            int lineStart = 0;
+            while (lineStart < length) {
+                int lineEnd = lineStart;
+                while (lineEnd < length && bytes[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                int next = lineEnd + 1;
+                if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+
+                // Start and end of the first four fields; anything after them is ignored
+                int count = 0;
+                int pos = lineStart;
+                while (count < 4 && pos <= lineEnd) {
+                    int tokenEnd = pos;
+                    while (tokenEnd < lineEnd && bytes[tokenEnd] != ' ') {
+                        tokenEnd++;
+                    }
+                    tokens[2 * count] = pos;
+                    tokens[2 * count + 1] = tokenEnd;
+                    count++;
+                    pos = tokenEnd + 1;
+                }
+                if (lineEnd > lineStart) {
+                    if (count < 4) {
+                        throw new IllegalArgumentException("Malformed road: "
+                                + new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                    }
+                    roads.add(names.get(bytes, tokens[0], tokens[1]),
+                            names.get(bytes, tokens[2], tokens[3]),
+                            parseDistance(bytes, tokens[4], tokens[5]),
+                            names.get(bytes, tokens[6], tokens[7]));
+                }
+                lineStart = next;
+            }
+            return roads;
+        }
+
+        void add(String f, String t, double d, String r) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, 2 * size);
+                to = Arrays.copyOf(to, 2 * size);
+                distance = Arrays.copyOf(distance, 2 * size);
+                road = Arrays.copyOf(road, 2 * size);
+            }
+            from[size] = f;
+            to[size] = t;
+            distance[size] = d;
+            road[size++] = r;
+        }
+
+        int feed(Consumer consumer) {
+            int accepted = 0;
+            for (int i = 0; i < size; i++) {
+                if (consumer.accept(from[i], to[i], distance[i], road[i])) {
+                    accepted++;
+                }
+            }
+            return accepted;
+        }
+    }
+
+    // Open-addressing table from byte strings to the String decoded from them
+    private static final class Names {
+        byte[][] keys = new byte[1024][];
+        String[] values = new String[1024];
+        int size;
+
+        String get(byte[] bytes, int start, int end) {
+            int mask = keys.length - 1;
+            int slot = hash(bytes, start, end) & mask;
+            while (keys[slot] != null) {
+                if (matches(keys[slot], bytes, start, end)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            byte[] key = Arrays.copyOfRange(bytes, start, end);
+            String value = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > keys.length / 2) {
+                grow();
+            }
+            return value;
+        }
+
+        private static int hash(byte[] bytes, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean matches(byte[] key, byte[] bytes, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != bytes[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new byte[2 * oldKeys.length][];
+            values = new String[2 * oldKeys.length];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = hash(oldKeys[i], 0, oldKeys[i].length) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package hw8.spp;
+
+import hw8.geo.CoordinateCodec;
+import hw8.geo.KdTree;
+import hw8.graph.CsrGraph;
+import hw8.graph.LongIntMap;
+import hw8.graph.NetworkSnapshot;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A loaded road network that is never changed, so any number of threads
+ * can query it at once.
+ * <p>
+ * The roads are held in a CsrGraph, whose vertex ids are also the ids
+ * used here. Endpoints can be looked up by name, by packed coordinates
+ * (so any spelling of a point matches), or snapped from an arbitrary GPS
+ * position through a k-d tree. Nothing here writes to the graph, its
+ * labels included.</p>
+ */
+public final class RoadNetwork {
+    private final CsrGraph<String, String> graph;
+    private final LongIntMap coordinateIds;
+    private final Map<String, Integer> labelIds;
+    private final KdTree spatialIndex;
+    private final int[] spatialIds;
+
+    /**
+     * Index a network. The graph must not be changed afterwards.
+     *
+     * @param graph roads, with vertices named by their coordinates (or
+     *              any other label) and edges labeled by their length.
+     */
+    public RoadNetwork(CsrGraph<String, String> graph) {
+        this.graph = graph;
+        int n = graph.numVertices();
+        coordinateIds = new LongIntMap(n);
+        labelIds = new HashMap<>();
+        double[] lons = new double[n];
+        double[] lats = new double[n];
+        int[] ids = new int[n];
+        int numPoints = 0;
+        for (int v = 0; v < n; v++) {
+            String name = graph.vertex(v).get();
+            long key = CoordinateCodec.encode(name);
+            if (key == CoordinateCodec.NONE) {
+                labelIds.putIfAbsent(name, v);
+            } else if (coordinateIds.get(key) == LongIntMap.MISSING) {
+                coordinateIds.put(key, v);
+                lons[numPoints] = CoordinateCodec.longitude(key);
+                lats[numPoints] = CoordinateCodec.latitude(key);
+                ids[numPoints++] = v;
+            }
+        }
+        spatialIndex = new KdTree(Arrays.copyOf(lons, numPoints), Arrays.copyOf(lats, numPoints));
+        spatialIds = Arrays.copyOf(ids, numPoints);
+    }
+
+    /**
+     * Load a network from a data file.
+     *
+     * @param data File in the format read by StreetSearcher.loadNetwork().
+     * @return the network.
+     * @throws FileNotFoundException thrown if invalid file provided
+     */
+    public static RoadNetwork load(File data) throws FileNotFoundException {
+        return new RoadNetwork(StreetSearcher.loadCompactNetwork(data));
+    }
+
+    /**
+     * Load a network saved with NetworkSnapshot.write().
+     *
+     * @param snapshot snapshot file.
+     * @return the network.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static RoadNetwork loadSnapshot(File snapshot) throws IOException {
+        return new RoadNetwork(NetworkSnapshot.read(snapshot));
+    }
+
+    /**
+     * The roads, for reading only.
+     *
+     * @return the graph the network was built from.
+     */
+    public CsrGraph<String, String> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Number of endpoints.
+     *
+     * @return vertex count; ids are 0 to numVertices() - 1.
+     */
+    public int numVertices() {
+        return graph.numVertices();
+    }
+
+    /**
+     * Name of an endpoint.
+     *
+     * @param id vertex id.
+     * @return its name.
+     */
+    public String name(int id) {
+        return graph.vertex(id).get();
+    }
+
+    /**
+     * Id of the endpoint with a given name. Coordinates match however they
+     * are written.
+     *
+     * @param name endpoint name.
+     * @return its id, or -1 if there is no such endpoint.
+     */
+    public int idOf(String name) {
+        long key = CoordinateCodec.encode(name);
+        if (key != CoordinateCodec.NONE) {
+            return coordinateIds.get(key);
+        }
+        Integer id = labelIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Id of the endpoint with a given name, snapping coordinates that are
+     * not an endpoint to the nearest one. There is no limit on how far a
+     * point is snapped, so one well outside the map snaps to its edge.
+     *
+     * @param name endpoint name, or any "lon,lat" coordinates.
+     * @return its id, or -1 if there is no such endpoint.
+     */
+    public int locate(String name) {
+        int id = idOf(name);
+        if (id < 0) {
+            long key = CoordinateCodec.encode(name);
+            if (key != CoordinateCodec.NONE) {
+                id = nearest(CoordinateCodec.longitude(key), CoordinateCodec.latitude(key));
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Endpoint nearest to a GPS position.
+     *
+     * @param lon longitude in degrees.
+     * @param lat latitude in degrees.
+     * @return its id, or -1 if no endpoint has coordinates.
+     */
+    public int nearest(double lon, double lat) {
+        int point = spatialIndex.nearest(lon, lat);
+        return point < 0 ? -1 : spatialIds[point];
+    }
+
+    /**
+     * The k endpoints nearest to a GPS position.
+     *
+     * @param lon longitude in degrees.
+     * @param lat latitude in degrees.
+     * @param k   number of endpoints wanted.
+     * @return ids of up to k endpoints, nearest first.
+     */
+    public int[] nearest(double lon, double lat, int k) {
+        int[] points = spatialIndex.nearest(lon, lat, k);
+        for (int i = 0; i < points.length; i++) {
+            points[i] = spatialIds[points[i]];
+        }
+        return points;
+    }
+}
@@ -0,0 +1,111 @@
+package hw8.spp;
+
+import hw8.graph.Edge;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The answer to one route query: the shortest path between two endpoints
+ * and its length. Routes are immutable.
+ */
+public final class Route {
+    private final String from;
+    private final String to;
+    private final double distance;
+    private final List<Edge<String>> roads;
+    private final double[] lengths;
+    private final int settled;
+
+    Route(String from, String to, double distance, List<Edge<String>> roads, double[] lengths, int settled) {
+        this.from = from;
+        this.to = to;
+        this.distance = distance;
+        this.roads = Collections.unmodifiableList(roads);
+        this.lengths = lengths;
+        this.settled = settled;
+    }
+
+    /**
+     * Name of the endpoint the route starts at (after snapping).
+     *
+     * @return start name.
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * Name of the endpoint the route ends at (after snapping).
+     *
+     * @return end name.
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Whether the two endpoints are connected.
+     *
+     * @return true if there is a route.
+     */
+    public boolean isFound() {
+        return distance != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Total length of the route.
+     *
+     * @return distance in meters, or Double.POSITIVE_INFINITY if there is
+     *     no route.
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Roads of the route, from start to end.
+     *
+     * @return unmodifiable list of edges; empty if there is no route or it
+     *     starts where it ends.
+     */
+    public List<Edge<String>> getRoads() {
+        return roads;
+    }
+
+    /**
+     * Length of one road of the route.
+     *
+     * @param i index into getRoads().
+     * @return its length.
+     */
+    public double getLength(int i) {
+        return lengths[i];
+    }
+
+    /**
+     * Number of vertices the search settled to find the route.
+     *
+     * @return settled vertex count.
+     */
+    public int getNumSettled() {
+        return settled;
+    }
+
+    /**
+     * The route in the same format StreetSearcher prints paths in.
+     *
+     * @return total distance and one line per road, or "No path found".
+     */
+    @Override
+    public String toString() {
+        if (!isFound()) {
+            return "No path found";
+        }
+        StringBuilder sb = new StringBuilder(String.format("Total Distance: %.4f\n", distance));
+        for (int i = 0; i < roads.size(); i++) {
+            sb.append(String.format("\t%6.2f \t%s\n", lengths[i], roads.get(i).get()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,250 @@
+package hw8.spp;
+
+import hw8.graph.Edge;
+import hw8.graph.GraphListener;
+import hw8.graph.Vertex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded cache of paths found by a StreetSearcher, so repeated queries
+ * are answered without searching again.
+ * <p>
+ * Paths are kept by their start and end endpoints, after names have been
+ * matched or snapped to an endpoint, so every spelling of the same query
+ * shares one entry. The least recently used paths are evicted once the
+ * estimated memory held goes over the cap.</p>
+ * <p>
+ * Cached paths are only right while the graph is unchanged. Set the cache
+ * on a searcher whose graph is an ObservableGraph and it is emptied
+ * whenever a vertex or edge is inserted or removed, or an edge is
+ * relabeled, i.e. a road length changes. Vertex labels are not watched,
+ * since no road length depends on them. On any other graph, call
+ * invalidate() after changing it.</p>
+ */
+public final class RouteCache implements GraphListener {
+    // Rough heap cost of an entry beyond its key and path: map node, entry, key pair, list
+    private static final int ENTRY_BYTES = 160;
+    // Heap cost of each road in a path: a list slot
+    private static final int ROAD_BYTES = 8;
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, CachedPath> paths;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Create an empty cache.
+     *
+     * @param maxBytes most memory, estimated, the cached paths may hold.
+     * @throws IllegalArgumentException if maxBytes is not positive.
+     */
+    public RouteCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        paths = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Cached path between two endpoints, counted as a hit or a miss.
+     *
+     * @param start start endpoint.
+     * @param end   end endpoint.
+     * @return the path, or null if it is not cached.
+     */
+    synchronized CachedPath get(Vertex<String> start, Vertex<String> end) {
+        CachedPath path = paths.get(new Key(start.get(), end.get()));
+        if (path == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return path;
+    }
+
+    /**
+     * Cache the path between two endpoints, evicting the least recently
+     * used paths if the cache is over its memory cap.
+     *
+     * @param start         start endpoint.
+     * @param end           end endpoint.
+     * @param path          roads from the end back to the start, as getPath()
+     *                      returns them, or null if there is no path.
+     * @param totalDistance length of the path.
+     */
+    synchronized void put(Vertex<String> start, Vertex<String> end, List<Edge<String>> path,
+                          double totalDistance) {
+        Key key = new Key(start.get(), end.get());
+        CachedPath cached = new CachedPath(path, totalDistance, bytesOf(key, path));
+        CachedPath old = paths.put(key, cached);
+        if (old != null) {
+            bytes -= old.bytes;
+        }
+        bytes += cached.bytes;
+        Iterator<CachedPath> eldest = paths.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private static long bytesOf(Key key, List<Edge<String>> path) {
+        long size = ENTRY_BYTES + 2L * (key.start.length() + key.end.length());
+        return path == null ? size : size + (long) ROAD_BYTES * path.size();
+    }
+
+    /**
+     * Drop every cached path.
+     */
+    public synchronized void invalidate() {
+        if (!paths.isEmpty()) {
+            paths.clear();
+            bytes = 0;
+            invalidations++;
+        }
+    }
+
+    @Override
+    public void structureChanged() {
+        invalidate();
+    }
+
+    @Override
+    public void edgeLabelChanged(Edge<?> e) {
+        invalidate();
+    }
+
+    @Override
+    public void labelsCleared() {
+        invalidate();
+    }
+
+    /**
+     * Number of paths cached.
+     *
+     * @return entry count.
+     */
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    /**
+     * Estimated memory held by the cached paths.
+     *
+     * @return bytes, at most the cap.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Memory cap the cache was created with.
+     *
+     * @return bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Number of queries answered from the cache.
+     *
+     * @return hit count.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of queries that had to be searched.
+     *
+     * @return miss count.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of paths evicted to stay under the memory cap.
+     *
+     * @return eviction count.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Number of times the cache was emptied because the graph changed.
+     *
+     * @return invalidation count.
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Fraction of queries answered from the cache.
+     *
+     * @return hits / (hits + misses), or 0 before any query.
+     */
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("RouteCache: %d paths, %d/%d bytes, %d hits, %d misses, %d evictions, %d invalidations",
+                paths.size(), bytes, maxBytes, hits, misses, evictions, invalidations);
+    }
+
+    // Start and end endpoint names
+    private static final class Key {
+        final String start;
+        final String end;
+
+        Key(String start, String end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return start.equals(other.start) && end.equals(other.end);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * start.hashCode() + end.hashCode();
+        }
+    }
+
+    /**
+     * A path as found by a search.
+     */
+    static final class CachedPath {
+        final List<Edge<String>> path;
+        final double totalDistance;
+        final long bytes;
+
+        CachedPath(List<Edge<String>> path, double totalDistance, long bytes) {
+            this.path = path == null ? null : Collections.unmodifiableList(new ArrayList<>(path));
+            this.totalDistance = totalDistance;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.Edge;
+import hw8.graph.EdgeWeights;
+import hw8.graph.GraphVersion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers route queries on a RoadNetwork from any number of threads at
+ * once.
+ * <p>
+ * The network is only read, and each route searches in a SearchWorkspace
+ * taken from a pool and given back when the route is done. The pool keeps
+ * at most maxWorkspaces of them, so threads that come and go (such as a
+ * virtual thread per request) reuse the same few workspaces instead of
+ * each allocating one the size of the network. A route that finds the
+ * pool empty makes a new workspace, which is dropped afterwards if the
+ * pool is full; bound the routes in flight to maxWorkspaces and that never
+ * happens once they are all made. Nothing is written to the graph (a
+ * CsrGraph makes its positions on first use, safely from any thread), so
+ * one loaded network serves every core. Routes
+ * are found with Dijkstra's algorithm, stopping at the end, and are the
+ * same as DijkstraStreetSearcher's.</p>
+ * <p>
+ * Given a ShortestPathTreeCache, the first route from each source searches
+ * the whole network instead and caches the tree of shortest paths from
+ * it; later routes from that source are then read off the tree in
+ * O(path length), for as long as it stays in the cache.</p>
+ * <p>
+ * When the weights change in batches through a VersionedGraph over the
+ * network's graph, route on a pinned GraphVersion instead. The search then
+ * reads every weight from that one version, so a batch published during
+ * the route is either wholly in it or not at all. Cached trees follow the
+ * weights they were found with; after publishing a batch, pass its edges
+ * to ShortestPathTreeCache.update() to repair them for the new version.</p>
+ */
+public final class RoutePlanner {
+    private final RoadNetwork network;
+    private final BlockingQueue<SearchWorkspace> workspaces;
+    private final AtomicInteger workspacesCreated = new AtomicInteger();
+    private final ShortestPathTreeCache trees;
+
+    /**
+     * Create a planner.
+     *
+     * @param network the network to route on.
+     */
+    public RoutePlanner(RoadNetwork network) {
+        this(network, null);
+    }
+
+    /**
+     * Create a planner that answers routes from cached shortest path trees.
+     *
+     * @param network the network to route on.
+     * @param trees   cache of trees, or null to search every route.
+     */
+    public RoutePlanner(RoadNetwork network, ShortestPathTreeCache trees) {
+        this(network, trees, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a planner that keeps up to maxWorkspaces search workspaces.
+     *
+     * @param network       the network to route on.
+     * @param trees         cache of trees, or null to search every route.
+     * @param maxWorkspaces most workspaces kept for reuse; give it the
+     *                      most routes that will run at once.
+     * @throws IllegalArgumentException if maxWorkspaces is not positive.
+     */
+    public RoutePlanner(RoadNetwork network, ShortestPathTreeCache trees, int maxWorkspaces) {
+        if (maxWorkspaces <= 0) {
+            throw new IllegalArgumentException("maxWorkspaces must be positive: " + maxWorkspaces);
+        }
+        this.network = network;
+        this.trees = trees;
+        workspaces = new ArrayBlockingQueue<>(maxWorkspaces);
+    }
+
+    /**
+     * The network routes are planned on.
+     *
+     * @return the network.
+     */
+    public RoadNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * The cache of shortest path trees routes are answered from.
+     *
+     * @return the cache, or null if every route is searched.
+     */
+    public ShortestPathTreeCache getTreeCache() {
+        return trees;
+    }
+
+    /**
+     * Number of search workspaces made so far. It stays at most
+     * maxWorkspaces while no more routes than that run at once.
+     *
+     * @return workspace count.
+     */
+    public int getWorkspacesCreated() {
+        return workspacesCreated.get();
+    }
+
+    /**
+     * Shortest route between two endpoints. Coordinates that are not an
+     * endpoint are snapped to the nearest one.
+     *
+     * @param from name or coordinates of the start.
+     * @param to   name or coordinates of the end.
+     * @return the route, which may be not found if the ends are not connected.
+     * @throws IllegalArgumentException if either end cannot be found.
+     */
+    public Route route(String from, String to) {
+        return route(locate(from), locate(to));
+    }
+
+    /**
+     * Shortest route between two endpoints.
+     *
+     * @param fromId vertex id of the start.
+     * @param toId   vertex id of the end.
+     * @return the route, which may be not found if the ends are not connected.
+     * @throws IllegalArgumentException if either id is out of range.
+     */
+    public Route route(int fromId, int toId) {
+        checkId(fromId);
+        checkId(toId);
+        SearchWorkspace workspace = takeWorkspace();
+        try {
+            if (trees != null) {
+                return routeInTree(workspace, network.getGraph(), fromId, toId);
+            }
+            int settled = workspace.search(network.getGraph(), fromId, v -> v == toId);
+            return toRoute(workspace, network.getGraph(), fromId, toId, settled);
+        } finally {
+            workspaces.offer(workspace);
+        }
+    }
+
+    /**
+     * Shortest route between two endpoints, with the weights of a version
+     * of the network's roads. Coordinates that are not an endpoint are
+     * snapped to the nearest one.
+     *
+     * @param version version of network.getGraph()'s weights, pinned by
+     *                the caller for the length of the call.
+     * @param from    name or coordinates of the start.
+     * @param to      name or coordinates of the end.
+     * @return the route, which may be not found if the ends are not connected.
+     * @throws IllegalArgumentException if either end cannot be found, or
+     *     the version is of another graph.
+     */
+    public Route route(GraphVersion<String, String> version, String from, String to) {
+        return route(version, locate(from), locate(to));
+    }
+
+    /**
+     * Shortest route between two endpoints, with the weights of a version
+     * of the network's roads. Only cached trees for this version answer it.
+     *
+     * @param version version of network.getGraph()'s weights, pinned by
+     *                the caller for the length of the call.
+     * @param fromId  vertex id of the start.
+     * @param toId    vertex id of the end.
+     * @return the route, which may be not found if the ends are not connected.
+     * @throws IllegalArgumentException if either id is out of range, or the
+     *     version is of another graph.
+     */
+    public Route route(GraphVersion<String, String> version, int fromId, int toId) {
+        if (version.getGraph() != network.getGraph()) {
+            throw new IllegalArgumentException("Version of another graph");
+        }
+        checkId(fromId);
+        checkId(toId);
+        SearchWorkspace workspace = takeWorkspace();
+        try {
+            if (trees != null) {
+                return routeInTree(workspace, version, fromId, toId);
+            }
+            int settled = workspace.search(version.getGraph(), version, fromId, v -> v == toId);
+            return toRoute(workspace, version, fromId, toId, settled);
+        } finally {
+            workspaces.offer(workspace);
+        }
+    }
+
+    private SearchWorkspace takeWorkspace() {
+        SearchWorkspace workspace = workspaces.poll();
+        if (workspace == null) {
+            workspacesCreated.incrementAndGet();
+            workspace = new SearchWorkspace(network.numVertices());
+        }
+        return workspace;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= network.numVertices()) {
+            throw new IllegalArgumentException("Invalid Endpoint: " + id);
+        }
+    }
+
+    // Walk the tree from the source back from the end, computing and caching the tree first if need be
+    private Route routeInTree(SearchWorkspace workspace, EdgeWeights weights, int fromId, int toId) {
+        CsrGraph<String, String> graph = network.getGraph();
+        ShortestPathTree tree = trees.get(fromId, weights);
+        int settled = 0;
+        if (tree == null) {
+            tree = ShortestPathTree.compute(graph, weights, fromId, workspace);
+            settled = tree.getNumSettled();
+            trees.put(tree);
+        }
+        String from = network.name(fromId);
+        String to = network.name(toId);
+        List<Edge<String>> roads = new ArrayList<>();
+        if (tree.distance(toId) == Double.POSITIVE_INFINITY) {
+            return new Route(from, to, Double.POSITIVE_INFINITY, roads, new double[0], settled);
+        }
+        for (int v = toId; v != fromId; v = graph.source(tree.parentEdge(v))) {
+            roads.add(graph.edge(tree.parentEdge(v)));
+        }
+        Collections.reverse(roads);
+        double[] lengths = new double[roads.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = weights.weight(graph.id(roads.get(i)));
+        }
+        return new Route(from, to, tree.distance(toId), roads, lengths, settled);
+    }
+
+    private int locate(String name) {
+        int id = network.locate(name);
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid Endpoint: " + name);
+        }
+        return id;
+    }
+
+    // Trace the parents back from the end and turn them into roads
+    private Route toRoute(SearchWorkspace workspace, EdgeWeights weights, int fromId, int toId, int settled) {
+        String from = network.name(fromId);
+        String to = network.name(toId);
+        if (!workspace.reached(toId)) {
+            return new Route(from, to, Double.POSITIVE_INFINITY, new ArrayList<>(), new double[0], settled);
+        }
+        CsrGraph<String, String> graph = network.getGraph();
+        List<Edge<String>> roads = new ArrayList<>();
+        for (int v = toId; v != fromId; v = workspace.parent(v)) {
+            roads.add(graph.edge(graph.edgeId(workspace.parent(v), v)));
+        }
+        Collections.reverse(roads);
+        double[] lengths = new double[roads.size()];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = weights.weight(graph.id(roads.get(i)));
+        }
+        return new Route(from, to, workspace.distance(toId), roads, lengths, settled);
+    }
+}
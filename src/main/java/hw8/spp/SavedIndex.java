@@ -0,0 +1,35 @@
+package hw8.spp;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * An index a searcher builds from the roads before its first query, such
+ * as a ContractionHierarchy or a LandmarkTable, and saves so that later
+ * runs on the same roads read it back instead (see RoadArrays.loadOrBuild).
+ */
+interface SavedIndex {
+
+    /**
+     * Fingerprint of the roads the index was built from, as
+     * ContractionHierarchy.fingerprint() computes it.
+     *
+     * @return the fingerprint.
+     */
+    long getFingerprint();
+
+    /**
+     * Number of vertices the index covers.
+     *
+     * @return vertex count.
+     */
+    int numVertices();
+
+    /**
+     * Save the index.
+     *
+     * @param file file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    void write(File file) throws IOException;
+}
@@ -0,0 +1,167 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.EdgeWeights;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Per-query state of a shortest path search over vertex ids 0..n-1:
+ * tentative distances, the parent of each reached vertex, and the queue.
+ * <p>
+ * Every entry is stamped with the query it was written by. Starting a new
+ * query just moves to the next stamp, so entries left over from earlier
+ * queries read as unreached without being cleared, and a workspace can be
+ * reused for any number of queries without allocating. Only the queue is
+ * emptied between queries, which costs O(items left in it).</p>
+ * <p>
+ * search() runs Dijkstra's algorithm over a CsrGraph in the workspace, for
+ * every search that reads the graph's arrays directly.</p>
+ * <p>
+ * A workspace is not thread-safe; give each thread its own.</p>
+ */
+public final class SearchWorkspace {
+    /** Parent of the source and of unreached vertices. */
+    public static final int NO_PARENT = -1;
+
+    private final double[] distances;
+    private final int[] parents;
+    private final int[] stamps;
+    private final IndexedMinHeap queue;
+    private int epoch;
+
+    /**
+     * Create a workspace.
+     *
+     * @param numVertices number of vertex ids the searches will use.
+     */
+    public SearchWorkspace(int numVertices) {
+        distances = new double[numVertices];
+        parents = new int[numVertices];
+        stamps = new int[numVertices];
+        queue = new IndexedMinHeap(numVertices);
+    }
+
+    /**
+     * Number of vertex ids the workspace covers.
+     *
+     * @return vertex count.
+     */
+    public int size() {
+        return stamps.length;
+    }
+
+    /**
+     * Start a new query: every vertex becomes unreached and the queue empty.
+     */
+    public void begin() {
+        queue.clear();
+        if (++epoch == 0) {
+            // Stamps wrapped around; old ones could now look current
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Whether the current query has reached a vertex.
+     *
+     * @param v vertex id.
+     * @return true if v has a tentative distance.
+     */
+    public boolean reached(int v) {
+        return stamps[v] == epoch;
+    }
+
+    /**
+     * Tentative distance of a vertex in the current query.
+     *
+     * @param v vertex id.
+     * @return its distance, or Double.MAX_VALUE if it has not been reached.
+     */
+    public double distance(int v) {
+        return stamps[v] == epoch ? distances[v] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Vertex a vertex was reached from in the current query.
+     *
+     * @param v vertex id.
+     * @return its parent, or NO_PARENT.
+     */
+    public int parent(int v) {
+        return stamps[v] == epoch ? parents[v] : NO_PARENT;
+    }
+
+    /**
+     * Record a (shorter) distance to a vertex and queue it.
+     *
+     * @param v        vertex id.
+     * @param distance its new tentative distance.
+     * @param parent   the vertex it was reached from, or NO_PARENT.
+     * @param key      its priority in the queue, usually the distance.
+     */
+    public void reach(int v, double distance, int parent, double key) {
+        stamps[v] = epoch;
+        distances[v] = distance;
+        parents[v] = parent;
+        queue.push(v, key);
+    }
+
+    /**
+     * The queue of reached vertices waiting to be settled.
+     *
+     * @return the queue of the current query.
+     */
+    public IndexedMinHeap queue() {
+        return queue;
+    }
+
+    /**
+     * Run Dijkstra's algorithm over a CsrGraph as a new query. Vertices are
+     * settled in order of distance until stop returns true for one, or
+     * every vertex reachable from the source is settled. Afterwards the
+     * workspace holds the distance and parent of every vertex reached.
+     *
+     * @param graph  the graph, with vertex ids below size().
+     * @param source vertex id to start from.
+     * @param stop   told each vertex as it is settled; true ends the search.
+     * @return number of vertices settled.
+     */
+    public int search(CsrGraph<?, ?> graph, int source, IntPredicate stop) {
+        return search(graph, graph, source, stop);
+    }
+
+    /**
+     * Run Dijkstra's algorithm as search(graph, source, stop) does, with
+     * the edge weights read from weights, e.g. a pinned GraphVersion.
+     *
+     * @param graph   the graph, with vertex ids below size().
+     * @param weights weight of each edge id of the graph.
+     * @param source  vertex id to start from.
+     * @param stop    told each vertex as it is settled; true ends the search.
+     * @return number of vertices settled.
+     */
+    public int search(CsrGraph<?, ?> graph, EdgeWeights weights, int source, IntPredicate stop) {
+        begin();
+        reach(source, 0.0, NO_PARENT, 0.0);
+        int settled = 0;
+        while (!queue.isEmpty()) {
+            int cur = queue.poll();
+            settled++;
+            if (stop.test(cur)) {
+                break;
+            }
+            double curDistance = distances[cur];
+            for (int e = graph.outStart(cur); e < graph.outEnd(cur); e++) {
+                int next = graph.target(e);
+                double newDistance = curDistance + weights.weight(e);
+                if (newDistance < distance(next)) {
+                    reach(next, newDistance, cur, newDistance);
+                }
+            }
+        }
+        return settled;
+    }
+}
@@ -0,0 +1,134 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.EdgeWeights;
+
+import java.util.Arrays;
+
+/**
+ * Shortest paths from one source to every vertex of a CsrGraph, kept as
+ * the edge each vertex is reached by and its distance. A path to any
+ * vertex is read off by walking those edges back to the source, in
+ * O(path length). Trees cannot be changed once computed, so any number of
+ * threads may read one at once. A tree remembers the weights it was
+ * computed with, the graph's own or a GraphVersion's, and holds on to them.
+ */
+public final class ShortestPathTree {
+    /** Parent edge of the source and of unreached vertices. */
+    public static final int NO_EDGE = -1;
+
+    private final EdgeWeights weights;
+    private final int source;
+    private final int[] parentEdges;
+    private final double[] distances;
+    private final int numSettled;
+
+    ShortestPathTree(EdgeWeights weights, int source, int[] parentEdges, double[] distances, int numSettled) {
+        this.weights = weights;
+        this.source = source;
+        this.parentEdges = parentEdges;
+        this.distances = distances;
+        this.numSettled = numSettled;
+    }
+
+    /**
+     * Run Dijkstra's algorithm from a source until every reachable vertex
+     * is settled.
+     *
+     * @param graph     the graph.
+     * @param source    vertex id to start from.
+     * @param workspace workspace to search in, covering every vertex id.
+     * @return the tree.
+     */
+    public static ShortestPathTree compute(CsrGraph<String, String> graph, int source, SearchWorkspace workspace) {
+        return compute(graph, graph, source, workspace);
+    }
+
+    /**
+     * Run Dijkstra's algorithm from a source over other weights for the
+     * graph's edges, e.g. those of a pinned GraphVersion.
+     *
+     * @param graph     the graph.
+     * @param weights   weight of each edge id of the graph.
+     * @param source    vertex id to start from.
+     * @param workspace workspace to search in, covering every vertex id.
+     * @return the tree.
+     */
+    public static ShortestPathTree compute(CsrGraph<String, String> graph, EdgeWeights weights, int source,
+                                           SearchWorkspace workspace) {
+        int settled = workspace.search(graph, weights, source, v -> false);
+
+        int n = graph.numVertices();
+        int[] parentEdges = new int[n];
+        double[] distances = new double[n];
+        Arrays.fill(parentEdges, NO_EDGE);
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        for (int v = 0; v < n; v++) {
+            if (workspace.reached(v)) {
+                distances[v] = workspace.distance(v);
+                int parent = workspace.parent(v);
+                if (parent != SearchWorkspace.NO_PARENT) {
+                    parentEdges[v] = graph.edgeId(parent, v);
+                }
+            }
+        }
+        return new ShortestPathTree(weights, source, parentEdges, distances, settled);
+    }
+
+    /**
+     * Weights the tree was computed with.
+     *
+     * @return the CsrGraph or GraphVersion whose weights the paths follow.
+     */
+    public EdgeWeights getWeights() {
+        return weights;
+    }
+
+    /**
+     * Vertex the paths start from.
+     *
+     * @return source vertex id.
+     */
+    public int getSource() {
+        return source;
+    }
+
+    /**
+     * Length of the shortest path to a vertex.
+     *
+     * @param v vertex id.
+     * @return its distance, or Double.POSITIVE_INFINITY if it is unreachable.
+     */
+    public double distance(int v) {
+        return distances[v];
+    }
+
+    /**
+     * Last edge of the shortest path to a vertex.
+     *
+     * @param v vertex id.
+     * @return CsrGraph edge id, or NO_EDGE for the source and unreachable
+     *     vertices.
+     */
+    public int parentEdge(int v) {
+        return parentEdges[v];
+    }
+
+    /**
+     * Number of vertices settled to compute the tree.
+     *
+     * @return settled vertex count.
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Estimated heap memory the tree holds.
+     *
+     * @return bytes.
+     */
+    public long bytes() {
+        return 64 + 12L * parentEdges.length;
+    }
+}
@@ -0,0 +1,195 @@
+package hw8.spp;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.EdgeWeights;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Bounded cache of shortest path trees by their source, for RoutePlanner.
+ * Once a tree from a source is cached, every later route from it is
+ * answered without searching. The least recently used trees are evicted
+ * once the trees together hold more than the memory budget. The cache
+ * may be shared between threads.
+ * <p>
+ * When a VersionedGraph publishes new weights, update() repairs the cached
+ * trees for them with DynamicShortestPathTree and caches the repaired
+ * copies in their place, rather than dropping them to be searched again.
+ * Each tree keeps the weights it follows, so a route on one version is
+ * never answered from a tree of another.</p>
+ */
+public final class ShortestPathTreeCache {
+    private final long maxBytes;
+    private final LinkedHashMap<Integer, ShortestPathTree> trees;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Create an empty cache.
+     *
+     * @param maxBytes most memory, estimated, the cached trees may hold.
+     * @throws IllegalArgumentException if maxBytes is not positive.
+     */
+    public ShortestPathTreeCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        trees = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Cached tree from a source, counted as a hit or a miss.
+     *
+     * @param source source vertex id.
+     * @return the tree, or null if it is not cached.
+     */
+    public synchronized ShortestPathTree get(int source) {
+        ShortestPathTree tree = trees.get(source);
+        if (tree == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return tree;
+    }
+
+    /**
+     * Cached tree from a source with the given weights, counted as a hit or
+     * a miss. A tree cached for other weights is a miss.
+     *
+     * @param source  source vertex id.
+     * @param weights the weights the tree must follow.
+     * @return the tree, or null if no tree for those weights is cached.
+     */
+    public synchronized ShortestPathTree get(int source, EdgeWeights weights) {
+        ShortestPathTree tree = trees.get(source);
+        if (tree == null || tree.getWeights() != weights) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return tree;
+    }
+
+    /**
+     * Repair every cached tree that follows the weights before a change to
+     * follow the weights after it instead. Trees for any other weights are
+     * left as they are. The repairs run without holding the cache, and a
+     * tree replaced meanwhile is not overwritten.
+     *
+     * @param graph        the graph the trees were computed on.
+     * @param before       the weights before the change, e.g. the version a
+     *                     batch was published over.
+     * @param after        the weights after it, e.g. the version publish()
+     *                     returned.
+     * @param changedEdges every edge id whose weight differs between them.
+     * @return number of trees repaired.
+     */
+    public int update(CsrGraph<String, String> graph, EdgeWeights before, EdgeWeights after, int... changedEdges) {
+        List<ShortestPathTree> stale = new ArrayList<>();
+        synchronized (this) {
+            for (ShortestPathTree tree : trees.values()) {
+                if (tree.getWeights() == before) {
+                    stale.add(tree);
+                }
+            }
+        }
+        int repaired = 0;
+        for (ShortestPathTree tree : stale) {
+            DynamicShortestPathTree dynamic = new DynamicShortestPathTree(graph, tree);
+            dynamic.update(after, changedEdges);
+            synchronized (this) {
+                if (trees.get(tree.getSource()) == tree) {
+                    put(dynamic.toTree());
+                    repaired++;
+                }
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * Cache a tree, evicting the least recently used trees if the cache is
+     * over its budget. A tree bigger than the whole budget is not kept.
+     *
+     * @param tree the tree.
+     */
+    public synchronized void put(ShortestPathTree tree) {
+        ShortestPathTree old = trees.put(tree.getSource(), tree);
+        if (old != null) {
+            bytes -= old.bytes();
+        }
+        bytes += tree.bytes();
+        Iterator<ShortestPathTree> eldest = trees.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Drop every cached tree.
+     */
+    public synchronized void clear() {
+        trees.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Number of trees cached.
+     *
+     * @return entry count.
+     */
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    /**
+     * Estimated memory held by the cached trees.
+     *
+     * @return bytes, at most the budget.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Number of routes answered from a cached tree.
+     *
+     * @return hit count.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Number of routes whose source had no cached tree.
+     *
+     * @return miss count.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of trees evicted to stay within the budget.
+     *
+     * @return eviction count.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ShortestPathTreeCache: %d trees, %d/%d bytes, %d hits, %d misses, %d evictions",
+                trees.size(), bytes, maxBytes, hits, misses, evictions);
+    }
+}
@@ -1,18 +1,24 @@
 package hw8.spp;
 
 import exceptions.InsertionException;
+import hw8.geo.CoordinateCodec;
+import hw8.geo.KdTree;
+import hw8.graph.CsrGraph;
 import hw8.graph.Edge;
 import hw8.graph.Graph;
+import hw8.graph.LongIntMap;
+import hw8.graph.ObservableGraph;
 import hw8.graph.Vertex;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 
 /**
  * Search for the shortest path between two endpoints.
@@ -22,9 +28,11 @@ public abstract class StreetSearcher {
     /*
      * Notes:
      *  - Vertex data is the coordinates, stored as a String.
-     *  - Vertex label is the Edge into it on the path found.
+     *  - The Edge into each vertex on the path found is kept by the
+     *    searcher, not as a vertex label, so searches never write to the
+     *    graph and searchers can share one.
      *  - Edge data is the road name, stored as a String.
-     *  - Edge label is the road length, stored as a Double.
+     *  - Edge label is the road length, stored as the edge weight.
      */
 
     public static boolean VERBOSE = true;
@@ -32,12 +40,42 @@ public abstract class StreetSearcher {
     // useful for marking distance to nodes, or use Double.POSITIVE_INFINITY
     protected static final double MAX_DISTANCE = 1e18;
 
-    /* We use a HashMap to store all the vertices so we can
-     * find them by name (i.e. their coordinates) when inserting
-     * for a fast duplicates check. */
+    /* All the vertices by the name they were loaded with. Duplicate
+     * checks and lookups by name go through idOf() and location(),
+     * which also match other spellings of the same coordinates. */
     protected Map<String, Vertex<String>> vertices;
     protected Graph<String, String> graph;
 
+    /* Every endpoint also gets a dense id in insertion order, so searchers
+     * can keep their per-vertex state in primitive arrays. Names are found
+     * by packed coordinates (see CoordinateCodec), or as strings for
+     * endpoints whose names are not coordinates; vertices by identity. */
+    private List<Vertex<String>> locations;
+    private LongIntMap coordinateIds;
+    private Map<String, Integer> labelIds;
+    private Map<Vertex<String>, Integer> vertexIds;
+
+    // Nearest-intersection index over the endpoints named by coordinates,
+    // and the endpoint id of each of its points
+    private KdTree spatialIndex;
+    private int[] spatialIds;
+
+    // Number of vertices settled by the last search
+    protected int numSettled;
+
+    // Road into each vertex on the last path found, by vertex id, and the ids
+    // that have one, cleared before the next path is labeled
+    private Edge<String>[] pathRoads;
+    private int[] labeled;
+    private int numLabeled;
+
+    // Roads and length of the last path found, from the end back to the start
+    private List<Edge<String>> lastPath;
+    private double lastDistance;
+
+    // Paths already found, if caching is on
+    private RouteCache routeCache;
+
     /**
      * Create a StreetSearcher object.
      *
@@ -45,19 +83,268 @@ public abstract class StreetSearcher {
      */
     public StreetSearcher(Graph<String, String> graph) {
         vertices = new HashMap<>();
+        locations = new ArrayList<>();
+        coordinateIds = new LongIntMap(16);
+        labelIds = new HashMap<>();
+        vertexIds = new IdentityHashMap<>();
+        pathRoads = newRoads(0);
+        labeled = new int[0];
         this.graph = graph;
     }
 
-    // Get the path by tracing labels back from end to start.
+    /**
+     * Number of vertices the last call to findShortestPath settled, a
+     * machine-independent measure of how much of the network it explored.
+     *
+     * @return settled vertex count.
+     */
+    public int getNumSettled() {
+        return numSettled;
+    }
+
+    /**
+     * Roads of the path the last call to findShortestPath found.
+     *
+     * @return the roads in order from the start, or null if there was no
+     *     path.
+     */
+    public List<Edge<String>> getLastPath() {
+        if (lastPath == null) {
+            return null;
+        }
+        List<Edge<String>> roads = new ArrayList<>(lastPath);
+        Collections.reverse(roads);
+        return roads;
+    }
+
+    /**
+     * Length of the path the last call to findShortestPath found.
+     *
+     * @return total distance, as printed.
+     */
+    public double getLastDistance() {
+        return lastDistance;
+    }
+
+    /**
+     * Number of endpoints in the network.
+     *
+     * @return the number of vertex ids handed out so far.
+     */
+    protected int numLocations() {
+        return locations.size();
+    }
+
+    /**
+     * Dense id of an endpoint.
+     *
+     * @param v vertex loaded into the network.
+     * @return its id, between 0 and numLocations() - 1.
+     */
+    protected int indexOf(Vertex<String> v) {
+        return vertexIds.get(v);
+    }
+
+    /**
+     * Dense id of the endpoint with a given name. Coordinates match however
+     * they are written, e.g. "-76.61070,39.28660" finds "-76.6107,39.2866".
+     *
+     * @param name endpoint name.
+     * @return its id, or -1 if there is no such endpoint.
+     */
+    protected int idOf(String name) {
+        long key = CoordinateCodec.encode(name);
+        if (key != CoordinateCodec.NONE) {
+            return coordinateIds.get(key);
+        }
+        Integer id = labelIds.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Endpoint with a given name. Coordinates that are not an endpoint are
+     * snapped to the nearest one, however far away it is: there is no
+     * limit, so a position well outside the map starts or ends at its edge.
+     *
+     * @param name endpoint name, or any "lon,lat" coordinates.
+     * @return the vertex.
+     * @throws IllegalArgumentException if there is no such endpoint and the
+     *     name is not coordinates.
+     */
+    protected Vertex<String> location(String name) {
+        int id = idOf(name);
+        if (id < 0) {
+            long key = CoordinateCodec.encode(name);
+            if (key != CoordinateCodec.NONE) {
+                id = nearestId(CoordinateCodec.longitude(key), CoordinateCodec.latitude(key));
+            }
+        }
+        if (id < 0) {
+            throw new IllegalArgumentException("Invalid Endpoint: " + name);
+        }
+        return locations.get(id);
+    }
+
+    /**
+     * Intersection nearest to a GPS position, e.g. to turn a raw device fix
+     * into a name findShortestPath() accepts.
+     *
+     * @param lon longitude in degrees.
+     * @param lat latitude in degrees.
+     * @return name of the nearest endpoint, or null if no endpoint has
+     *     coordinates.
+     */
+    public String nearestLocation(double lon, double lat) {
+        int id = nearestId(lon, lat);
+        return id < 0 ? null : locations.get(id).get();
+    }
+
+    /**
+     * The k intersections nearest to a GPS position.
+     *
+     * @param lon longitude in degrees.
+     * @param lat latitude in degrees.
+     * @param k   number of endpoints wanted.
+     * @return names of up to k endpoints, nearest first.
+     */
+    public List<String> nearestLocations(double lon, double lat, int k) {
+        List<String> names = new ArrayList<>();
+        if (spatialIndex != null) {
+            for (int point : spatialIndex.nearest(lon, lat, k)) {
+                names.add(locations.get(spatialIds[point]).get());
+            }
+        }
+        return names;
+    }
+
+    private int nearestId(double lon, double lat) {
+        int point = spatialIndex == null ? -1 : spatialIndex.nearest(lon, lat);
+        return point < 0 ? -1 : spatialIds[point];
+    }
+
+    // Index the endpoints that are named by coordinates
+    private void buildSpatialIndex() {
+        int n = 0;
+        double[] lons = new double[locations.size()];
+        double[] lats = new double[locations.size()];
+        spatialIds = new int[locations.size()];
+        for (int id = 0; id < locations.size(); id++) {
+            long key = CoordinateCodec.encode(locations.get(id).get());
+            if (key != CoordinateCodec.NONE) {
+                lons[n] = CoordinateCodec.longitude(key);
+                lats[n] = CoordinateCodec.latitude(key);
+                spatialIds[n++] = id;
+            }
+        }
+        spatialIndex = new KdTree(Arrays.copyOf(lons, n), Arrays.copyOf(lats, n));
+    }
+
+    // The roads loaded so far, by dense vertex id, for the indexes searchers build from them
+    RoadArrays roadArrays() {
+        int m = 0;
+        for (Edge<String> ignored : graph.edges()) {
+            m++;
+        }
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        int i = 0;
+        for (Edge<String> road : graph.edges()) {
+            from[i] = indexOf(graph.from(road));
+            to[i] = indexOf(graph.to(road));
+            weight[i++] = graph.weight(road);
+        }
+        return new RoadArrays(numLocations(), from, to, weight);
+    }
+
+    /**
+     * Endpoint with the given id.
+     *
+     * @param id a vertex id.
+     * @return the vertex it was handed out to.
+     */
+    protected Vertex<String> locationAt(int id) {
+        return locations.get(id);
+    }
+
+    /**
+     * Remove the labels of the last path found, before labeling the next.
+     */
+    protected void clearPath() {
+        for (int i = 0; i < numLabeled; i++) {
+            pathRoads[labeled[i]] = null;
+        }
+        numLabeled = 0;
+    }
+
+    /**
+     * Label the vertex a road leads to with that road, as the step into it
+     * on the path found, for getPath() to trace. The label is kept by the
+     * searcher; the graph is not changed.
+     *
+     * @param road a road on the path.
+     */
+    protected void labelRoad(Edge<String> road) {
+        int id = indexOf(graph.to(road));
+        if (pathRoads.length < numLocations()) {
+            pathRoads = Arrays.copyOf(pathRoads, numLocations());
+            labeled = Arrays.copyOf(labeled, numLocations());
+        }
+        if (pathRoads[id] == null) {
+            labeled[numLabeled++] = id;
+        }
+        pathRoads[id] = road;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Edge<String>[] newRoads(int n) {
+        return (Edge<String>[]) new Edge[n];
+    }
+
+    /**
+     * Road from one vertex to another.
+     *
+     * @param from start of the road.
+     * @param to   end of the road.
+     * @return the road.
+     * @throws IllegalStateException if there is none.
+     */
+    protected Edge<String> roadBetween(Vertex<String> from, Vertex<String> to) {
+        for (Edge<String> road : graph.outgoing(from)) {
+            if (graph.to(road) == to) {
+                return road;
+            }
+        }
+        throw new IllegalStateException("No road between consecutive path vertices");
+    }
+
+    /**
+     * Length of a path, added up from the start in the same order as
+     * Dijkstra's algorithm adds it, so every searcher reports the same
+     * total for the same path.
+     *
+     * @param path roads from the end back to the start, as getPath()
+     *             returns them.
+     * @return total length.
+     */
+    protected double pathLength(List<Edge<String>> path) {
+        double total = 0.0;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            total += graph.weight(path.get(i));
+        }
+        return total;
+    }
+
+    // Get the path by tracing the roads labelRoad() kept back from end to start.
     protected List<Edge<String>> getPath(Vertex<String> end,
                                          Vertex<String> start) {
-        if (graph.label(end) != null) {
+        if (pathRoad(end) != null) {
             List<Edge<String>> path = new ArrayList<>();
 
             Vertex<String> cur = end;
             Edge<String> road;
             while (cur != start) {
-                road = (Edge<String>) graph.label(cur);  // unchecked cast ok
+                road = pathRoad(cur);
                 path.add(road);
                 cur = graph.from(road);
             }
@@ -66,6 +353,88 @@ public abstract class StreetSearcher {
         return null;
     }
 
+    // The road labelRoad() kept for a vertex, or null
+    private Edge<String> pathRoad(Vertex<String> v) {
+        int id = indexOf(v);
+        return id < pathRoads.length ? pathRoads[id] : null;
+    }
+
+    /**
+     * Answer findShortestPath() from a cache of paths already found. If the
+     * graph is an ObservableGraph, the cache is emptied whenever the graph
+     * changes; otherwise call RouteCache.invalidate() after changing it.
+     *
+     * @param cache the cache, or null to search every query.
+     */
+    public void setRouteCache(RouteCache cache) {
+        if (graph instanceof ObservableGraph) {
+            ObservableGraph<String, String> observable = (ObservableGraph<String, String>) graph;
+            if (routeCache != null) {
+                observable.removeListener(routeCache);
+            }
+            if (cache != null) {
+                observable.addListener(cache);
+            }
+        }
+        routeCache = cache;
+    }
+
+    /**
+     * The cache findShortestPath() answers from.
+     *
+     * @return the cache, or null if caching is off.
+     */
+    public RouteCache getRouteCache() {
+        return routeCache;
+    }
+
+    /**
+     * Answer a query from the route cache, if it has the path. Searchers
+     * call this before searching, and skip the search if it returns true.
+     *
+     * @param start start endpoint.
+     * @param end   end endpoint.
+     * @return true if the path was cached, and printed if VERBOSE.
+     */
+    protected boolean answerFromCache(Vertex<String> start, Vertex<String> end) {
+        if (routeCache == null) {
+            return false;
+        }
+        RouteCache.CachedPath cached = routeCache.get(start, end);
+        if (cached == null) {
+            return false;
+        }
+        numSettled = 0;
+        lastPath = cached.path;
+        lastDistance = cached.totalDistance;
+        if (VERBOSE) {
+            printPath(cached.path, cached.totalDistance);
+        }
+        return true;
+    }
+
+    /**
+     * Hand over the path a search found: cache it if caching is on, and
+     * print it if VERBOSE.
+     *
+     * @param start         start endpoint.
+     * @param end           end endpoint.
+     * @param path          roads from the end back to the start, as
+     *                      getPath() returns them, or null if there is none.
+     * @param totalDistance length of the path.
+     */
+    protected void pathFound(Vertex<String> start, Vertex<String> end, List<Edge<String>> path,
+                             double totalDistance) {
+        if (routeCache != null) {
+            routeCache.put(start, end, path, totalDistance);
+        }
+        lastPath = path;
+        lastDistance = totalDistance;
+        if (VERBOSE) {
+            printPath(path, totalDistance);
+        }
+    }
+
     // Print the path found and its distance
     protected void printPath(List<Edge<String>> path, double totalDistance) {
         if (path == null) {
@@ -75,7 +444,7 @@ public abstract class StreetSearcher {
 
         System.out.printf("Total Distance: %.4f\n", totalDistance);
         for (int i = path.size() - 1; i >= 0; i--) {
-            System.out.printf("\t%6.2f \t%s\n", graph.label(path.get(i)), path.get(i).get());
+            System.out.printf("\t%6.2f \t%s\n", graph.weight(path.get(i)), path.get(i).get());
         }
     }
 
@@ -85,17 +454,33 @@ public abstract class StreetSearcher {
      *
      * @param startName starting vertex name
      * @param endName   ending vertex name
+     * @throws IllegalArgumentException if either is neither an endpoint
+     *     nor coordinates.
      */
     public abstract void findShortestPath(String startName, String endName);
 
     // Add an endpoint to the network if it is a new endpoint
     private Vertex<String> addLocation(String name) {
-        if (!vertices.containsKey(name)) {
+        int id = idOf(name);
+        if (id < 0) {
             Vertex<String> v = graph.insert(name);
-            vertices.put(name, v);
+            addLocation(v);
             return v;
         }
-        return vertices.get(name);
+        return locations.get(id);
+    }
+
+    // Give a vertex already in the graph a name lookup and an id
+    private void addLocation(Vertex<String> v) {
+        long key = CoordinateCodec.encode(v.get());
+        if (key != CoordinateCodec.NONE) {
+            coordinateIds.put(key, locations.size());
+        } else {
+            labelIds.put(v.get(), locations.size());
+        }
+        vertices.put(v.get(), v);
+        vertexIds.put(v, locations.size());
+        locations.add(v);
     }
 
     /**
@@ -107,29 +492,79 @@ public abstract class StreetSearcher {
      * @throws FileNotFoundException thrown if invalid file provided
      */
     public void loadNetwork(File data) throws FileNotFoundException {
-        int numRoads = 0;
-
-        // Read in from file fileName
-        Scanner input = new Scanner(new FileInputStream(data));
-        while (input.hasNext()) {
-
-            // Parse the line in to <end1> <end2> <road-distance> <road-name>
-            String[] tokens = input.nextLine().split(" ");
-            String fromName = tokens[0];
-            String toName = tokens[1];
-            double roadDistance = Double.parseDouble(tokens[2]);
-            String roadName = tokens[3];
-
-            boolean roadAdded = addRoad(fromName, toName, roadDistance, roadName);
-            if (roadAdded) {
-                numRoads += 2;
-            }
+        int numRoads = RoadFileReader.read(data, true, this::addRoad) * 2;
+
+        if (VERBOSE) {
+            System.out.printf("Network Loaded: %d roads, %d endpoints\n", numRoads, locations.size());
         }
-        input.close();
+        buildSpatialIndex();
+        networkLoaded();
+    }
 
+    /**
+     * Use the network the graph already holds, such as a CsrGraph from
+     * loadCompactNetwork(), instead of loading a data file into it.
+     */
+    public void indexNetwork() {
+        for (Vertex<String> v : graph.vertices()) {
+            addLocation(v);
+        }
         if (VERBOSE) {
-            System.out.printf("Network Loaded: %d roads, %d endpoints\n", numRoads, vertices.size());
+            int numRoads = 0;
+            for (Edge<String> ignored : graph.edges()) {
+                numRoads++;
+            }
+            System.out.printf("Network Loaded: %d roads, %d endpoints\n", numRoads, locations.size());
+        }
+        buildSpatialIndex();
+        networkLoaded();
+    }
+
+    /**
+     * Called once a network has been loaded or indexed, for searchers that
+     * preprocess it. Does nothing by default.
+     */
+    protected void networkLoaded() {
+    }
+
+    /**
+     * Load a network from a data file straight into a read-only CsrGraph,
+     * without building a SparseGraph first. Give the result to a
+     * StreetSearcher and call indexNetwork() on it.
+     *
+     * @param data File in the same format as for loadNetwork().
+     * @return the network as a compact graph.
+     * @throws FileNotFoundException thrown if invalid file provided
+     */
+    public static CsrGraph<String, String> loadCompactNetwork(File data) throws FileNotFoundException {
+        CsrGraph.Builder<String, String> builder = new CsrGraph.Builder<>();
+        LongIntMap coordinateIds = new LongIntMap(16);
+        RoadFileReader.read(data, true, (from, to, distance, road) -> {
+            int fromId = compactId(builder, coordinateIds, from);
+            int toId = compactId(builder, coordinateIds, to);
+            try {
+                builder.addEdge(fromId, toId, road, distance);
+                builder.addEdge(toId, fromId, road, distance);
+            } catch (InsertionException ignored) {
+                return false;
+            }
+            return true;
+        });
+        return builder.build();
+    }
+
+    // Builder id of an endpoint, matching coordinates however they are written
+    private static int compactId(CsrGraph.Builder<String, String> builder, LongIntMap coordinateIds, String name) {
+        long key = CoordinateCodec.encode(name);
+        if (key == CoordinateCodec.NONE) {
+            return builder.vertex(name);
+        }
+        int id = coordinateIds.get(key);
+        if (id == LongIntMap.MISSING) {
+            id = builder.addVertex(name);
+            coordinateIds.put(key, id);
         }
+        return id;
     }
 
     private boolean addRoad(String from, String to, double distance, String road) {
@@ -144,8 +579,8 @@ public abstract class StreetSearcher {
             Edge<String> backwardsRoad = graph.insert(toVertex, fromVertex, road);
 
             // Label each road with it's weight
-            graph.label(roadEdge, distance);
-            graph.label(backwardsRoad, distance);
+            graph.weight(roadEdge, distance);
+            graph.weight(backwardsRoad, distance);
 
         } catch (InsertionException ignored) {
             return false;
@@ -153,10 +588,4 @@ public abstract class StreetSearcher {
 
         return true;
     }
-
-    protected void checkValidEndpoint(String endpointName) {
-        if (!vertices.containsKey(endpointName)) {
-            throw new IllegalArgumentException("Invalid Endpoint: " + endpointName);
-        }
-    }
 }
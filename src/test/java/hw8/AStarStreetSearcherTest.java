@@ -0,0 +1,40 @@
+package hw8;
+
+import hw8.graph.Graph;
+import hw8.graph.SparseGraph;
+import hw8.spp.AStarStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AStarStreetSearcherTest extends StreetSearcherTest {
+
+    @Override
+    protected StreetSearcher createSearcher(Graph<String, String> graph) {
+        return new AStarStreetSearcher(graph);
+    }
+
+    @Test
+    @DisplayName("Routes across Baltimore match Dijkstra's")
+    public void baltimoreMatchesDijkstra() throws FileNotFoundException {
+        assertMatchesDijkstra("baltimore.streets.txt", 300, 3);
+    }
+
+    @Test
+    @DisplayName("The default query settles well under two thirds of what Dijkstra's does")
+    public void settlesFewerThanDijkstra() throws FileNotFoundException {
+        StreetSearcher dijkstra = new DijkstraStreetSearcher(new SparseGraph<>(), true);
+        dijkstra.loadNetwork(data("baltimore.streets.txt"));
+        StreetSearcher aStar = createSearcher(new SparseGraph<>());
+        aStar.loadNetwork(data("baltimore.streets.txt"));
+        dijkstra.findShortestPath("-76.6107,39.2866", "-76.6175,39.3296");
+        aStar.findShortestPath("-76.6107,39.2866", "-76.6175,39.3296");
+        assertTrue(3 * aStar.getNumSettled() < 2 * dijkstra.getNumSettled(),
+                aStar.getNumSettled() + " vs " + dijkstra.getNumSettled());
+    }
+}
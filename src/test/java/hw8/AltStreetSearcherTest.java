@@ -0,0 +1,64 @@
+package hw8;
+
+import hw8.graph.Graph;
+import hw8.graph.SparseGraph;
+import hw8.spp.AltStreetSearcher;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AltStreetSearcherTest extends StreetSearcherTest {
+
+    private File tableFile;
+
+    @BeforeEach
+    public void setupTableFile() throws IOException {
+        tableFile = File.createTempFile("network", ".alt");
+        tableFile.deleteOnExit();
+        tableFile.delete();
+    }
+
+    @Override
+    protected StreetSearcher createSearcher(Graph<String, String> graph) {
+        return new AltStreetSearcher(graph, 16, tableFile);
+    }
+
+    @Test
+    @DisplayName("Routes across Baltimore match Dijkstra's")
+    public void baltimoreMatchesDijkstra() throws FileNotFoundException {
+        assertMatchesDijkstra("baltimore.streets.txt", 300, 25);
+    }
+
+    @Test
+    @DisplayName("A query between two pieces of Baltimore is answered without searching either")
+    public void disconnectedPairSettlesNothing() throws FileNotFoundException {
+        StreetSearcher searcher = createSearcher(new SparseGraph<>());
+        searcher.loadNetwork(data("baltimore.streets.txt"));
+        searcher.findShortestPath("-76.6383,39.3102", "-76.6567,39.3479");
+        assertNull(searcher.getLastPath());
+        assertTrue(searcher.getNumSettled() <= 1, searcher.getNumSettled() + " settled");
+        searcher.findShortestPath("-76.6567,39.3479", "-76.6383,39.3102");
+        assertNull(searcher.getLastPath());
+        assertTrue(searcher.getNumSettled() <= 1, searcher.getNumSettled() + " settled");
+    }
+
+    @Test
+    @DisplayName("A saved table is read back and gives the same routes")
+    public void savedTableIsReused() throws IOException {
+        assertMatchesDijkstra("campus.paths.txt");
+        long saved = tableFile.length();
+        assertTrue(tableFile.setLastModified(0));
+        assertMatchesDijkstra("campus.paths.txt");
+        assertEquals(saved, tableFile.length());
+        assertEquals(0, tableFile.lastModified());
+    }
+}
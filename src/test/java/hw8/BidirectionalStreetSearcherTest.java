@@ -0,0 +1,23 @@
+package hw8;
+
+import hw8.graph.Graph;
+import hw8.spp.BidirectionalStreetSearcher;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+
+public class BidirectionalStreetSearcherTest extends StreetSearcherTest {
+
+    @Override
+    protected StreetSearcher createSearcher(Graph<String, String> graph) {
+        return new BidirectionalStreetSearcher(graph);
+    }
+
+    @Test
+    @DisplayName("Routes across Baltimore match Dijkstra's, wherever the searches meet")
+    public void baltimoreMatchesDijkstra() throws FileNotFoundException {
+        assertMatchesDijkstra("baltimore.streets.txt", 300, 4);
+    }
+}
@@ -0,0 +1,269 @@
+package hw8;
+
+import exceptions.InsertionException;
+import exceptions.PositionException;
+import exceptions.RemovalException;
+import hw8.graph.ConcurrentGraph;
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.Vertex;
+import hw8.spp.AStarStreetSearcher;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class ConcurrentGraphTest extends GraphTest {
+
+    private static final int NUM_VERTICES = 64;
+    private static final int NUM_THREADS = 4;
+
+    @Override
+    protected Graph<String, String> createGraph() {
+        return new ConcurrentGraph<>();
+    }
+
+    // Run every task on its own thread, all released at once, and rethrow the first failure
+    private static void runTogether(List<Runnable> tasks) throws Throwable {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable task : tasks) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    private List<Vertex<String>> ring() {
+        List<Vertex<String>> vs = new ArrayList<>();
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            vs.add(graph.insert("v" + i));
+        }
+        for (int i = 0; i < NUM_VERTICES; i++) {
+            Vertex<String> from = vs.get(i);
+            Vertex<String> to = vs.get((i + 1) % NUM_VERTICES);
+            graph.weight(graph.insert(from, to, from.get() + "-" + to.get()), 1.0);
+        }
+        return vs;
+    }
+
+    @Test
+    @DisplayName("Readers see consistent edges while roads are closed and reopened")
+    public void closeAndReopenRoadsWhileReading() throws Throwable {
+        List<Vertex<String>> vs = ring();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger writersLeft = new AtomicInteger(NUM_THREADS);
+        List<Runnable> tasks = new ArrayList<>();
+
+        // Each writer owns the chords out of every NUM_THREADS-th vertex
+        for (int t = 0; t < NUM_THREADS; t++) {
+            int offset = t;
+            tasks.add(() -> {
+                for (int round = 0; round < 200; round++) {
+                    List<Edge<String>> opened = new ArrayList<>();
+                    for (int i = offset; i < NUM_VERTICES; i += NUM_THREADS) {
+                        Vertex<String> from = vs.get(i);
+                        Vertex<String> to = vs.get((i + NUM_VERTICES / 2) % NUM_VERTICES);
+                        Edge<String> road = graph.insert(from, to, from.get() + "-" + to.get());
+                        graph.weight(road, 2.0);
+                        opened.add(road);
+                    }
+                    for (Edge<String> road : opened) {
+                        graph.remove(road);
+                    }
+                }
+                if (writersLeft.decrementAndGet() == 0) {
+                    writing.set(false);
+                }
+            });
+        }
+
+        for (int t = 0; t < NUM_THREADS; t++) {
+            tasks.add(() -> {
+                do {
+                    for (Vertex<String> v : vs) {
+                        int[] ringEdges = new int[1];
+                        graph.forEachOutgoing(v, (e, neighbor, weight) -> {
+                            assertEquals(v.get() + "-" + neighbor.get(), e.get());
+                            if (weight == 1.0) {
+                                ringEdges[0]++;
+                            }
+                        });
+                        // The ring is never changed, so it is always seen whole
+                        assertEquals(1, ringEdges[0]);
+                        for (Edge<String> e : graph.incoming(v)) {
+                            assertTrue(e.get().endsWith("-" + v.get()));
+                        }
+                    }
+                    int count = 0;
+                    for (Edge<String> e : graph.edges()) {
+                        count++;
+                    }
+                    assertTrue(count >= NUM_VERTICES);
+                } while (writing.get());
+            });
+        }
+        runTogether(tasks);
+
+        int count = 0;
+        for (Edge<String> e : graph.edges()) {
+            assertEquals(1.0, graph.weight(e));
+            count++;
+        }
+        assertEquals(NUM_VERTICES, count);
+        for (Vertex<String> v : vs) {
+            int out = 0;
+            for (Edge<String> e : graph.outgoing(v)) {
+                out++;
+            }
+            assertEquals(1, out);
+        }
+    }
+
+    @Test
+    @DisplayName("Only one of many threads inserting the same edge succeeds")
+    public void concurrentDuplicateInsertsKeepOne() throws Throwable {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        AtomicInteger inserted = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int t = 0; t < 2 * NUM_THREADS; t++) {
+            tasks.add(() -> {
+                try {
+                    graph.insert(v1, v2, "v1-v2");
+                    inserted.incrementAndGet();
+                } catch (InsertionException ex) {
+                    return;
+                }
+            });
+        }
+        runTogether(tasks);
+
+        assertEquals(1, inserted.get());
+        int count = 0;
+        for (Edge<String> e : graph.outgoing(v1)) {
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    @DisplayName("A vertex is either removed or gains an edge, never both")
+    public void removeVertexRacesEdgeInsert() throws Throwable {
+        Vertex<String> hub = graph.insert("hub");
+        for (int i = 0; i < 500; i++) {
+            Vertex<String> v = graph.insert("v" + i);
+            AtomicReference<Edge<String>> edge = new AtomicReference<>();
+            AtomicBoolean removed = new AtomicBoolean();
+            List<Runnable> tasks = new ArrayList<>();
+            tasks.add(() -> {
+                try {
+                    edge.set(graph.insert(hub, v, "hub-v"));
+                } catch (PositionException ex) {
+                    return;
+                }
+            });
+            tasks.add(() -> {
+                try {
+                    graph.remove(v);
+                    removed.set(true);
+                } catch (RemovalException ex) {
+                    return;
+                }
+            });
+            runTogether(tasks);
+
+            if (removed.get()) {
+                assertNull(edge.get());
+            } else {
+                assertEquals("hub-v", graph.remove(edge.get()));
+                graph.remove(v);
+            }
+        }
+        assertFalse(graph.outgoing(hub).iterator().hasNext());
+    }
+
+    @Test
+    @DisplayName("Searchers sharing one graph find the same paths at once, and leave its labels alone")
+    public void searchersShareGraph() throws Throwable {
+        StreetSearcher.VERBOSE = false;
+        try {
+            Graph<String, String> graph = createGraph();
+            StreetSearcher dijkstra = new DijkstraStreetSearcher(graph, true);
+            dijkstra.loadNetwork(new File(Config.class.getResource("/campus.paths.txt").getFile()));
+            StreetSearcher astar = new AStarStreetSearcher(graph);
+            astar.indexNetwork();
+            List<String> names = new ArrayList<>();
+            for (Vertex<String> v : graph.vertices()) {
+                names.add(v.get());
+            }
+
+            List<Runnable> tasks = new ArrayList<>();
+            for (StreetSearcher searcher : new StreetSearcher[] {dijkstra, astar}) {
+                tasks.add(() -> {
+                    StreetSearcher reference = new DijkstraStreetSearcher(graph, false);
+                    reference.indexNetwork();
+                    for (String from : names) {
+                        for (String to : names) {
+                            searcher.findShortestPath(from, to);
+                            reference.findShortestPath(from, to);
+                            assertEquals(reference.getLastPath(), searcher.getLastPath(), from + " to " + to);
+                        }
+                    }
+                });
+            }
+            runTogether(tasks);
+            for (Vertex<String> v : graph.vertices()) {
+                assertNull(graph.label(v));
+            }
+        } finally {
+            StreetSearcher.VERBOSE = true;
+        }
+    }
+
+    @Test
+    @DisplayName("Config turns down searchers that build their tables once for a graph that changes")
+    public void configRejectsPreprocessingSearchers() {
+        for (String searcher : new String[] {"alt", "ch", "radix"}) {
+            System.setProperty("searcher", searcher);
+            try {
+                Config.getStreetSearcher(createGraph());
+                fail("The expected exception was not thrown for " + searcher);
+            } catch (IllegalArgumentException ex) {
+                assertTrue(ex.getMessage().contains(searcher));
+            } finally {
+                System.clearProperty("searcher");
+            }
+        }
+        assertTrue(Config.getStreetSearcher(createGraph()) instanceof DijkstraStreetSearcher);
+    }
+}
@@ -0,0 +1,126 @@
+package hw8;
+
+import hw8.graph.Graph;
+import hw8.graph.SparseGraph;
+import hw8.spp.ContractionHierarchy;
+import hw8.spp.ContractionHierarchyStreetSearcher;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class ContractionHierarchyStreetSearcherTest extends StreetSearcherTest {
+
+    private File hierarchyFile;
+
+    @BeforeEach
+    public void setupHierarchyFile() throws IOException {
+        hierarchyFile = File.createTempFile("network", ".ch");
+        hierarchyFile.deleteOnExit();
+        hierarchyFile.delete();
+    }
+
+    @Override
+    protected StreetSearcher createSearcher(Graph<String, String> graph) {
+        return new ContractionHierarchyStreetSearcher(graph, hierarchyFile);
+    }
+
+    private ContractionHierarchyStreetSearcher load(String map) throws FileNotFoundException {
+        ContractionHierarchyStreetSearcher searcher =
+                new ContractionHierarchyStreetSearcher(new SparseGraph<>(), hierarchyFile);
+        searcher.loadNetwork(data(map));
+        return searcher;
+    }
+
+    private int magic() throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(hierarchyFile))) {
+            return in.readInt();
+        }
+    }
+
+    @Test
+    @DisplayName("Routes across Baltimore match Dijkstra's, shortcuts unpacked")
+    public void baltimoreMatchesDijkstra() throws FileNotFoundException {
+        assertMatchesDijkstra("baltimore.streets.txt", 300, 5);
+    }
+
+    @Test
+    @DisplayName("A saved hierarchy is read back and gives the same routes")
+    public void savedHierarchyIsReused() throws IOException {
+        load("campus.paths.txt");
+        long saved = hierarchyFile.length();
+        assertTrue(hierarchyFile.setLastModified(0));
+        assertMatchesDijkstra("campus.paths.txt");
+        assertEquals(saved, hierarchyFile.length());
+        assertEquals(0, hierarchyFile.lastModified());
+    }
+
+    @Test
+    @DisplayName("A hierarchy saved for another network is rebuilt, not used")
+    public void staleHierarchyIsRebuilt() throws IOException {
+        int campusVertices = load("campus.paths.txt").getHierarchy().numVertices();
+        StreetSearcher searcher = assertMatchesDijkstra("broken.txt");
+        int brokenVertices = ((ContractionHierarchyStreetSearcher) searcher).getHierarchy().numVertices();
+        assertTrue(brokenVertices != campusVertices);
+        assertEquals(brokenVertices, load("broken.txt").getHierarchy().numVertices());
+    }
+
+    @Test
+    @DisplayName("A file that is not a hierarchy is rebuilt, not used")
+    public void foreignFileIsRebuilt() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(hierarchyFile)) {
+            out.write("1 2 20 streetA\n".getBytes("UTF-8"));
+        }
+        assertMatchesDijkstra("campus.paths.txt");
+        assertEquals(0x43483031, magic());
+    }
+
+    @Test
+    @DisplayName("A truncated hierarchy is rebuilt, not used")
+    public void truncatedFileIsRebuilt() throws IOException {
+        load("campus.paths.txt");
+        long saved = hierarchyFile.length();
+        try (RandomAccessFile file = new RandomAccessFile(hierarchyFile, "rw")) {
+            file.setLength(saved / 2);
+        }
+        assertMatchesDijkstra("campus.paths.txt");
+        assertEquals(saved, hierarchyFile.length());
+    }
+
+    @Test
+    @DisplayName("A hierarchy whose counts do not fit the file is rebuilt, not used")
+    public void corruptCountsAreRebuilt() throws IOException {
+        int numVertices = load("campus.paths.txt").getHierarchy().numVertices();
+        long saved = hierarchyFile.length();
+        // The vertex count, then the first and the last offset of the upward arcs
+        long[] positions = {12, 16 + 4L * numVertices, 16 + 8L * numVertices};
+        for (long position : positions) {
+            for (int value : new int[]{-1, 7, Integer.MAX_VALUE}) {
+                load("campus.paths.txt");
+                try (RandomAccessFile file = new RandomAccessFile(hierarchyFile, "rw")) {
+                    file.seek(position);
+                    file.writeInt(value);
+                }
+                try {
+                    ContractionHierarchy.read(hierarchyFile);
+                    fail("The expected exception was not thrown");
+                } catch (IOException ex) {
+                    assertMatchesDijkstra("campus.paths.txt");
+                    assertEquals(saved, hierarchyFile.length());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package hw8;
+
+import hw8.geo.CoordinateCodec;
+import hw8.graph.LongIntMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class CoordinateCodecTest {
+
+    @Test
+    @DisplayName("encode(name) gives the same key for different spellings of a point")
+    public void encodeIgnoresTrailingZeros() {
+        assertEquals(CoordinateCodec.encode("-76.6107,39.2866"), CoordinateCodec.encode("-76.61070,39.28660"));
+        assertNotEquals(CoordinateCodec.encode("-76.6107,39.2866"), CoordinateCodec.encode("-76.6107,39.2867"));
+    }
+
+    @Test
+    @DisplayName("longitude(key) and latitude(key) give back the encoded point")
+    public void decodeGivesBackCoordinates() {
+        long key = CoordinateCodec.encode("-76.620883,39.326204");
+        assertEquals(-76.620883, CoordinateCodec.longitude(key), 1e-9);
+        assertEquals(39.326204, CoordinateCodec.latitude(key), 1e-9);
+    }
+
+    @Test
+    @DisplayName("encode(name) rounds off digits past the seventh decimal place")
+    public void encodeRoundsExtraDigits() {
+        assertEquals(CoordinateCodec.encode("1.0000001,0"), CoordinateCodec.encode("1.00000005,0"));
+        assertEquals(CoordinateCodec.encode("2,0"), CoordinateCodec.encode("1.99999999,0"));
+    }
+
+    @Test
+    @DisplayName("encode(name) returns NONE for names that are not coordinates")
+    public void encodeRejectsLabels() {
+        assertEquals(CoordinateCodec.NONE, CoordinateCodec.encode("Home"));
+        assertEquals(CoordinateCodec.NONE, CoordinateCodec.encode("1"));
+        assertEquals(CoordinateCodec.NONE, CoordinateCodec.encode("1,2,3"));
+        assertEquals(CoordinateCodec.NONE, CoordinateCodec.encode("200,10"));
+        assertEquals(CoordinateCodec.NONE, CoordinateCodec.encode(","));
+    }
+
+    @Test
+    @DisplayName("LongIntMap keeps every key through resizing")
+    public void longIntMapGrows() {
+        LongIntMap map = new LongIntMap(0);
+        for (int i = 0; i < 1000; i++) {
+            map.put(CoordinateCodec.encode("-76." + (1000000 + i) + ",39.5"), i);
+        }
+        assertEquals(1000, map.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map.get(CoordinateCodec.encode("-76." + (1000000 + i) + ",39.5")));
+        }
+        assertEquals(LongIntMap.MISSING, map.get(CoordinateCodec.encode("0,0")));
+    }
+}
@@ -0,0 +1,215 @@
+package hw8;
+
+import exceptions.InsertionException;
+import exceptions.PositionException;
+import hw8.graph.CsrGraph;
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.NetworkSnapshot;
+import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class CsrGraphTest {
+
+    private Graph<String, String> sparse;
+    private CsrGraph<String, String> graph;
+
+    @BeforeEach
+    public void setupGraph() {
+        sparse = new SparseGraph<>();
+        Vertex<String> a = sparse.insert("a");
+        Vertex<String> b = sparse.insert("b");
+        Vertex<String> c = sparse.insert("c");
+        sparse.label(sparse.insert(a, b, "ab"), 1.5);
+        sparse.label(sparse.insert(a, c, "ac"), 4.0);
+        sparse.label(sparse.insert(b, c, "bc"), 2.0);
+        sparse.insert(c, a, "ca");
+        graph = CsrGraph.copyOf(sparse);
+    }
+
+    @Test
+    @DisplayName("copyOf(graph) keeps the vertex order and the edges of each vertex")
+    public void copyOfKeepsStructure() {
+        assertEquals(3, graph.numVertices());
+        assertEquals(4, graph.numEdges());
+        assertEquals("a", graph.vertex(0).get());
+        assertEquals("c", graph.vertex(2).get());
+        assertEquals(2, graph.outEnd(0) - graph.outStart(0));
+        assertEquals("ab", graph.edge(graph.outStart(0)).get());
+        assertEquals(2, graph.target(graph.edgeId(1, 2)));
+        assertEquals(-1, graph.edgeId(1, 0));
+    }
+
+    @Test
+    @DisplayName("incoming(v) lists the edges ending at v")
+    public void incomingListsEdgesIntoVertex() {
+        int count = 0;
+        for (Edge<String> e : graph.incoming(graph.vertex(2))) {
+            assertSame(graph.vertex(2), graph.to(e));
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    @DisplayName("numeric edge labels are kept as weights, missing ones read back as null")
+    public void numericLabelsBecomeWeights() {
+        assertEquals(1.5, graph.weight(graph.edgeId(0, 1)));
+        assertEquals(1.5, graph.label(graph.edge(graph.edgeId(0, 1))));
+        assertTrue(Double.isNaN(graph.weight(graph.edgeId(2, 0))));
+        assertNull(graph.label(graph.edge(graph.edgeId(2, 0))));
+    }
+
+    @Test
+    @DisplayName("label(e, l) accepts labels that are not numbers")
+    public void labelEdgeWithObject() {
+        Edge<String> e = graph.edge(graph.edgeId(0, 2));
+        graph.label(e, "four");
+        assertEquals("four", graph.label(e));
+        graph.label(e, 4.0);
+        assertEquals(4.0, graph.label(e));
+    }
+
+    @Test
+    @DisplayName("weight(e, w) and int and long labels work without boxing")
+    public void primitiveLabels() {
+        Edge<String> e = graph.edge(graph.edgeId(2, 0));
+        graph.weight(e, 3.0);
+        assertEquals(3.0, graph.weight(e), 0.0);
+        assertEquals(3.0, graph.label(e));
+        graph.intLabel(graph.vertex(1), 7);
+        graph.longLabel(graph.vertex(1), 1L << 40);
+        assertEquals(7, graph.intLabel(graph.vertex(1)));
+        assertEquals(1L << 40, graph.longLabel(graph.vertex(1)));
+        assertEquals(0, graph.intLabel(graph.vertex(0)));
+        graph.clearLabels();
+        assertEquals(0, graph.intLabel(graph.vertex(1)));
+        assertTrue(Double.isNaN(graph.weight(e)));
+    }
+
+    @Test
+    @DisplayName("edge(e) handles for the same edge are equal")
+    public void edgeHandlesAreEqual() {
+        assertEquals(graph.edge(1), graph.edge(1));
+        assertEquals(graph.edge(1).hashCode(), graph.edge(1).hashCode());
+    }
+
+    @Test
+    @DisplayName("insert(v) is not supported")
+    public void insertThrows() {
+        try {
+            graph.insert("d");
+            fail("The expected exception was not thrown");
+        } catch (UnsupportedOperationException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("positions from another graph throw PositionException")
+    public void foreignPositionThrows() {
+        Vertex<String> v = sparse.vertices().iterator().next();
+        try {
+            graph.label(v);
+            fail("The expected exception was not thrown");
+        } catch (PositionException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("Builder.addEdge(f, t, e, w) throws InsertionException for a duplicate edge")
+    public void builderRejectsDuplicateEdge() {
+        CsrGraph.Builder<String, String> builder = new CsrGraph.Builder<>();
+        int a = builder.vertex("a");
+        int b = builder.vertex("b");
+        builder.addEdge(a, b, "ab", 1.0);
+        try {
+            builder.addEdge(a, b, "ab2", 2.0);
+            fail("The expected exception was not thrown");
+        } catch (InsertionException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("The Builder finds and rejects vertices and edges by value after growing many times")
+    public void builderFindsValuesAfterGrowing() {
+        CsrGraph.Builder<String, String> builder = new CsrGraph.Builder<>();
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, builder.addVertex(Integer.toString(i)));
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, builder.vertex(new String(Integer.toString(i))));
+            builder.addEdge(i, (i + 1) % 5000, "next", 1.0);
+        }
+        for (int i = 0; i < 5000; i += 499) {
+            try {
+                builder.addEdge(i, (i + 1) % 5000, "again", 2.0);
+                fail("The expected exception was not thrown");
+            } catch (InsertionException ex) {
+                assertEquals(5000, builder.vertex("4999") + 1);
+            }
+        }
+        CsrGraph<String, String> built = builder.build();
+        assertEquals(5000, built.numEdges());
+        assertEquals(1.0, built.weight(built.edgeId(4999, 0)));
+    }
+
+    @Test
+    @DisplayName("vertex(v) gives the same position every time, whichever way it is reached")
+    public void vertexPositionsAreUnique() {
+        Edge<String> ab = graph.edge(graph.edgeId(0, 1));
+        assertSame(graph.vertex(1), graph.to(ab));
+        assertSame(graph.vertex(0), graph.from(ab));
+        assertSame(graph.vertices().iterator().next(), graph.vertex(0));
+    }
+
+    @Test
+    @DisplayName("NetworkSnapshot.read(file) gives back the graph NetworkSnapshot.write(g, file) saved")
+    public void snapshotRoundTrip() throws IOException {
+        File file = File.createTempFile("network", ".snapshot");
+        file.deleteOnExit();
+        NetworkSnapshot.write(sparse, file);
+        CsrGraph<String, String> copy = NetworkSnapshot.read(file);
+        assertEquals(graph.toString(), copy.toString());
+        assertEquals(2.0, copy.weight(copy.edgeId(1, 2)));
+        assertEquals("bc", copy.edge(copy.edgeId(1, 2)).get());
+        assertTrue(Double.isNaN(copy.weight(copy.edgeId(2, 0))));
+    }
+
+    @Test
+    @DisplayName("NetworkSnapshot.read(file) rejects counts and edge offsets that do not fit")
+    public void snapshotRejectsBadOffsets() throws IOException {
+        File file = File.createTempFile("network", ".snapshot");
+        file.deleteOnExit();
+        // {byte position, value}: the vertex count, then the first, second and last edge offsets
+        int[][] corruptions = {{4, Integer.MAX_VALUE}, {4, -1}, {16, 1}, {20, 4}, {28, 3}};
+        for (int[] corruption : corruptions) {
+            NetworkSnapshot.write(sparse, file);
+            try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                out.seek(corruption[0]);
+                out.writeInt(corruption[1]);
+            }
+            try {
+                NetworkSnapshot.read(file);
+                fail("The expected exception was not thrown");
+            } catch (IOException ex) {
+                assertTrue(ex.getMessage().startsWith("Corrupt network snapshot"), ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package hw8;
+
+import hw8.spp.DistanceMatrix;
+import hw8.spp.RoadNetwork;
+import hw8.spp.RoutePlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class DistanceMatrixTest {
+
+    private RoadNetwork network;
+
+    @BeforeEach
+    public void setupNetwork() throws FileNotFoundException {
+        network = RoadNetwork.load(new File(Config.class.getResource("/campus.paths.txt").getFile()));
+    }
+
+    @Test
+    @DisplayName("compute(sources, targets) gives the same distances as one route per pair")
+    public void matrixMatchesRoutes() {
+        int n = network.numVertices();
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        RoutePlanner planner = new RoutePlanner(network);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            double[][] table = new DistanceMatrix(network, pool).compute(ids, ids);
+            for (int from = 0; from < n; from++) {
+                for (int to = 0; to < n; to++) {
+                    assertEquals(planner.route(from, to).getDistance(), table[from][to], 1e-9);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Rows reuse a workspace per pool thread and the caller's, however many tables are computed")
+    public void workspacesAreReused() {
+        int n = network.numVertices();
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            DistanceMatrix matrix = new DistanceMatrix(network, pool);
+            for (int i = 0; i < 5; i++) {
+                matrix.compute(ids, ids);
+            }
+            assertTrue(matrix.getWorkspacesCreated() >= 1);
+            assertTrue(matrix.getWorkspacesCreated() <= 3, matrix.getWorkspacesCreated() + " made");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("compute(sources, targets) fills repeated targets and snaps coordinates")
+    public void matrixByName() {
+        double[][] table = new DistanceMatrix(network).compute(
+                Arrays.asList("-76.620883,39.326204", "-76.6208831,39.3262041"),
+                Arrays.asList("-76.620647,39.331158", "-76.620883,39.326204", "-76.620647,39.331158"));
+        for (double[] row : table) {
+            assertEquals(599.0428, row[0], 1e-4);
+            assertEquals(0.0, row[1], 1e-9);
+            assertEquals(599.0428, row[2], 1e-4);
+        }
+    }
+
+    @Test
+    @DisplayName("compute(sources, targets) gives infinity between unconnected endpoints")
+    public void matrixUnconnected() throws FileNotFoundException {
+        RoadNetwork broken = RoadNetwork.load(new File(Config.class.getResource("/broken.txt").getFile()));
+        double[][] table = new DistanceMatrix(broken).compute(Arrays.asList("1"), Arrays.asList("1", "4"));
+        assertEquals(0.0, table[0][0], 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, table[0][1], 0.0);
+    }
+
+    @Test
+    @DisplayName("compute(sources, targets) throws IllegalArgumentException for an unknown endpoint")
+    public void matrixRejectsUnknownEndpoint() {
+        try {
+            new DistanceMatrix(network).compute(Arrays.asList("Malone_Hall"), Arrays.asList("-76.620647,39.331158"));
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+    }
+}
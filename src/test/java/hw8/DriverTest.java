@@ -0,0 +1,83 @@
+package hw8;
+
+import hw8.spp.RoadNetwork;
+import hw8.spp.RoutePlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DriverTest {
+
+    private RoutePlanner planner;
+
+    @BeforeEach
+    public void setupPlanner() throws IOException {
+        planner = new RoutePlanner(
+                RoadNetwork.load(new File(Config.class.getResource("/campus.paths.txt").getFile())));
+    }
+
+    private String answer(String queries) throws IOException {
+        StringWriter out = new StringWriter();
+        Driver.answerQueries(planner, new BufferedReader(new StringReader(queries)), out);
+        return out.toString();
+    }
+
+    @Test
+    @DisplayName("answerQueries() answers every query line in input order")
+    public void answersInOrder() throws IOException {
+        int n = planner.getNetwork().numVertices();
+        StringBuilder queries = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int from = 0; from < n; from++) {
+            for (int to = n - 1; to >= 0; to--) {
+                String fromName = planner.getNetwork().name(from);
+                String toName = planner.getNetwork().name(to);
+                queries.append(fromName).append(' ').append(toName).append('\n');
+                expected.append(planner.route(fromName, toName));
+            }
+        }
+        assertEquals(expected.toString(), answer(queries.toString()));
+    }
+
+    @Test
+    @DisplayName("answerQueries() reports bad lines and keeps going")
+    public void reportsBadQueries() throws IOException {
+        String from = "-76.620883,39.326204";
+        String to = "-76.620647,39.331158";
+        String expected = "Invalid Query: " + from + "\n"
+                + "Invalid Endpoint: Malone_Hall\n"
+                + planner.route(from, to);
+        assertEquals(expected, answer(from + "\n\nMalone_Hall " + to + "\n  " + from + "\t" + to + "\n"));
+    }
+
+    @Test
+    @DisplayName("The trees property gives the batch planner a tree cache with the same answers")
+    public void answersFromTreeCache() throws IOException {
+        String a = planner.getNetwork().name(1);
+        String b = planner.getNetwork().name(20);
+        String c = planner.getNetwork().name(30);
+        String queries = a + " " + b + "\n" + a + " " + c + "\n" + b + " " + c + "\n" + a + " " + c + "\n";
+        assertNull(Config.getTreeCache());
+        String expected = answer(queries);
+
+        System.setProperty("trees", "1");
+        try {
+            planner = new RoutePlanner(planner.getNetwork(), Config.getTreeCache());
+        } finally {
+            System.clearProperty("trees");
+        }
+        assertNotNull(planner.getTreeCache());
+        assertEquals(expected, answer(queries));
+        assertEquals(2, planner.getTreeCache().size());
+    }
+}
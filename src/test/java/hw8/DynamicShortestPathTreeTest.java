@@ -0,0 +1,141 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.GraphVersion;
+import hw8.graph.VersionedGraph;
+import hw8.spp.DynamicShortestPathTree;
+import hw8.spp.SearchWorkspace;
+import hw8.spp.ShortestPathTree;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DynamicShortestPathTreeTest {
+
+    private CsrGraph<String, String> graph;
+    private VersionedGraph<String, String> versions;
+    private SearchWorkspace workspace;
+
+    @BeforeEach
+    public void setupGraph() throws FileNotFoundException {
+        graph = StreetSearcher.loadCompactNetwork(
+                new File(Config.class.getResource("/baltimore.streets.txt").getFile()));
+        versions = new VersionedGraph<>(graph);
+        workspace = new SearchWorkspace(graph.numVertices());
+    }
+
+    // Same distances as a tree computed from scratch, and every parent edge on a shortest path
+    private void assertRepaired(DynamicShortestPathTree tree) {
+        ShortestPathTree fresh = ShortestPathTree.compute(graph, tree.getWeights(), tree.getSource(), workspace);
+        for (int v = 0; v < graph.numVertices(); v++) {
+            assertEquals(fresh.distance(v), tree.distance(v), 1e-6);
+            int e = tree.parentEdge(v);
+            if (e != ShortestPathTree.NO_EDGE) {
+                assertEquals(v, graph.target(e));
+                assertEquals(tree.distance(v),
+                        tree.distance(graph.source(e)) + tree.getWeights().weight(e), 1e-6);
+            } else {
+                assertTrue(v == tree.getSource() || tree.distance(v) == Double.POSITIVE_INFINITY);
+            }
+        }
+    }
+
+    // Publish one changed weight as a new version
+    private GraphVersion<String, String> setWeight(int e, double w) {
+        return versions.publish(versions.newBatch().weight(e, w));
+    }
+
+    @Test
+    @DisplayName("Repairs match a new search after random traffic updates")
+    public void randomUpdatesMatchFreshTrees() {
+        Random random = new Random(7);
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(graph, graph, 0);
+        for (int round = 0; round < 20; round++) {
+            VersionedGraph.Batch batch = versions.newBatch();
+            for (int i = 1 + random.nextInt(50); i > 0; i--) {
+                int e = random.nextInt(graph.numEdges());
+                double factor = random.nextBoolean() ? 0.25 + random.nextDouble() : 1 + 4 * random.nextDouble();
+                batch.weight(e, factor * versions.current().weight(e));
+            }
+            tree.update(versions.publish(batch), batch.edgeIds());
+            assertRepaired(tree);
+        }
+        assertEquals(20, versions.current().getNumber());
+    }
+
+    @Test
+    @DisplayName("Updates read the new version and leave the graph's own weights alone")
+    public void updatesLeaveGraphUnchanged() {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(graph, graph, 0);
+        double[] before = new double[graph.numEdges()];
+        for (int e = 0; e < before.length; e++) {
+            before[e] = graph.weight(e);
+        }
+        int road = tree.parentEdge(graph.numVertices() / 2);
+        GraphVersion<String, String> closed = setWeight(road, Double.POSITIVE_INFINITY);
+        tree.update(closed, road);
+        assertSame(closed, tree.getWeights());
+        assertSame(closed, tree.toTree().getWeights());
+        for (int e = 0; e < before.length; e++) {
+            assertEquals(before[e], graph.weight(e));
+        }
+    }
+
+    @Test
+    @DisplayName("Closing a road on a path reroutes, and reopening it restores the path")
+    public void closeAndReopenTreeEdge() {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(graph, graph, 0);
+        int target = graph.numVertices() / 2;
+        int road = tree.parentEdge(target);
+        double length = graph.weight(road);
+
+        tree.update(setWeight(road, Double.POSITIVE_INFINITY), road);
+        assertRepaired(tree);
+        assertTrue(tree.parentEdge(target) != road);
+
+        tree.update(setWeight(road, length), road);
+        assertRepaired(tree);
+    }
+
+    @Test
+    @DisplayName("A small change searches far fewer vertices than the whole tree")
+    public void smallChangeSettlesFew() {
+        ShortestPathTree full = ShortestPathTree.compute(graph, 0, workspace);
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(graph, full);
+
+        // The road into a vertex with nothing below it in the tree
+        int leaf = -1;
+        boolean[] hasChild = new boolean[graph.numVertices()];
+        for (int v = 0; v < graph.numVertices(); v++) {
+            if (full.parentEdge(v) != ShortestPathTree.NO_EDGE) {
+                hasChild[graph.source(full.parentEdge(v))] = true;
+            }
+        }
+        for (int v = 0; v < graph.numVertices() && leaf < 0; v++) {
+            if (!hasChild[v] && full.parentEdge(v) != ShortestPathTree.NO_EDGE) {
+                leaf = v;
+            }
+        }
+        int road = full.parentEdge(leaf);
+        int settled = tree.update(setWeight(road, 2 * graph.weight(road)), road);
+        assertRepaired(tree);
+        assertTrue(settled < full.getNumSettled() / 100);
+    }
+
+    @Test
+    @DisplayName("An update with no real change settles nothing")
+    public void unchangedEdgesSettleNothing() {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(graph, graph, 0);
+        assertEquals(0, tree.update(graph, 0, 1, 2, 3));
+        assertEquals(tree.distance(5), tree.toTree().distance(5));
+    }
+}
@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.ConcurrentModificationException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public abstract class GraphTest {
@@ -675,6 +676,74 @@ public abstract class GraphTest {
         }
     }
 
+    // Test cases for visiting edges (i.e. forEachOutgoing() and forEachIncoming())
+
+    @Test
+    @DisplayName("forEachOutgoing() visits each outgoing edge with its head and weight")
+    public void forEachOutgoingVisitsEdges() {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        Vertex<String> v3 = graph.insert("v3");
+        graph.weight(graph.insert(v1, v2, "v1-v2"), 1.5);
+        graph.weight(graph.insert(v1, v3, "v1-v3"), 2.5);
+        graph.insert(v2, v1, "v2-v1");
+
+        Collection<String> visited = new ArrayList<>();
+        graph.forEachOutgoing(v1, (e, neighbor, weight) -> {
+            assertEquals(graph.to(e), neighbor);
+            assertEquals(graph.weight(e), weight);
+            visited.add(e.get());
+        });
+        assertEquals(2, visited.size());
+        assertTrue(visited.contains("v1-v2"));
+        assertTrue(visited.contains("v1-v3"));
+    }
+
+    @Test
+    @DisplayName("forEachIncoming() visits each incoming edge with its tail and weight")
+    public void forEachIncomingVisitsEdges() {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        Vertex<String> v3 = graph.insert("v3");
+        graph.weight(graph.insert(v2, v1, "v2-v1"), 1.5);
+        graph.insert(v3, v1, "v3-v1");
+        graph.insert(v1, v2, "v1-v2");
+
+        Collection<String> visited = new ArrayList<>();
+        graph.forEachIncoming(v1, (e, neighbor, weight) -> {
+            assertEquals(graph.from(e), neighbor);
+            assertEquals(graph.weight(e), weight);
+            visited.add(e.get());
+        });
+        assertEquals(2, visited.size());
+        assertTrue(visited.contains("v2-v1"));
+        assertTrue(visited.contains("v3-v1"));
+    }
+
+    @Test
+    @DisplayName("forEachOutgoing(v1) throws an exception when v1 is not in the graph")
+    public void forEachOutgoingThrowsExceptionWhenCalledOnMissingVertex() {
+        try {
+            Vertex<String> v1 = graph.insert("v1");
+            graph.remove(v1);
+            graph.forEachOutgoing(v1, (e, neighbor, weight) -> fail("Visited an edge of a removed vertex"));
+            fail("The expected exception was not thrown");
+        } catch (PositionException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("forEachIncoming(null) throws an exception")
+    public void forEachIncomingThrowsExceptionWhenCalledOnNull() {
+        try {
+            graph.forEachIncoming(null, (e, neighbor, weight) -> fail("Visited an edge of null"));
+            fail("The expected exception was not thrown");
+        } catch (PositionException ex) {
+            return;
+        }
+    }
+
     // Test cases for labelling/delabelling vertices
 
     @Test
@@ -836,5 +905,120 @@ public abstract class GraphTest {
             assertEquals(graph.label(e), null);
         }
     }
-}
 
+    @Test
+    @DisplayName("from(edge) throws an exception for a removed edge even after an equal edge is inserted")
+    public void removedEdgeStaysInvalid() {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        Edge<String> edge = graph.insert(v1, v2, "v1-v2");
+        graph.remove(edge);
+        graph.insert(v1, v2, "v1-v2");
+        try {
+            graph.from(edge);
+            fail("The expected exception was not thrown");
+        } catch (PositionException ex) {
+            return;
+        }
+    }
+
+    // Test cases for primitive labels
+
+    @Test
+    @DisplayName("weight(edge, w) sets a weight that label(edge) reads back as a Double")
+    public void weightReadsBackAsLabel() {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        Edge<String> edge = graph.insert(v1, v2, "v1-v2");
+        graph.weight(edge, 2.5);
+        assertEquals(2.5, graph.weight(edge), 0.0);
+        assertEquals(2.5, graph.label(edge));
+    }
+
+    @Test
+    @DisplayName("weight(edge) reads a Number label, and NaN for any other label")
+    public void weightOfLabel() {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        Edge<String> edge = graph.insert(v1, v2, "v1-v2");
+        assertEquals(Double.NaN, graph.weight(edge), 0.0);
+        graph.label(edge, 4.0);
+        assertEquals(4.0, graph.weight(edge), 0.0);
+        graph.label(edge, "First label");
+        assertEquals(Double.NaN, graph.weight(edge), 0.0);
+        assertEquals("First label", graph.label(edge));
+    }
+
+    @Test
+    @DisplayName("intLabel(v) and longLabel(v) are kept apart from label(v)")
+    public void primitiveVertexLabels() {
+        Vertex<String> v1 = graph.insert("v1");
+        assertEquals(0, graph.intLabel(v1));
+        assertEquals(0L, graph.longLabel(v1));
+        graph.label(v1, "First label");
+        graph.intLabel(v1, 7);
+        graph.longLabel(v1, 1L << 40);
+        assertEquals("First label", graph.label(v1));
+        assertEquals(7, graph.intLabel(v1));
+        assertEquals(1L << 40, graph.longLabel(v1));
+    }
+
+    @Test
+    @DisplayName("clearLabels() resets weights and int and long labels")
+    public void clearPrimitiveLabels() {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        Edge<String> edge = graph.insert(v1, v2, "v1-v2");
+        graph.weight(edge, 1.0);
+        graph.intLabel(v1, 1);
+        graph.longLabel(v2, 2L);
+        graph.clearLabels();
+        assertEquals(Double.NaN, graph.weight(edge), 0.0);
+        assertEquals(null, graph.label(edge));
+        assertEquals(0, graph.intLabel(v1));
+        assertEquals(0L, graph.longLabel(v2));
+        graph.intLabel(v1, 3);
+        assertEquals(3, graph.intLabel(v1));
+        assertEquals(0L, graph.longLabel(v1));
+    }
+
+    @Test
+    @DisplayName("A vertex inserted after a removal starts without labels")
+    public void reinsertedVertexHasNoLabels() {
+        Vertex<String> v1 = graph.insert("v1");
+        graph.intLabel(v1, 5);
+        graph.label(v1, "First label");
+        graph.remove(v1);
+        Vertex<String> v2 = graph.insert("v2");
+        assertEquals(0, graph.intLabel(v2));
+        assertEquals(null, graph.label(v2));
+    }
+
+    @Test
+    @DisplayName("weight(edge, w) throws an exception when edge is not in the graph")
+    public void weightInvalidEdge() {
+        Vertex<String> v1 = graph.insert("v1");
+        Vertex<String> v2 = graph.insert("v2");
+        Edge<String> edge = graph.insert(v1, v2, "v1-v2");
+        graph.remove(edge);
+        try {
+            graph.weight(edge, 1.0);
+            fail("The expected exception was not thrown");
+        } catch (PositionException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("intLabel(v) throws an exception when v is not in the graph")
+    public void intLabelInvalidVertex() {
+        Vertex<String> v1 = graph.insert("v1");
+        graph.remove(v1);
+        try {
+            graph.intLabel(v1);
+            fail("The expected exception was not thrown");
+        } catch (PositionException ex) {
+            return;
+        }
+    }
+}
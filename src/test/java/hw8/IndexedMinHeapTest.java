@@ -0,0 +1,105 @@
+package hw8;
+
+import hw8.spp.IndexedMinHeap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class IndexedMinHeapTest {
+
+    private IndexedMinHeap heap;
+
+    @BeforeEach
+    public void setupHeap() {
+        this.heap = new IndexedMinHeap(10);
+    }
+
+    @Test
+    @DisplayName("poll() returns items in order of priority")
+    public void pollReturnsItemsInPriorityOrder() {
+        heap.push(3, 30.0);
+        heap.push(1, 10.0);
+        heap.push(2, 20.0);
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(3, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    @DisplayName("push(item, key) lowers the priority of an item already in the heap")
+    public void pushDecreasesKeyOfExistingItem() {
+        heap.push(1, 10.0);
+        heap.push(2, 20.0);
+        heap.push(2, 5.0);
+        assertEquals(2, heap.size());
+        assertEquals(5.0, heap.key(2));
+        assertEquals(2, heap.poll());
+        assertEquals(1, heap.poll());
+    }
+
+    @Test
+    @DisplayName("push(item, key) ignores a higher priority for an item already in the heap")
+    public void pushIgnoresIncreasedKey() {
+        heap.push(1, 10.0);
+        heap.push(1, 50.0);
+        assertEquals(10.0, heap.key(1));
+    }
+
+    @Test
+    @DisplayName("contains(item) is false after the item is polled")
+    public void containsIsFalseAfterPoll() {
+        heap.push(4, 1.0);
+        assertTrue(heap.contains(4));
+        heap.poll();
+        assertFalse(heap.contains(4));
+    }
+
+    @Test
+    @DisplayName("clear() empties the heap and allows items to be pushed again")
+    public void clearEmptiesHeap() {
+        heap.push(1, 1.0);
+        heap.push(2, 2.0);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(1));
+        heap.push(1, 3.0);
+        assertEquals(3.0, heap.peekKey());
+    }
+
+    @Test
+    @DisplayName("poll() throws exception when the heap is empty")
+    public void pollThrowsExceptionWhenEmpty() {
+        try {
+            heap.poll();
+            fail("The expected exception was not thrown");
+        } catch (NoSuchElementException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("random pushes and decreases come out sorted")
+    public void randomOperationsComeOutSorted() {
+        IndexedMinHeap big = new IndexedMinHeap(1000);
+        Random random = new Random(226);
+        for (int i = 0; i < 5000; i++) {
+            big.push(random.nextInt(1000), random.nextDouble());
+        }
+        double last = Double.NEGATIVE_INFINITY;
+        while (!big.isEmpty()) {
+            double key = big.peekKey();
+            big.poll();
+            assertTrue(key >= last);
+            last = key;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package hw8;
+
+import hw8.geo.Geo;
+import hw8.geo.KdTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class KdTreeTest {
+
+    private double[] lons;
+    private double[] lats;
+    private KdTree tree;
+
+    @BeforeEach
+    public void setupTree() {
+        // Random points over Baltimore
+        Random random = new Random(42);
+        lons = new double[2000];
+        lats = new double[2000];
+        for (int i = 0; i < lons.length; i++) {
+            lons[i] = -76.71 + 0.2 * random.nextDouble();
+            lats[i] = 39.2 + 0.17 * random.nextDouble();
+        }
+        tree = new KdTree(lons, lats);
+    }
+
+    // Indexes of all points, nearest to (lon, lat) first
+    private int[] byDistance(double lon, double lat) {
+        return IntStream.range(0, lons.length).boxed()
+                .sorted(Comparator.comparingDouble(i -> Geo.distance(lon, lat, lons[i], lats[i])))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    @DisplayName("nearest(lon, lat) finds the same point as a linear scan")
+    public void nearestMatchesLinearScan() {
+        Random random = new Random(7);
+        for (int q = 0; q < 200; q++) {
+            double lon = -76.75 + 0.3 * random.nextDouble();
+            double lat = 39.15 + 0.25 * random.nextDouble();
+            assertEquals(byDistance(lon, lat)[0], tree.nearest(lon, lat));
+        }
+    }
+
+    @Test
+    @DisplayName("nearest(lon, lat, k) returns the k nearest points in order")
+    public void kNearestMatchesLinearScan() {
+        Random random = new Random(11);
+        for (int q = 0; q < 50; q++) {
+            double lon = -76.71 + 0.2 * random.nextDouble();
+            double lat = 39.2 + 0.17 * random.nextDouble();
+            assertArrayEquals(Arrays.copyOf(byDistance(lon, lat), 8), tree.nearest(lon, lat, 8));
+        }
+    }
+
+    @Test
+    @DisplayName("nearest(lon, lat) of a point in the tree is that point")
+    public void nearestOfStoredPointIsItself() {
+        assertEquals(123, tree.nearest(lons[123], lats[123]));
+    }
+
+    @Test
+    @DisplayName("nearest(lon, lat, k) returns every point when k exceeds the size")
+    public void kLargerThanSize() {
+        KdTree small = new KdTree(new double[]{0, 1, 2}, new double[]{0, 0, 0});
+        assertArrayEquals(new int[]{2, 1, 0}, small.nearest(3, 0, 10));
+        assertEquals(-1, new KdTree(new double[0], new double[0]).nearest(0, 0));
+    }
+}
@@ -0,0 +1,206 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.SparseGraph;
+import hw8.spp.AltStreetSearcher;
+import hw8.spp.LandmarkTable;
+import hw8.spp.RoadNetwork;
+import hw8.spp.SearchWorkspace;
+import hw8.spp.ShortestPathTree;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class LandmarkTableTest {
+
+    private CsrGraph<String, String> graph;
+    private LandmarkTable table;
+
+    @BeforeEach
+    public void setupTable() throws FileNotFoundException {
+        graph = RoadNetwork.load(new File(Config.class.getResource("/campus.paths.txt").getFile())).getGraph();
+        table = build(graph, 8);
+    }
+
+    private static LandmarkTable build(CsrGraph<String, String> graph, int numLandmarks) {
+        int m = graph.numEdges();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        for (int e = 0; e < m; e++) {
+            from[e] = graph.source(e);
+            to[e] = graph.target(e);
+            weight[e] = graph.weight(e);
+        }
+        return LandmarkTable.build(graph.numVertices(), from, to, weight, numLandmarks);
+    }
+
+    // Roads of length 1 both ways between each vertex of a chain and the next
+    private static LandmarkTable buildChains(int numVertices, int numLandmarks, int[]... chains) {
+        int m = 0;
+        for (int[] chain : chains) {
+            m += 2 * (chain.length - 1);
+        }
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        int e = 0;
+        for (int[] chain : chains) {
+            for (int i = 1; i < chain.length; i++, e += 2) {
+                from[e] = to[e + 1] = chain[i - 1];
+                to[e] = from[e + 1] = chain[i];
+                weight[e] = weight[e + 1] = 1.0;
+            }
+        }
+        return LandmarkTable.build(numVertices, from, to, weight, numLandmarks);
+    }
+
+    @Test
+    @DisplayName("Lower bounds never exceed the shortest path")
+    public void boundsAreAdmissible() {
+        int n = graph.numVertices();
+        SearchWorkspace workspace = new SearchWorkspace(n);
+        for (int v = 0; v < n; v++) {
+            ShortestPathTree tree = ShortestPathTree.compute(graph, v, workspace);
+            for (int t = 0; t < n; t++) {
+                double bound = table.lowerBound(v, t);
+                assertTrue(bound >= 0.0);
+                assertTrue(bound <= tree.distance(t), v + " to " + t);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Bounds from a landmark are its shortest path distances")
+    public void boundsFromLandmarkAreExact() {
+        SearchWorkspace workspace = new SearchWorkspace(graph.numVertices());
+        for (int i = 0; i < table.numLandmarks(); i++) {
+            ShortestPathTree tree = ShortestPathTree.compute(graph, table.landmark(i), workspace);
+            for (int t = 0; t < graph.numVertices(); t++) {
+                assertEquals(tree.distance(t), table.lowerBound(table.landmark(i), t), 1e-3);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Farthest-point selection picks distinct landmarks, no more than there are vertices")
+    public void landmarksAreDistinct() {
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < table.numLandmarks(); i++) {
+            picked.add(table.landmark(i));
+        }
+        assertEquals(8, picked.size());
+
+        CsrGraph.Builder<String, String> builder = new CsrGraph.Builder<>();
+        builder.addEdge(builder.addVertex("a"), builder.addVertex("b"), "ab", 1.0);
+        assertEquals(2, build(builder.build(), 8).numLandmarks());
+    }
+
+    @Test
+    @DisplayName("Landmarks go to the largest piece, even when vertex 0 is on a small island")
+    public void landmarksAvoidIslands() {
+        LandmarkTable island = buildChains(10, 3, new int[]{0, 1}, new int[]{2, 3, 4, 5, 6, 7, 8, 9});
+        for (int i = 0; i < island.numLandmarks(); i++) {
+            assertTrue(island.landmark(i) >= 2, "landmark " + island.landmark(i));
+        }
+        assertEquals(7.0, island.lowerBound(2, 9), 1e-6);
+
+        // Only once the largest piece has no vertex left do the others get landmarks
+        LandmarkTable spill = buildChains(5, 4, new int[]{0, 1}, new int[]{2, 3, 4});
+        Set<Integer> picked = new HashSet<>();
+        for (int i = 0; i < spill.numLandmarks(); i++) {
+            picked.add(spill.landmark(i));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3, 4)), picked);
+    }
+
+    @Test
+    @DisplayName("The vertex selection starts from is not kept as a hidden landmark")
+    public void seedIsNoLandmark() {
+        // 0 is in the middle of the chain; the first two landmarks are its ends, and the third
+        // is 0 itself, which it could not be if the distances from 0 still counted
+        LandmarkTable chain = buildChains(9, 3, new int[]{1, 2, 3, 4, 0, 5, 6, 7, 8});
+        assertEquals(1, chain.landmark(0));
+        assertEquals(8, chain.landmark(1));
+        assertEquals(0, chain.landmark(2));
+    }
+
+    @Test
+    @DisplayName("A saved table reads back with the same bounds")
+    public void writeThenRead() throws IOException {
+        File file = File.createTempFile("network", ".alt");
+        file.deleteOnExit();
+        table.write(file);
+        LandmarkTable read = LandmarkTable.read(file);
+        assertEquals(table.numLandmarks(), read.numLandmarks());
+        assertEquals(table.numVertices(), read.numVertices());
+        for (int v = 0; v < graph.numVertices(); v++) {
+            for (int t = 0; t < graph.numVertices(); t += 7) {
+                assertEquals(table.lowerBound(v, t), read.lowerBound(v, t));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("read(file) rejects a file that is not a landmark table")
+    public void readRejectsOtherFiles() throws IOException {
+        File file = File.createTempFile("network", ".alt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{'C', 'H', '0', '1', 0, 0, 0, 0});
+        }
+        try {
+            LandmarkTable.read(file);
+            fail("The expected exception was not thrown");
+        } catch (IOException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("read(file) rejects a table whose counts do not fit the file")
+    public void readRejectsCorruptCounts() throws IOException {
+        File file = File.createTempFile("network", ".alt");
+        file.deleteOnExit();
+        // The landmark count, the vertex count, then the first landmark
+        for (long position : new long[]{12, 16, 20}) {
+            for (int value : new int[]{-1, 1 << 20, Integer.MAX_VALUE}) {
+                table.write(file);
+                try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+                    out.seek(position);
+                    out.writeInt(value);
+                }
+                try {
+                    LandmarkTable.read(file);
+                    fail("The expected exception was not thrown");
+                } catch (IOException ex) {
+                    assertTrue(ex.getMessage().startsWith("Corrupt landmark table"), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The searcher saves a table with the landmarks asked for")
+    public void searcherSavesTable() throws IOException {
+        File file = File.createTempFile("network", ".alt");
+        file.deleteOnExit();
+        AltStreetSearcher searcher = new AltStreetSearcher(new SparseGraph<>(), 4, file);
+        searcher.loadNetwork(new File(Config.class.getResource("/campus.paths.txt").getFile()));
+        assertEquals(4, searcher.getTable().numLandmarks());
+        assertTrue(file.length() > 0);
+    }
+}
@@ -0,0 +1,23 @@
+package hw8;
+
+import hw8.graph.Graph;
+import hw8.spp.RadixHeapStreetSearcher;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+
+public class RadixHeapStreetSearcherTest extends StreetSearcherTest {
+
+    @Override
+    protected StreetSearcher createSearcher(Graph<String, String> graph) {
+        return new RadixHeapStreetSearcher(graph);
+    }
+
+    @Test
+    @DisplayName("Routes across Baltimore match Dijkstra's, with lengths rounded to whole units in the queue")
+    public void baltimoreMatchesDijkstra() throws FileNotFoundException {
+        assertMatchesDijkstra("baltimore.streets.txt", 300, 24);
+    }
+}
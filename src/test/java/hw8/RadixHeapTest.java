@@ -0,0 +1,103 @@
+package hw8;
+
+import hw8.spp.RadixHeap;
+import hw8.spp.RadixHeapStreetSearcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class RadixHeapTest {
+
+    private RadixHeap heap;
+
+    @BeforeEach
+    public void setupHeap() {
+        this.heap = new RadixHeap();
+    }
+
+    @Test
+    @DisplayName("poll() returns items in order of priority")
+    public void pollReturnsItemsInPriorityOrder() {
+        heap.push(3, 30);
+        heap.push(1, 10);
+        heap.push(2, 20);
+        assertEquals(1, heap.poll());
+        assertEquals(10, heap.lastKey());
+        assertEquals(2, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(30, heap.lastKey());
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Interleaved pushes and polls come out like a PriorityQueue's")
+    public void matchesPriorityQueue() {
+        Random random = new Random(11);
+        PriorityQueue<Long> expected = new PriorityQueue<>();
+        for (int round = 0; round < 10000; round++) {
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                long key = heap.lastKey() + random.nextInt(1 << random.nextInt(30));
+                heap.push(round, key);
+                expected.add(key);
+            } else {
+                heap.poll();
+                assertEquals((long) expected.poll(), heap.lastKey());
+            }
+            assertEquals(expected.size(), heap.size());
+        }
+    }
+
+    @Test
+    @DisplayName("push(item, key) rejects a priority below the last polled")
+    public void pushRejectsDecreasingKey() {
+        heap.push(1, 10);
+        heap.poll();
+        try {
+            heap.push(2, 5);
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("clear() empties the heap and allows any priority again")
+    public void clearResetsLastKey() {
+        heap.push(1, 10);
+        heap.push(2, 20);
+        heap.poll();
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        heap.push(3, 5);
+        assertEquals(3, heap.poll());
+    }
+
+    @Test
+    @DisplayName("poll() on an empty heap throws an exception")
+    public void pollThrowsWhenEmpty() {
+        try {
+            heap.poll();
+            fail("The expected exception was not thrown");
+        } catch (NoSuchElementException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("Road lengths with four decimals quantize exactly")
+    public void quantizeIsExactForFourDecimals() {
+        assertEquals(215510, RadixHeapStreetSearcher.quantize(21.5510));
+        assertEquals(1333630, RadixHeapStreetSearcher.quantize(133.363));
+        assertEquals(0, RadixHeapStreetSearcher.quantize(0.0));
+        assertEquals(-1, RadixHeapStreetSearcher.quantize(Double.NaN));
+        assertEquals(-1, RadixHeapStreetSearcher.quantize(-1.0));
+    }
+}
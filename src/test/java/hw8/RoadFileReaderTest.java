@@ -0,0 +1,120 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.Edge;
+import hw8.graph.Vertex;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// The data file reader is checked through loadCompactNetwork() against Scanner and Double.parseDouble
+public class RoadFileReaderTest {
+
+    private static File write(String text) throws IOException {
+        File file = File.createTempFile("roads", ".txt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    // Load the file and check every road Scanner finds in it, with the distance bit for bit
+    private static void assertReadsLikeScanner(File file) throws IOException {
+        CsrGraph<String, String> graph = StreetSearcher.loadCompactNetwork(file);
+        Map<String, Vertex<String>> byName = new HashMap<>();
+        for (Vertex<String> v : graph.vertices()) {
+            byName.put(v.get(), v);
+        }
+
+        int roads = 0;
+        try (Scanner scanner = new Scanner(file, "UTF-8")) {
+            while (scanner.hasNext()) {
+                String from = scanner.next();
+                String to = scanner.next();
+                String distance = scanner.next();
+                String name = scanner.next();
+                roads++;
+
+                assertNotNull(byName.get(from), from);
+                Edge<String> road = null;
+                for (Edge<String> e : graph.outgoing(byName.get(from))) {
+                    if (graph.to(e).get().equals(to)) {
+                        road = e;
+                    }
+                }
+                assertNotNull(road, from + " to " + to);
+                assertEquals(name, road.get());
+                assertEquals(Double.doubleToLongBits(Double.parseDouble(distance)),
+                        Double.doubleToLongBits(graph.weight(road)), distance);
+            }
+        }
+        assertEquals(2 * roads, graph.numEdges());
+    }
+
+    private static String lines(String newline, String... distances) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < distances.length; i++) {
+            text.append("a").append(i).append(" b").append(i).append(' ')
+                    .append(distances[i]).append(" road").append(i).append(newline);
+        }
+        return text.toString();
+    }
+
+    @Test
+    @DisplayName("Integer distances and distances without a leading digit")
+    public void integersAndBareFractions() throws IOException {
+        assertReadsLikeScanner(write(lines("\n", "20", "0", "007", ".5", ".0625", "0.1", "133.363", "21.5510")));
+    }
+
+    @Test
+    @DisplayName("Distances with more digits than a double holds fall back to Double.parseDouble")
+    public void longDistances() throws IOException {
+        assertReadsLikeScanner(write(lines("\n", "3.14159265358979323846", "123456789012345678.5",
+                "0.1234567890123456789", "9007199254740993", "9007199254740992", "1234567.891011121",
+                "0.00000000000000000000001", "1e3", "2.5E-2")));
+    }
+
+    @Test
+    @DisplayName("Lines ending in CRLF")
+    public void crlfLineEndings() throws IOException {
+        assertReadsLikeScanner(write(lines("\r\n", "20", "40.25", ".75", "15")));
+    }
+
+    @Test
+    @DisplayName("A file without a final newline")
+    public void noFinalNewline() throws IOException {
+        String text = lines("\n", "20", "40.25", "15.125");
+        assertReadsLikeScanner(write(text.substring(0, text.length() - 1)));
+        text = lines("\r\n", "20", "40.25");
+        assertReadsLikeScanner(write(text.substring(0, text.length() - 2)));
+    }
+
+    @Test
+    @DisplayName("Lines split across read blocks, in a file several blocks long")
+    public void linesAcrossBlocks() throws IOException {
+        Random random = new Random(8);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 << 18; i++) {
+            // Line lengths vary, so block ends fall inside names, distances and line breaks alike
+            String distance = random.nextInt(1000) + "." + random.nextInt(1 + random.nextInt(100000));
+            text.append("from_").append(i).append('_').append(random.nextInt(1 << random.nextInt(20)))
+                    .append(' ').append("to_").append(i).append(' ').append(distance)
+                    .append(' ').append("road_").append(random.nextInt(1 << random.nextInt(20)))
+                    .append(random.nextBoolean() ? "\n" : "\r\n");
+        }
+        assertReadsLikeScanner(write(text.toString()));
+    }
+}
@@ -0,0 +1,123 @@
+package hw8;
+
+import hw8.graph.Edge;
+import hw8.graph.ObservableGraph;
+import hw8.graph.SparseGraph;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.RouteCache;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RouteCacheTest {
+
+    private static final String MALONE = "-76.620883,39.326204";
+    private static final String UTL = "-76.620647,39.331158";
+
+    private ObservableGraph<String, String> graph;
+    private StreetSearcher searcher;
+    private RouteCache cache;
+    private PrintStream stdout;
+
+    @BeforeEach
+    public void setupSearcher() throws FileNotFoundException {
+        StreetSearcher.VERBOSE = false;
+        graph = new ObservableGraph<>(new SparseGraph<>());
+        searcher = new DijkstraStreetSearcher(graph, true);
+        searcher.loadNetwork(new File(Config.class.getResource("/campus.paths.txt").getFile()));
+        cache = new RouteCache(1 << 20);
+        searcher.setRouteCache(cache);
+        stdout = System.out;
+    }
+
+    @AfterEach
+    public void restoreOutput() {
+        System.setOut(stdout);
+        StreetSearcher.VERBOSE = true;
+    }
+
+    private String printedPath(String from, String to) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        StreetSearcher.VERBOSE = true;
+        try {
+            searcher.findShortestPath(from, to);
+        } finally {
+            StreetSearcher.VERBOSE = false;
+            System.setOut(stdout);
+        }
+        return out.toString();
+    }
+
+    @Test
+    @DisplayName("findShortestPath() answers a repeated query from the cache with the same output")
+    public void repeatedQueryHits() {
+        String searched = printedPath(MALONE, UTL);
+        assertTrue(searcher.getNumSettled() > 0);
+        String cached = printedPath(MALONE, UTL);
+        assertEquals(searched, cached);
+        assertEquals(0, searcher.getNumSettled());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("findShortestPath() shares one cache entry between spellings of a query")
+    public void spellingsShareEntry() {
+        searcher.findShortestPath(MALONE, UTL);
+        searcher.findShortestPath("-76.6208830,39.3262040", "-76.6206471,39.3311579");
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("Relabeling an edge of an ObservableGraph empties the cache")
+    public void edgeLabelInvalidates() {
+        searcher.findShortestPath(MALONE, UTL);
+        searcher.findShortestPath(UTL, MALONE);
+        Edge<String> road = graph.edges().iterator().next();
+        graph.label(road, 1.0);
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getInvalidations());
+        searcher.findShortestPath(MALONE, UTL);
+        assertEquals(0, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Searching does not invalidate the cache by labeling vertices")
+    public void vertexLabelsDoNotInvalidate() {
+        searcher.findShortestPath(MALONE, UTL);
+        searcher.findShortestPath(UTL, MALONE);
+        assertEquals(2, cache.size());
+        assertEquals(0, cache.getInvalidations());
+    }
+
+    @Test
+    @DisplayName("The cache evicts least recently used paths to stay under its memory cap")
+    public void evictsUnderCap() {
+        RouteCache small = new RouteCache(800);
+        searcher.setRouteCache(small);
+        searcher.findShortestPath(MALONE, UTL);
+        long onePath = small.getBytes();
+        for (String from : new String[]{UTL, "-76.618822,39.327018", "-76.620436,39.329133"}) {
+            searcher.findShortestPath(from, MALONE);
+        }
+        assertTrue(small.getEvictions() > 0);
+        assertTrue(small.getBytes() <= 800);
+        searcher.findShortestPath(MALONE, UTL);
+        assertEquals(0, small.getHits());
+        assertTrue(onePath > 0);
+    }
+}
@@ -0,0 +1,240 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.GraphVersion;
+import hw8.graph.VersionedGraph;
+import hw8.spp.RoadNetwork;
+import hw8.spp.Route;
+import hw8.spp.RoutePlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class RoutePlannerTest {
+
+    private RoadNetwork network;
+    private RoutePlanner planner;
+
+    @BeforeEach
+    public void setupPlanner() throws FileNotFoundException {
+        network = RoadNetwork.load(new File(Config.class.getResource("/campus.paths.txt").getFile()));
+        planner = new RoutePlanner(network);
+    }
+
+    @Test
+    @DisplayName("route(from, to) finds the route from Malone Hall to the Undergraduate Teaching Labs")
+    public void routeAcrossCampus() {
+        Route route = planner.route("-76.620883,39.326204", "-76.620647,39.331158");
+        assertTrue(route.isFound());
+        assertEquals(599.0428, route.getDistance(), 1e-4);
+        assertEquals(7, route.getRoads().size());
+        assertEquals("Malone_Hall--Shriver_Hall", route.getRoads().get(0).get());
+        assertEquals(58.16, route.getLength(0), 1e-2);
+    }
+
+    @Test
+    @DisplayName("route(from, to) snaps coordinates that are not an endpoint")
+    public void routeSnapsCoordinates() {
+        Route route = planner.route("-76.6208831,39.3262041", "-76.620647,39.331158");
+        assertEquals("-76.620883,39.326204", route.getFrom());
+        assertEquals(599.0428, route.getDistance(), 1e-4);
+    }
+
+    @Test
+    @DisplayName("route(from, to) throws IllegalArgumentException for an unknown endpoint")
+    public void routeRejectsUnknownEndpoint() {
+        try {
+            planner.route("Malone_Hall", "-76.620647,39.331158");
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("route(fromId, toId) names the id that is out of range")
+    public void routeNamesBadId() {
+        int n = planner.getNetwork().numVertices();
+        try {
+            planner.route(0, n);
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Invalid Endpoint: " + n, ex.getMessage());
+        }
+        try {
+            planner.route(n + 1, 0);
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Invalid Endpoint: " + (n + 1), ex.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("route(from, to) is not found between unconnected endpoints")
+    public void routeNotFound() throws FileNotFoundException {
+        RoutePlanner broken = new RoutePlanner(
+                RoadNetwork.load(new File(Config.class.getResource("/broken.txt").getFile())));
+        Route route = broken.route("1", "4");
+        assertFalse(route.isFound());
+        assertTrue(route.getRoads().isEmpty());
+    }
+
+    @Test
+    @DisplayName("route(from, to) gives the same answers from many threads at once")
+    public void concurrentRoutesMatchSequential() throws Exception {
+        int n = network.numVertices();
+        List<String> expected = new ArrayList<>();
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                expected.add(planner.route(from, to).toString());
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int from = 0; from < n; from++) {
+                for (int to = 0; to < n; to++) {
+                    int f = from;
+                    int t = to;
+                    results.add(pool.submit(() -> planner.route(f, t).toString()));
+                }
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(expected.get(i), results.get(i).get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Routes on a new thread each reuse the pooled workspaces")
+    public void workspacesAreReusedAcrossThreads() throws Exception {
+        int maxInFlight = 4;
+        RoutePlanner pooled = new RoutePlanner(network, null, maxInFlight);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int from = i % network.numVertices();
+            int to = (7 * i) % network.numVertices();
+            inFlight.acquire();
+            Thread thread = new Thread(() -> {
+                try {
+                    pooled.route(from, to);
+                } finally {
+                    inFlight.release();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(pooled.getWorkspacesCreated() <= maxInFlight, "" + pooled.getWorkspacesCreated());
+    }
+
+    @Test
+    @DisplayName("RoutePlanner throws IllegalArgumentException for no workspaces")
+    public void plannerRejectsNoWorkspaces() {
+        try {
+            new RoutePlanner(network, null, 0);
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("Routes on pinned versions read only their own version's weights while batches are published")
+    public void routesOnVersionsWhilePublishing() throws Exception {
+        CsrGraph<String, String> graph = network.getGraph();
+        VersionedGraph<String, String> versions = new VersionedGraph<>(graph);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread publisher = new Thread(() -> {
+            Random random = new Random(22);
+            while (!done.get()) {
+                VersionedGraph.Batch batch = versions.newBatch();
+                for (int i = 0; i < 20; i++) {
+                    int e = random.nextInt(graph.numEdges());
+                    batch.weight(e, graph.weight(e) * (1 + 4 * random.nextDouble()));
+                }
+                versions.publish(batch);
+            }
+        });
+
+        int n = network.numVertices();
+        Random random = new Random(23);
+        List<GraphVersion<String, String>> pinned = new ArrayList<>();
+        List<int[]> ends = new ArrayList<>();
+        List<Route> routes = new ArrayList<>();
+        publisher.start();
+        try {
+            for (int i = 0; i < 500 || versions.current().getNumber() < 200; i++) {
+                GraphVersion<String, String> version = versions.pin();  // closed once checked
+                int[] pair = {random.nextInt(n), random.nextInt(n)};
+                pinned.add(version);
+                ends.add(pair);
+                routes.add(planner.route(version, pair[0], pair[1]));
+            }
+        } finally {
+            done.set(true);
+            publisher.join();
+        }
+
+        Set<Long> numbers = new HashSet<>();
+        int changed = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            GraphVersion<String, String> version = pinned.get(i);
+            Route route = routes.get(i);
+            numbers.add(version.getNumber());
+            assertEquals(planner.route(version, ends.get(i)[0], ends.get(i)[1]).toString(), route.toString());
+            double total = 0.0;
+            for (int j = 0; j < route.getRoads().size(); j++) {
+                assertEquals(version.weight(graph.id(route.getRoads().get(j))), route.getLength(j));
+                total += route.getLength(j);
+            }
+            if (route.isFound()) {
+                assertEquals(route.getDistance(), total, 1e-9);
+            }
+            if (route.getDistance() != planner.route(ends.get(i)[0], ends.get(i)[1]).getDistance()) {
+                changed++;
+            }
+            version.close();
+        }
+        assertTrue(numbers.size() > 1, "" + numbers);
+        assertTrue(changed > 0);
+        assertEquals(0, versions.getNumRetained());
+    }
+
+    @Test
+    @DisplayName("route(version, from, to) throws IllegalArgumentException for a version of another graph")
+    public void routeRejectsForeignVersion() throws FileNotFoundException {
+        RoadNetwork other = RoadNetwork.load(new File(Config.class.getResource("/campus.paths.txt").getFile()));
+        try (GraphVersion<String, String> version = new VersionedGraph<>(other.getGraph()).pin()) {
+            planner.route(version, 0, 1);
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package hw8;
+
+import hw8.server.RouteServer;
+import hw8.spp.RoadNetwork;
+import hw8.spp.RoutePlanner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class RouteServerTest {
+
+    private RoutePlanner planner;
+    private RouteServer server;
+    private int port;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        planner = new RoutePlanner(
+                RoadNetwork.load(new File(Config.class.getResource("/campus.paths.txt").getFile())));
+        server = new RouteServer(planner, 4);
+        port = server.start(0);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    // Status code followed by the body
+    private String get(String pathAndQuery, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + pathAndQuery)
+                .openConnection();
+        connection.setRequestMethod(method);
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+            body.write(buffer, 0, n);
+        }
+        in.close();
+        return status + " " + new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("GET /route answers with the route as JSON")
+    public void routeAsJson() throws IOException {
+        String response = get("/route?from=-76.620883,39.326204&to=-76.620647%2C39.331158", "GET");
+        assertTrue(response.startsWith("200 {\"from\":\"-76.620883,39.326204\",\"to\":\"-76.620647,39.331158\","
+                + "\"found\":true,\"distance\":599.04"), response);
+        assertTrue(response.contains("\"roads\":[{\"name\":\"Malone_Hall--Shriver_Hall\",\"length\":58.1"), response);
+        assertTrue(response.contains("{\"name\":\"Undergraduate_Teaching_Labs--Dunning_Hall\",\"length\":113.1"),
+                response);
+        assertTrue(response.endsWith("}]}"), response);
+    }
+
+    @Test
+    @DisplayName("GET /route answers 400 for missing or unknown endpoints")
+    public void badEndpoints() throws IOException {
+        assertEquals("400 {\"error\":\"Both from and to are required\"}", get("/route?from=1", "GET"));
+        assertEquals("400 {\"error\":\"Invalid Endpoint: Malone_Hall\"}",
+                get("/route?from=Malone_Hall&to=-76.620647,39.331158", "GET"));
+    }
+
+    @Test
+    @DisplayName("GET /route answers 400 for a malformed query")
+    public void malformedQuery() throws IOException {
+        // Newer JDKs reject the bad escape before the handler sees it, with
+        // their own body; either way it is a 400 rather than a dropped connection
+        assertTrue(get("/route?from=%zz&to=1", "GET").startsWith("400 "));
+    }
+
+    @Test
+    @DisplayName("GET /route answers 503 while maxInFlight routes are being searched")
+    public void tooManyInFlight() throws Exception {
+        server.stop(0);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server = new RouteServer((from, to) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return planner.route(from, to);
+        }, 1);
+        port = server.start(0);
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> blocked = client.submit(
+                    () -> get("/route?from=-76.620883,39.326204&to=-76.620647,39.331158", "GET"));
+            entered.await();
+            assertEquals("503 {\"error\":\"Too many queries in flight\"}",
+                    get("/route?from=-76.620883,39.326204&to=-76.620647,39.331158", "GET"));
+            release.countDown();
+            assertTrue(blocked.get().startsWith("200 "), blocked.get());
+            assertTrue(get("/route?from=-76.620883,39.326204&to=-76.620647,39.331158", "GET")
+                    .startsWith("200 "));
+        } catch (ExecutionException e) {
+            fail(e.getCause());
+        } finally {
+            release.countDown();
+            client.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("/route answers 405 to anything but GET")
+    public void onlyGet() throws IOException {
+        assertEquals("405 {\"error\":\"Method not allowed\"}", get("/route?from=1&to=2", "DELETE"));
+    }
+
+    @Test
+    @DisplayName("start(port) throws IllegalStateException if the server is already running")
+    public void startTwice() throws IOException {
+        try {
+            server.start(0);
+            fail("The expected exception was not thrown");
+        } catch (IllegalStateException ex) {
+            return;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package hw8;
+
+import hw8.spp.SearchWorkspace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchWorkspaceTest {
+
+    private SearchWorkspace workspace;
+
+    @BeforeEach
+    public void setupWorkspace() {
+        workspace = new SearchWorkspace(5);
+        workspace.begin();
+    }
+
+    @Test
+    @DisplayName("reach(v, d, p, k) records the distance and parent and queues v")
+    public void reachRecordsVertex() {
+        workspace.reach(3, 2.5, 1, 2.5);
+        assertTrue(workspace.reached(3));
+        assertEquals(2.5, workspace.distance(3));
+        assertEquals(1, workspace.parent(3));
+        assertEquals(3, workspace.queue().poll());
+    }
+
+    @Test
+    @DisplayName("unreached vertices have no distance and no parent")
+    public void unreachedVertex() {
+        assertFalse(workspace.reached(2));
+        assertEquals(Double.MAX_VALUE, workspace.distance(2));
+        assertEquals(SearchWorkspace.NO_PARENT, workspace.parent(2));
+    }
+
+    @Test
+    @DisplayName("begin() forgets everything the previous query wrote")
+    public void beginForgetsPreviousQuery() {
+        workspace.reach(0, 0.0, SearchWorkspace.NO_PARENT, 0.0);
+        workspace.reach(4, 7.0, 0, 7.0);
+        workspace.begin();
+        assertFalse(workspace.reached(0));
+        assertFalse(workspace.reached(4));
+        assertEquals(Double.MAX_VALUE, workspace.distance(4));
+        assertTrue(workspace.queue().isEmpty());
+    }
+}
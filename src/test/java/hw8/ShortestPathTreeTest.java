@@ -0,0 +1,147 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.GraphVersion;
+import hw8.graph.VersionedGraph;
+import hw8.spp.RoadNetwork;
+import hw8.spp.Route;
+import hw8.spp.RoutePlanner;
+import hw8.spp.SearchWorkspace;
+import hw8.spp.ShortestPathTree;
+import hw8.spp.ShortestPathTreeCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ShortestPathTreeTest {
+
+    private RoadNetwork network;
+
+    @BeforeEach
+    public void setupNetwork() throws FileNotFoundException {
+        network = RoadNetwork.load(new File(Config.class.getResource("/campus.paths.txt").getFile()));
+    }
+
+    @Test
+    @DisplayName("Routes read off cached trees are the same as searched routes")
+    public void treeRoutesMatchSearch() {
+        RoutePlanner searched = new RoutePlanner(network);
+        ShortestPathTreeCache trees = new ShortestPathTreeCache(1 << 24);
+        RoutePlanner cached = new RoutePlanner(network, trees);
+        int n = network.numVertices();
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                assertEquals(searched.route(from, to).toString(), cached.route(from, to).toString());
+            }
+        }
+        assertEquals(n, trees.size());
+        assertEquals(n, trees.getMisses());
+        assertEquals((long) n * (n - 1), trees.getHits());
+    }
+
+    @Test
+    @DisplayName("A route from a cached tree settles no vertices")
+    public void treeHitSettlesNothing() {
+        RoutePlanner planner = new RoutePlanner(network, new ShortestPathTreeCache(1 << 24));
+        Route first = planner.route("-76.620883,39.326204", "-76.620647,39.331158");
+        Route second = planner.route("-76.620883,39.326204", "-76.620647,39.331158");
+        assertEquals(network.numVertices(), first.getNumSettled());
+        assertEquals(0, second.getNumSettled());
+        assertEquals(599.0428, second.getDistance(), 1e-4);
+    }
+
+    @Test
+    @DisplayName("The cache evicts least recently used trees to stay within its budget")
+    public void evictsWithinBudget() {
+        long treeBytes = ShortestPathTree.compute(network.getGraph(), 0,
+                new SearchWorkspace(network.numVertices())).bytes();
+        ShortestPathTreeCache trees = new ShortestPathTreeCache(2 * treeBytes);
+        RoutePlanner planner = new RoutePlanner(network, trees);
+        planner.route(0, 1);
+        planner.route(1, 0);
+        planner.route(0, 2);
+        planner.route(2, 0);
+        assertEquals(2, trees.size());
+        assertEquals(1, trees.getEvictions());
+        assertTrue(trees.getBytes() <= 2 * treeBytes);
+        planner.route(1, 2);
+        assertEquals(4, trees.getMisses());
+    }
+
+    @Test
+    @DisplayName("A tree marks unreachable vertices with infinite distance")
+    public void unreachableInTree() throws FileNotFoundException {
+        RoadNetwork broken = RoadNetwork.load(new File(Config.class.getResource("/broken.txt").getFile()));
+        RoutePlanner planner = new RoutePlanner(broken, new ShortestPathTreeCache(1 << 20));
+        Route route = planner.route("1", "4");
+        assertFalse(route.isFound());
+        assertEquals(ShortestPathTree.NO_EDGE, ShortestPathTree.compute(broken.getGraph(), broken.idOf("1"),
+                new SearchWorkspace(broken.numVertices())).parentEdge(broken.idOf("4")));
+    }
+
+    @Test
+    @DisplayName("A tree computed on a version has that version's distances")
+    public void treeOnVersionMatchesRoutes() {
+        CsrGraph<String, String> graph = network.getGraph();
+        VersionedGraph<String, String> versions = new VersionedGraph<>(graph);
+        VersionedGraph.Batch batch = versions.newBatch();
+        for (int e = 0; e < graph.numEdges(); e += 3) {
+            batch.weight(e, 5 * graph.weight(e));
+        }
+        versions.publish(batch);
+        RoutePlanner planner = new RoutePlanner(network);
+        int n = network.numVertices();
+        try (GraphVersion<String, String> version = versions.pin()) {
+            for (int from = 0; from < n; from += 7) {
+                ShortestPathTree tree = ShortestPathTree.compute(graph, version, from, new SearchWorkspace(n));
+                for (int to = 0; to < n; to++) {
+                    assertEquals(planner.route(version, from, to).getDistance(), tree.distance(to));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("update() repairs cached trees for a new version, and routes on that version read them")
+    public void cacheRepairsTreesForNewVersion() {
+        CsrGraph<String, String> graph = network.getGraph();
+        VersionedGraph<String, String> versions = new VersionedGraph<>(graph);
+        ShortestPathTreeCache trees = new ShortestPathTreeCache(1 << 24);
+        RoutePlanner cached = new RoutePlanner(network, trees);
+        RoutePlanner searched = new RoutePlanner(network);
+        int n = network.numVertices();
+        GraphVersion<String, String> first = versions.current();
+        for (int from = 0; from < n; from++) {
+            cached.route(first, from, 0);
+        }
+
+        Random random = new Random(23);
+        VersionedGraph.Batch batch = versions.newBatch();
+        for (int i = 0; i < 10; i++) {
+            int e = random.nextInt(graph.numEdges());
+            batch.weight(e, 3 * graph.weight(e));
+        }
+        GraphVersion<String, String> second = versions.publish(batch);
+        assertEquals(n, trees.update(graph, first, second, batch.edgeIds()));
+        assertEquals(n, trees.size());
+
+        long misses = trees.getMisses();
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                assertEquals(searched.route(second, from, to).getDistance(),
+                        cached.route(second, from, to).getDistance(), 1e-9);
+            }
+        }
+        assertEquals(misses, trees.getMisses());
+        cached.route(first, 0, 1);
+        assertEquals(misses + 1, trees.getMisses());
+    }
+}
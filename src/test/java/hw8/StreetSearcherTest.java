@@ -0,0 +1,140 @@
+package hw8;
+
+import hw8.graph.Edge;
+import hw8.graph.Graph;
+import hw8.graph.SparseGraph;
+import hw8.graph.Vertex;
+import hw8.spp.DijkstraStreetSearcher;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks a StreetSearcher against DijkstraStreetSearcher on every pair of
+ * endpoints of the small maps. Extend it for each searcher.
+ */
+public abstract class StreetSearcherTest {
+
+    protected Graph<String, String> graph;
+
+    /**
+     * Create the searcher under test.
+     *
+     * @param graph an empty graph to load the network into.
+     * @return the searcher.
+     */
+    protected abstract StreetSearcher createSearcher(Graph<String, String> graph);
+
+    @BeforeEach
+    public void quiet() {
+        StreetSearcher.VERBOSE = false;
+    }
+
+    @AfterEach
+    public void loud() {
+        StreetSearcher.VERBOSE = true;
+    }
+
+    protected static File data(String name) {
+        return new File(Config.class.getResource("/" + name).getFile());
+    }
+
+    // Load the map into the searcher under test and into Dijkstra, and compare every pair
+    protected StreetSearcher assertMatchesDijkstra(String map) throws FileNotFoundException {
+        return assertMatchesDijkstra(map, 0, 0);
+    }
+
+    // Same, for numPairs random pairs if it is positive
+    protected StreetSearcher assertMatchesDijkstra(String map, int numPairs, long seed) throws FileNotFoundException {
+        graph = new SparseGraph<>();
+        StreetSearcher searcher = createSearcher(graph);
+        searcher.loadNetwork(data(map));
+        StreetSearcher dijkstra = new DijkstraStreetSearcher(new SparseGraph<>(), true);
+        dijkstra.loadNetwork(data(map));
+
+        List<String> names = new ArrayList<>();
+        for (Vertex<String> v : graph.vertices()) {
+            names.add(v.get());
+        }
+        Random random = new Random(seed);
+        int rows = numPairs > 0 ? numPairs : names.size();
+        int cols = numPairs > 0 ? 1 : names.size();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                String from = names.get(numPairs > 0 ? random.nextInt(names.size()) : i);
+                String to = names.get(numPairs > 0 ? random.nextInt(names.size()) : j);
+                dijkstra.findShortestPath(from, to);
+                searcher.findShortestPath(from, to);
+                String pair = from + " to " + to;
+                if (dijkstra.getLastPath() == null) {
+                    assertNull(searcher.getLastPath(), pair);
+                    continue;
+                }
+                assertNotNull(searcher.getLastPath(), pair);
+                assertEquals(dijkstra.getLastDistance(), searcher.getLastDistance(), 1e-9, pair);
+                assertValidPath(from, to, searcher.getLastPath(), searcher.getLastDistance());
+            }
+        }
+        return searcher;
+    }
+
+    // The roads lead from one end to the other, and add up to the distance
+    private void assertValidPath(String from, String to, List<Edge<String>> path, double distance) {
+        String pair = from + " to " + to;
+        Vertex<String> at = null;
+        double total = 0.0;
+        for (Edge<String> road : path) {
+            if (at == null) {
+                assertEquals(from, graph.from(road).get(), pair);
+            } else {
+                assertSame(at, graph.from(road), pair);
+            }
+            at = graph.to(road);
+            total += graph.weight(road);
+        }
+        assertEquals(to, at.get(), pair);
+        assertEquals(distance, total, 1e-9, pair);
+    }
+
+    @Test
+    @DisplayName("Every route on the campus map matches Dijkstra's algorithm")
+    public void campusMatchesDijkstra() throws FileNotFoundException {
+        assertMatchesDijkstra("campus.paths.txt");
+    }
+
+    @Test
+    @DisplayName("Every route on a map in pieces matches Dijkstra's, including ends with no path")
+    public void brokenMatchesDijkstra() throws FileNotFoundException {
+        StreetSearcher searcher = assertMatchesDijkstra("broken.txt");
+        searcher.findShortestPath("1", "4");
+        assertNull(searcher.getLastPath());
+    }
+
+    @Test
+    @DisplayName("findShortestPath() rejects a name that is neither an endpoint nor coordinates")
+    public void unknownEndpointIsInvalid() throws FileNotFoundException {
+        graph = new SparseGraph<>();
+        StreetSearcher searcher = createSearcher(graph);
+        searcher.loadNetwork(data("campus.paths.txt"));
+        try {
+            searcher.findShortestPath("Malone_Hall", "-76.620647,39.331158");
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Invalid Endpoint: Malone_Hall", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package hw8;
+
+import hw8.graph.CsrGraph;
+import hw8.graph.Edge;
+import hw8.graph.GraphVersion;
+import hw8.graph.VersionedGraph;
+import hw8.spp.StreetSearcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class VersionedGraphTest {
+
+    private CsrGraph<String, String> graph;
+    private VersionedGraph<String, String> versions;
+
+    @BeforeEach
+    public void setupVersions() throws FileNotFoundException {
+        graph = StreetSearcher.loadCompactNetwork(
+                new File(Config.class.getResource("/baltimore.streets.txt").getFile()));
+        versions = new VersionedGraph<>(graph);
+    }
+
+    @Test
+    @DisplayName("Publishing 1% of the weights copies only the leaves they are in")
+    public void publishSharesUnchangedWeights() {
+        GraphVersion<String, String> first = versions.current();
+        Random random = new Random(1);
+        VersionedGraph.Batch batch = versions.newBatch();
+        int[] changed = new int[graph.numEdges() / 100];
+        for (int i = 0; i < changed.length; i++) {
+            changed[i] = random.nextInt(graph.numEdges());
+            batch.weight(changed[i], 2 * graph.weight(changed[i]));
+        }
+        GraphVersion<String, String> second = versions.publish(batch);
+
+        assertSame(second, versions.current());
+        assertEquals(1, second.getNumber());
+        assertTrue(second.getLeavesCopied() <= changed.length);
+        assertTrue(second.getLeavesCopied() < second.getNumLeaves() / 4);
+        for (int e : changed) {
+            assertEquals(graph.weight(e), first.weight(e));
+            assertEquals(2 * graph.weight(e), second.weight(e));
+        }
+        for (int e = 0; e < graph.numEdges(); e++) {
+            assertEquals(graph.weight(e), first.weight(e));
+        }
+    }
+
+    @Test
+    @DisplayName("A version reads like the graph, with its own weights, and cannot be changed")
+    public void versionIsReadOnlyGraph() {
+        Edge<String> road = graph.edge(0);
+        GraphVersion<String, String> second = versions.publish(versions.newBatch().weight(road, 1.5));
+
+        assertEquals(1.5, second.weight(road));
+        assertEquals(1.5, second.label(road));
+        assertEquals(graph.to(road), second.to(road));
+        second.forEachOutgoing(graph.from(road), (e, neighbor, weight) -> {
+            assertEquals(second.weight(e), weight);
+        });
+        try {
+            second.weight(road, 2.0);
+            fail("The expected exception was not thrown");
+        } catch (UnsupportedOperationException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("A replaced version is retained only while it is pinned")
+    public void pinnedVersionIsRetainedUntilClosed() {
+        GraphVersion<String, String> pinned = versions.pin();
+        versions.publish(versions.newBatch().weight(0, 1.0));
+        assertEquals(1, versions.getNumRetained());
+        assertEquals(1, pinned.getPins());
+        assertNotEquals(pinned, versions.current());
+
+        pinned.close();
+        assertEquals(0, pinned.getPins());
+        assertEquals(0, versions.getNumRetained());
+
+        try (GraphVersion<String, String> current = versions.pin()) {
+            assertEquals(1, current.getNumber());
+        }
+        assertEquals(0, versions.current().getPins());
+    }
+
+    @Test
+    @DisplayName("A batch rejects edges the graph does not have")
+    public void batchRejectsMissingEdge() {
+        try {
+            versions.newBatch().weight(graph.numEdges(), 1.0);
+            fail("The expected exception was not thrown");
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+    }
+
+    @Test
+    @DisplayName("Queries see every weight of a batch or none of them")
+    public void readersSeeWholeBatches() throws InterruptedException {
+        int[] feed = new int[graph.numEdges() / 100];
+        for (int i = 0; i < feed.length; i++) {
+            feed[i] = i * 100;
+        }
+        AtomicBoolean publishing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (publishing.get()) {
+                        try (GraphVersion<String, String> version = versions.pin()) {
+                            for (int e : feed) {
+                                double expected = version.getNumber() == 0 ? graph.weight(e) : version.getNumber();
+                                assertEquals(expected, version.weight(e));
+                            }
+                        }
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        VersionedGraph.Batch batch = versions.newBatch();
+        for (int round = 1; round <= 500; round++) {
+            batch.clear();
+            for (int e : feed) {
+                batch.weight(e, round);
+            }
+            versions.publish(batch);
+        }
+        publishing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            fail(failure.get());
+        }
+        assertEquals(500, versions.current().getNumber());
+        assertEquals(0, versions.getNumRetained());
+    }
+}
@@ -0,0 +1,86 @@
+package performance;
+
+import exceptions.InsertionException;
+import hw8.Config;
+import hw8.graph.CsrGraph;
+import hw8.spp.StreetSearcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import performance.profiler.GcProfiler;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+// Loading a data file into a CsrGraph: the byte tokenizer against the Scanner loop it replaced
+@State(Scope.Benchmark)
+public class JmhLoadTest {
+
+    @Param({"scanner", "tokenizer"})
+    public String reader;
+
+    @Param({"baltimore.streets.txt", "campus.paths.txt"})
+    public String map;
+
+    private File data;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JmhLoadTest.class.getSimpleName())
+                .addProfiler(GcProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = new File(Config.class.getResource("/" + map).getFile());
+    }
+
+    @Benchmark
+    @Fork(value = 2, warmups = 1)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public CsrGraph<String, String> load() throws FileNotFoundException {
+        return reader.equals("scanner") ? loadWithScanner(data) : StreetSearcher.loadCompactNetwork(data);
+    }
+
+    // The line-at-a-time Scanner loop loadNetwork() used before, into the same kind of graph
+    private static CsrGraph<String, String> loadWithScanner(File data) throws FileNotFoundException {
+        CsrGraph.Builder<String, String> builder = new CsrGraph.Builder<>();
+        try (Scanner input = new Scanner(new FileInputStream(data))) {
+            while (input.hasNext()) {
+                String[] tokens = input.nextLine().split(" ");
+                int from = builder.vertex(tokens[0]);
+                int to = builder.vertex(tokens[1]);
+                double distance = Double.parseDouble(tokens[2]);
+                try {
+                    builder.addEdge(from, to, tokens[3], distance);
+                    builder.addEdge(to, from, tokens[3], distance);
+                } catch (InsertionException ignored) {
+                    // a road already added the other way
+                }
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,83 @@
+package performance;
+
+import hw8.Config;
+import hw8.graph.Graph;
+import hw8.spp.StreetSearcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import performance.profiler.GcProfiler;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+// Warm, repeated queries on one loaded network, over the same endpoints as JmhRuntimeTest.
+// JmhRuntimeTest loads the network before every invocation and so measures the first query on it.
+@State(Scope.Benchmark)
+public class JmhRepeatedQueryTest {
+
+    @Param({"dijkstra", "astar", "bidirectional", "ch", "radix", "alt"})
+    public String searcher;
+
+    @Param({"JHU to Druid Lake", "7-11 to Druid Lake", "Inner Harbor to JHU"})
+    public String endPointKey;
+
+    private HashMap<String, String[]> endpoints;
+    private Graph<String, String> graph;
+    private StreetSearcher sst;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(JmhRepeatedQueryTest.class.getSimpleName())
+                .addProfiler(GcProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    // Searchers reset their own state between queries, so one loaded network serves every invocation
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        StreetSearcher.VERBOSE = false;
+
+        endpoints = new HashMap<>();
+        endpoints.put("JHU to Druid Lake", new String[]{"-76.6175,39.3296", "-76.6383,39.3206"});
+        endpoints.put("7-11 to Druid Lake", new String[]{"-76.6214,39.3212", "-76.6383,39.3206"});
+        endpoints.put("Inner Harbor to JHU", new String[]{"-76.6107,39.2866", "-76.6175,39.3296"});
+
+        File data = new File(Config.class.getResource("/" + "baltimore.streets.txt").getFile());
+
+        System.setProperty("searcher", searcher);
+        graph = Config.getGraph();
+        sst = Config.getStreetSearcher(graph);
+        sst.loadNetwork(data);
+    }
+
+    @Benchmark
+    @Fork(value = 2, warmups = 2)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void findShortestPath(Blackhole blackhole) {
+        sst.findShortestPath(endpoints.get(endPointKey)[0], endpoints.get(endPointKey)[1]);
+        blackhole.consume(graph);
+        blackhole.consume(sst);
+    }
+}
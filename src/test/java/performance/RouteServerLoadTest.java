@@ -0,0 +1,131 @@
+package performance;
+
+import hw8.Config;
+import hw8.server.RouteServer;
+import hw8.spp.RoadNetwork;
+import hw8.spp.RoutePlanner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RouteServerLoadTest {
+
+    private static final int CLIENTS = 16;
+    private static final int REQUESTS_PER_CLIENT = 200;
+    private static final int MAX_IN_FLIGHT = 16;
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.getConfig();
+        System.out.println("~~~ RouteServerLoadTest ~~~");
+        System.out.println(config);
+        RoadNetwork network = RoadNetwork.load(config.data);
+        RoutePlanner planner = new RoutePlanner(network, null, MAX_IN_FLIGHT);
+        RouteServer server = new RouteServer(planner, MAX_IN_FLIGHT);
+        int port = server.start(0);
+        try {
+            // Warm up, then measure
+            run(network, port, CLIENTS, REQUESTS_PER_CLIENT / 4, 1);
+            run(network, port, CLIENTS, REQUESTS_PER_CLIENT, 2);
+        } finally {
+            server.stop(0);
+        }
+        System.out.printf("%d search workspaces made for %d vertices\n", planner.getWorkspacesCreated(),
+                network.numVertices());
+        System.out.println("~~~~~~     END     ~~~~~~");
+    }
+
+    private static void run(RoadNetwork network, int port, int clients, int requests, long seed)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong clientBytes = new AtomicLong();
+        List<Future<long[]>> results = new ArrayList<>();
+        long startBytes = allocatedBytes();
+        long startTime = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            Random random = new Random(seed * clients + c);
+            results.add(pool.submit(() -> {
+                long threadBytes = threadAllocatedBytes();
+                long[] latencies = new long[requests];
+                for (int i = 0; i < requests; i++) {
+                    String from = network.name(random.nextInt(network.numVertices()));
+                    String to = network.name(random.nextInt(network.numVertices()));
+                    long start = System.nanoTime();
+                    int status = request(port, from, to);
+                    latencies[i] = System.nanoTime() - start;
+                    if (status == 503) {
+                        rejected.incrementAndGet();
+                    } else if (status != 200) {
+                        failed.incrementAndGet();
+                    }
+                }
+                clientBytes.addAndGet(threadAllocatedBytes() - threadBytes);
+                return latencies;
+            }));
+        }
+        long[] latencies = new long[clients * requests];
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(results.get(c).get(), 0, latencies, c * requests, requests);
+        }
+        long elapsedTime = System.nanoTime() - startTime;
+        // The clients are still alive here, so their allocation is in the total and can be taken out
+        long serverBytes = allocatedBytes() - startBytes - clientBytes.get();
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%d requests from %d clients in %d milliseconds: %.0f requests/second\n",
+                latencies.length, clients, elapsedTime / 1000000, latencies.length / (elapsedTime / 1e9));
+        System.out.printf("Latency p50 %.2f ms, p99 %.2f ms, max %.2f ms; %d rejected, %d failed\n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies[latencies.length - 1] / 1e6, rejected.get(), failed.get());
+        System.out.printf("Server allocated %.1f KB per request\n", serverBytes / 1024.0 / latencies.length);
+    }
+
+    // Bytes allocated so far by all live threads; the server's threads live through a run
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(bytes, 0);
+        }
+        return total;
+    }
+
+    private static long threadAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private static int request(int port, String from, String to) throws IOException {
+        URL url = new URL("http://localhost:" + port + "/route?from=" + URLEncoder.encode(from, "UTF-8")
+                + "&to=" + URLEncoder.encode(to, "UTF-8"));
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int status = connection.getResponseCode();
+        try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) > 0) {
+                continue;
+            }
+        }
+        return status;
+    }
+}